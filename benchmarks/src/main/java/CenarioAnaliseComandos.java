@@ -0,0 +1,102 @@
+import java.nio.charset.StandardCharsets;
+
+import benchmarks.AlvoAnaliseComandos;
+
+/**
+ * Cenário de AnaliseComandosBenchmark
+ */
+public class CenarioAnaliseComandos implements AlvoAnaliseComandos, TratadorComandos {
+    private int resultado;
+    
+    @Override
+    public int analisarComSplit(byte[] linha) {
+        // O que readLine() e o switch de GerenciadorCliente faziam por linha
+        String[] partes = Protocolo.parsearMensagem(new String(linha, StandardCharsets.UTF_8));
+        
+        switch (partes[0]) {
+            case Protocolo.CONECTAR:
+                aoConectar(partes[1], partes.length >= 3 && Protocolo.BINARIO.equals(partes[2]));
+                break;
+            
+            case Protocolo.RESPOSTA:
+                try {
+                    aoResponder(Integer.parseInt(partes[1]));
+                } catch (NumberFormatException e) {
+                    aoResponderInvalido();
+                }
+                break;
+            
+            case Protocolo.PARAR:
+                aoParar();
+                break;
+            
+            case Protocolo.CHAT:
+                aoConversar(partes[1]);
+                break;
+            
+            case Protocolo.SINCRONIZAR:
+                aoSincronizar();
+                break;
+            
+            default:
+                aoComandoDesconhecido(partes[0]);
+        }
+        return resultado;
+    }
+    
+    @Override
+    public int analisarSemAlocacao(byte[] linha) {
+        AnalisadorComandos.analisar(linha, 0, linha.length, this);
+        return resultado;
+    }
+    
+    @Override
+    public void aoConectar(String nome, boolean binario) {
+        resultado = nome.length();
+    }
+    
+    @Override
+    public void aoResponder(int resposta) {
+        resultado = resposta;
+    }
+    
+    @Override
+    public void aoResponderInvalido() {
+        resultado = -1;
+    }
+    
+    @Override
+    public void aoParar() {
+        resultado = 1;
+    }
+    
+    @Override
+    public void aoConversar(String texto) {
+        resultado = texto.length();
+    }
+    
+    @Override
+    public void aoSincronizar() {
+        resultado = 2;
+    }
+    
+    @Override
+    public void aoRetomar(String token, boolean binario) {
+        resultado = token.length();
+    }
+    
+    @Override
+    public void aoPing() {
+        resultado = 3;
+    }
+    
+    @Override
+    public void aoPong() {
+        resultado = 4;
+    }
+    
+    @Override
+    public void aoComandoDesconhecido(String comando) {
+        resultado = comando.length();
+    }
+}
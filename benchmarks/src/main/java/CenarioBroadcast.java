@@ -0,0 +1,58 @@
+import benchmarks.AlvoBroadcast;
+
+/**
+ * Cenário de BroadcastBenchmark
+ */
+public class CenarioBroadcast implements AlvoBroadcast {
+    private Sala sala;
+    private long bytesEntregues;
+    private int contador;
+    
+    /**
+     * Conexão em memória: a drenagem roda na própria thread e só conta os
+     * bytes que iriam para o socket
+     */
+    private class ConexaoMemoria extends GerenciadorCliente {
+        
+        ConexaoMemoria(Servidor servidor) {
+            super(null, servidor);
+        }
+        
+        @Override
+        protected void iniciarDrenagem() {
+            do {
+                Quadro quadro;
+                while ((quadro = filaSaida.retirar()) != null) {
+                    bytesEntregues += quadro.getTamanho();
+                }
+            } while (filaSaida.concluirDrenagem());
+        }
+        
+        @Override
+        protected void agendarDesconexao() {
+        }
+        
+        @Override
+        protected void fecharConexao() {
+        }
+    }
+    
+    @Override
+    public void preparar(int clientes) {
+        Servidor servidor = new Servidor();
+        
+        // Placar publicado na hora (sem agendador) e sala que nunca inicia
+        sala = new Sala(1, Integer.MAX_VALUE, null, 0,
+            ConfiguracaoServidor.EstadoJogadores.OBJETOS, null);
+        for (int i = 0; i < clientes; i++) {
+            sala.adicionarJogador(new Jogador("Jogador" + i), new ConexaoMemoria(servidor));
+        }
+    }
+    
+    @Override
+    public long broadcast() {
+        contador++;
+        sala.broadcast(Protocolo.criarMensagemChat("Jogador", "mensagem " + contador));
+        return bytesEntregues;
+    }
+}
@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import benchmarks.AlvoDiario;
+
+/**
+ * Cenário de DiarioBenchmark
+ */
+public class CenarioDiario implements AlvoDiario {
+    private EstadoJogo estadoJogo;
+    private DiarioEventos diario;
+    private Path diretorio;
+    private List<Jogador> jogadores;
+    private final AtomicInteger proximo = new AtomicInteger();
+    
+    @Override
+    public void preparar(int quantidade, boolean comDiario) {
+        try {
+            if (comDiario) {
+                diretorio = Files.createTempDirectory("diario");
+                diario = DiarioEventos.abrir(diretorio, ConfiguracaoServidor.EstadoJogadores.OBJETOS, 60_000);
+            }
+            estadoJogo = new EstadoJogo(ConfiguracaoServidor.EstadoJogadores.OBJETOS, null, diario, 1);
+            if (diario != null) {
+                diario.iniciar(() -> List.of(estadoJogo));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        jogadores = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Jogador jogador = new Jogador("Jogador" + i);
+            estadoJogo.adicionarJogador(jogador);
+            jogadores.add(jogador);
+        }
+        estadoJogo.iniciarJogo();
+    }
+    
+    @Override
+    public boolean processarResposta() {
+        Jogador jogador = jogadores.get(Math.floorMod(proximo.getAndIncrement(), jogadores.size()));
+        
+        // Volta ao início antes da última pergunta para a partida não acabar
+        if (jogador.getNivelAtual() >= 14) {
+            jogador.setNivelAtual(0);
+        }
+        
+        Pergunta pergunta = estadoJogo.obterPerguntaParaJogador(jogador);
+        boolean acertou = estadoJogo.processarResposta(jogador, pergunta.getRespostaCorreta());
+        
+        // Como o servidor, que só confirma a resposta depois do force
+        CountDownLatch gravado = new CountDownLatch(1);
+        estadoJogo.aposGravar(gravado::countDown);
+        try {
+            gravado.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return acertou;
+    }
+    
+    @Override
+    public void encerrar() {
+        if (diario == null) {
+            return;
+        }
+        diario.fechar();
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import benchmarks.AlvoEstadoJogo;
+
+/**
+ * Cenário de EstadoJogoBenchmark
+ */
+public class CenarioEstadoJogo implements AlvoEstadoJogo {
+    private ConfiguracaoServidor.EstadoJogadores modo;
+    private EstadoJogo estadoJogo;
+    private List<Jogador> jogadores;
+    private int proximo;
+    
+    @Override
+    public void preparar(int quantidade, String estado) {
+        modo = ConfiguracaoServidor.EstadoJogadores.valueOf(estado);
+        jogadores = new ArrayList<>();
+        estadoJogo = criarPartida(quantidade, jogadores);
+    }
+    
+    private EstadoJogo criarPartida(int quantidade, List<Jogador> destino) {
+        EstadoJogo partida = new EstadoJogo(modo);
+        for (int i = 0; i < quantidade; i++) {
+            Jogador jogador = new Jogador("Jogador" + i);
+            partida.adicionarJogador(jogador);
+            destino.add(jogador);
+        }
+        partida.iniciarJogo();
+        return partida;
+    }
+    
+    @Override
+    public boolean processarResposta() {
+        Jogador jogador = jogadores.get(proximo);
+        proximo = (proximo + 1) % jogadores.size();
+        
+        // Volta ao início antes da última pergunta para a partida não acabar
+        if (jogador.getNivelAtual() >= 14) {
+            jogador.setNivelAtual(0);
+        }
+        
+        Pergunta pergunta = estadoJogo.obterPerguntaParaJogador(jogador);
+        return estadoJogo.processarResposta(jogador, pergunta.getRespostaCorreta());
+    }
+    
+    @Override
+    public String obterEstatisticas() {
+        return estadoJogo.obterEstatisticas();
+    }
+    
+    @Override
+    public Object montarPartida() {
+        List<Jogador> novos = new ArrayList<>(jogadores.size());
+        EstadoJogo partida = criarPartida(jogadores.size(), novos);
+        // O que processarResposta muda, sem as alocações de sortear a pergunta
+        for (Jogador jogador : novos) {
+            jogador.avancarNivel();
+            jogador.setPremioAtual(BancoPerguntas.getPremioGarantido(1));
+        }
+        return partida;
+    }
+}
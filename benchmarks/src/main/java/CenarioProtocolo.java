@@ -0,0 +1,60 @@
+import benchmarks.AlvoProtocolo;
+
+/**
+ * Cenário de ProtocoloBenchmark
+ */
+public class CenarioProtocolo implements AlvoProtocolo {
+    private final Pergunta pergunta;
+    private final String mensagemPergunta;
+    private int contador;
+    
+    public CenarioProtocolo() {
+        this.pergunta = new BancoPerguntas().obterPergunta(5);
+        this.mensagemPergunta = Protocolo.criarMensagemPergunta(pergunta);
+    }
+    
+    @Override
+    public String formatarPergunta() {
+        return pergunta.formatarParaEnvio();
+    }
+    
+    @Override
+    public String criarMensagemPergunta() {
+        return Protocolo.criarMensagemPergunta(pergunta);
+    }
+    
+    @Override
+    public Object quadroPergunta() {
+        return pergunta.getQuadro();
+    }
+    
+    @Override
+    public String criarMensagemResultado() {
+        // Valores variando para que a concatenação não seja constante
+        contador++;
+        return Protocolo.criarMensagemResultado((contador & 1) == 0, contador * 1000.0, contador & 15);
+    }
+    
+    @Override
+    public String criarMensagemPlacar() {
+        contador++;
+        return Protocolo.criarMensagemPlacar(contador, contador & 1023, "Jogador", contador & 15,
+            contador * 1000.0, "ATIVO");
+    }
+    
+    @Override
+    public String[] parsearPergunta() {
+        return Protocolo.parsearMensagem(mensagemPergunta);
+    }
+    
+    @Override
+    public byte[] codificarPerguntaBinaria() {
+        return ProtocoloBinario.codificar(mensagemPergunta);
+    }
+    
+    @Override
+    public byte[] codificarResultadoBinario() {
+        contador++;
+        return ProtocoloBinario.codificarResultado((contador & 1) == 0, contador * 1000.0, contador & 15);
+    }
+}
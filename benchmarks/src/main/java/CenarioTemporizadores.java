@@ -0,0 +1,68 @@
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import benchmarks.AlvoTemporizadores;
+
+/**
+ * Cenário de TemporizadoresBenchmark
+ */
+public class CenarioTemporizadores implements AlvoTemporizadores {
+    private static final long PRAZO_MS = TimeUnit.HOURS.toMillis(1);
+    private static final Runnable NADA = () -> { };
+    
+    private RodaTemporizadores roda;
+    private ScheduledThreadPoolExecutor agendador;
+    private Object[] prazos;
+    private int proximo;
+    
+    @Override
+    public void preparar(int pendentes, boolean comRoda) {
+        if (comRoda) {
+            roda = new RodaTemporizadores(100);
+            roda.iniciar();
+        } else {
+            // Como a roda, libera na hora a memória de um prazo cancelado
+            agendador = new ScheduledThreadPoolExecutor(1);
+            agendador.setRemoveOnCancelPolicy(true);
+        }
+        
+        prazos = new Object[pendentes];
+        for (int i = 0; i < pendentes; i++) {
+            prazos[i] = agendar();
+        }
+        proximo = 0;
+    }
+    
+    @Override
+    public void renovar() {
+        if (roda != null) {
+            ((RodaTemporizadores.Temporizador) prazos[proximo]).cancelar();
+        } else {
+            ((ScheduledFuture<?>) prazos[proximo]).cancel(false);
+        }
+        prazos[proximo] = agendar();
+        proximo = (proximo + 1) % prazos.length;
+    }
+    
+    /**
+     * Prazos espalhados em uma hora, como os de jogadores que receberam a
+     * pergunta em momentos diferentes
+     */
+    private Object agendar() {
+        long atraso = PRAZO_MS + ThreadLocalRandom.current().nextLong(PRAZO_MS);
+        return roda != null
+            ? roda.agendar(atraso, NADA)
+            : agendador.schedule(NADA, atraso, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public void encerrar() {
+        if (roda != null) {
+            roda.parar();
+        } else {
+            agendador.shutdownNow();
+        }
+    }
+}
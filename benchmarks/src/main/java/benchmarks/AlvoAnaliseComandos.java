@@ -0,0 +1,17 @@
+package benchmarks;
+
+/**
+ * Análise de uma linha de comando recebida do cliente
+ */
+public interface AlvoAnaliseComandos {
+    
+    /**
+     * Caminho anterior: String da linha, split e switch sobre o comando
+     */
+    int analisarComSplit(byte[] linha);
+    
+    /**
+     * AnalisadorComandos direto sobre os bytes
+     */
+    int analisarSemAlocacao(byte[] linha);
+}
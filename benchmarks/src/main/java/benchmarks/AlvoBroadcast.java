@@ -0,0 +1,17 @@
+package benchmarks;
+
+/**
+ * Broadcast de uma sala para conexões em memória
+ */
+public interface AlvoBroadcast {
+    
+    /**
+     * Cria uma sala com o número de clientes informado
+     */
+    void preparar(int clientes);
+    
+    /**
+     * Sala.broadcast de uma mensagem de chat; retorna os bytes entregues
+     */
+    long broadcast();
+}
@@ -0,0 +1,24 @@
+package benchmarks;
+
+/**
+ * Partida com diário de eventos, respondida por várias threads
+ */
+public interface AlvoDiario {
+    
+    /**
+     * Cria uma partida iniciada com o número de jogadores informado,
+     * registrada em um diário em diretório temporário se diario for true
+     */
+    void preparar(int jogadores, boolean diario);
+    
+    /**
+     * Próximo jogador (em rodízio entre as threads) recebe uma pergunta e
+     * responde certo; com diário, só retorna depois do registro em disco
+     */
+    boolean processarResposta();
+    
+    /**
+     * Fecha o diário e apaga o diretório
+     */
+    void encerrar();
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+/**
+ * Estado de uma partida com muitos jogadores
+ */
+public interface AlvoEstadoJogo {
+    
+    /**
+     * Cria uma partida iniciada com o número de jogadores informado
+     * estado: OBJETOS ou TABELA (ConfiguracaoServidor.EstadoJogadores)
+     */
+    void preparar(int jogadores, String estado);
+    
+    /**
+     * Próximo jogador (em rodízio) recebe uma pergunta e responde certo
+     */
+    boolean processarResposta();
+    
+    /**
+     * EstadoJogo.obterEstatisticas (placar completo)
+     */
+    String obterEstatisticas();
+    
+    /**
+     * Monta uma partida nova com o mesmo número de jogadores, cada um já
+     * no nível 1; com -prof gc, os bytes alocados por operação
+     * mostram o custo de memória de cada forma de guardar o estado
+     */
+    Object montarPartida();
+}
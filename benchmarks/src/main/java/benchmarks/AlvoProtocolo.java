@@ -0,0 +1,47 @@
+package benchmarks;
+
+/**
+ * Codificação e análise das mensagens do protocolo
+ */
+public interface AlvoProtocolo {
+    
+    /**
+     * Pergunta.formatarParaEnvio
+     */
+    String formatarPergunta();
+    
+    /**
+     * Protocolo.criarMensagemPergunta
+     */
+    String criarMensagemPergunta();
+    
+    /**
+     * Pergunta.getQuadro (mensagem PERGUNTA já codificada)
+     */
+    Object quadroPergunta();
+    
+    /**
+     * Protocolo.criarMensagemResultado
+     */
+    String criarMensagemResultado();
+    
+    /**
+     * Protocolo.criarMensagemPlacar
+     */
+    String criarMensagemPlacar();
+    
+    /**
+     * Protocolo.parsearMensagem de uma PERGUNTA (lado do cliente)
+     */
+    String[] parsearPergunta();
+    
+    /**
+     * ProtocoloBinario.codificar de uma PERGUNTA (a partir do texto)
+     */
+    byte[] codificarPerguntaBinaria();
+    
+    /**
+     * ProtocoloBinario.codificarResultado (direto dos valores)
+     */
+    byte[] codificarResultadoBinario();
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+/**
+ * Prazos de resposta pendentes, agendados e cancelados
+ */
+public interface AlvoTemporizadores {
+    
+    /**
+     * Agenda a quantidade informada de prazos longos (que não vencem
+     * durante a medição) na roda de temporizadores ou, se roda for false,
+     * em um ScheduledThreadPoolExecutor
+     */
+    void preparar(int pendentes, boolean roda);
+    
+    /**
+     * Cancela o prazo mais antigo e agenda um novo no lugar, como a troca
+     * de pergunta de um jogador; a quantidade pendente não muda
+     */
+    void renovar();
+    
+    /**
+     * Para o agendador
+     */
+    void encerrar();
+}
@@ -0,0 +1,42 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compara o parser em texto anterior (Protocolo.parsearMensagem) com o
+ * AnalisadorComandos
+ * Rode com -prof gc para ver a alocação por operação
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnaliseComandosBenchmark {
+    
+    @Param({"RESPOSTA|2", "PARAR", "CHAT|Boa sorte a todos!"})
+    private String comando;
+    
+    private byte[] linha;
+    private AlvoAnaliseComandos alvo;
+    
+    @Setup
+    public void preparar() {
+        linha = comando.getBytes(StandardCharsets.UTF_8);
+        alvo = Cenarios.criar("CenarioAnaliseComandos", AlvoAnaliseComandos.class);
+    }
+    
+    @Benchmark
+    public int comSplit() {
+        return alvo.analisarComSplit(linha);
+    }
+    
+    @Benchmark
+    public int semAlocacao() {
+        return alvo.analisarSemAlocacao(linha);
+    }
+}
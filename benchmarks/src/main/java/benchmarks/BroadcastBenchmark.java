@@ -0,0 +1,34 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Custo de um broadcast (codificação, filas de saída e drenagem) sem
+ * sockets: cada conexão é um destino em memória que esvazia a fila na hora
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+    
+    @Param({"10", "1000"})
+    private int clientes;
+    
+    private AlvoBroadcast alvo;
+    
+    @Setup
+    public void preparar() {
+        alvo = Cenarios.criar("CenarioBroadcast", AlvoBroadcast.class);
+        alvo.preparar(clientes);
+    }
+    
+    @Benchmark
+    public long broadcast() {
+        return alvo.broadcast();
+    }
+}
@@ -0,0 +1,22 @@
+package benchmarks;
+
+/**
+ * Carrega os cenários dos benchmarks
+ * O código do jogo fica no pacote padrão, que não pode ser importado de um
+ * pacote nomeado, e o JMH não aceita benchmarks no pacote padrão. Por isso
+ * cada benchmark descreve o que mede em uma interface deste pacote, e um
+ * cenário no pacote padrão a implementa chamando o código do jogo
+ */
+final class Cenarios {
+    
+    private Cenarios() {
+    }
+    
+    static <T> T criar(String classe, Class<T> tipo) {
+        try {
+            return tipo.cast(Class.forName(classe).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cenário não encontrado: " + classe, e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Custo do diário de eventos em EstadoJogo.processarResposta: cada
+ * resposta espera o seu registro chegar ao disco, e as threads
+ * concorrentes dividem o mesmo force (group commit)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class DiarioBenchmark {
+    
+    @Param({"false", "true"})
+    private boolean diario;
+    
+    private AlvoDiario alvo;
+    
+    @Setup
+    public void preparar() {
+        alvo = Cenarios.criar("CenarioDiario", AlvoDiario.class);
+        alvo.preparar(1000, diario);
+    }
+    
+    @TearDown
+    public void encerrar() {
+        alvo.encerrar();
+    }
+    
+    @Benchmark
+    public boolean processarResposta() {
+        return alvo.processarResposta();
+    }
+}
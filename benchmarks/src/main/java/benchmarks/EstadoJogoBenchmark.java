@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * EstadoJogo.processarResposta e obterEstatisticas conforme o número de
+ * jogadores da partida, e a memória de uma partida montada (montarPartida,
+ * medida com -prof gc)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EstadoJogoBenchmark {
+    
+    @Param({"10", "1000", "100000"})
+    private int jogadores;
+    
+    @Param({"OBJETOS", "TABELA"})
+    private String estado;
+    
+    private AlvoEstadoJogo alvo;
+    
+    @Setup
+    public void preparar() {
+        alvo = Cenarios.criar("CenarioEstadoJogo", AlvoEstadoJogo.class);
+        alvo.preparar(jogadores, estado);
+    }
+    
+    @Benchmark
+    public boolean processarResposta() {
+        return alvo.processarResposta();
+    }
+    
+    @Benchmark
+    public String obterEstatisticas() {
+        return alvo.obterEstatisticas();
+    }
+    
+    @Benchmark
+    public Object montarPartida() {
+        return alvo.montarPartida();
+    }
+}
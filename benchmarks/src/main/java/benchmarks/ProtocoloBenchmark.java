@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Codificação das mensagens do servidor e análise no cliente
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocoloBenchmark {
+    
+    private AlvoProtocolo alvo;
+    
+    @Setup
+    public void preparar() {
+        alvo = Cenarios.criar("CenarioProtocolo", AlvoProtocolo.class);
+    }
+    
+    @Benchmark
+    public String formatarPergunta() {
+        return alvo.formatarPergunta();
+    }
+    
+    @Benchmark
+    public String criarMensagemPergunta() {
+        return alvo.criarMensagemPergunta();
+    }
+    
+    @Benchmark
+    public Object quadroPergunta() {
+        return alvo.quadroPergunta();
+    }
+    
+    @Benchmark
+    public String criarMensagemResultado() {
+        return alvo.criarMensagemResultado();
+    }
+    
+    @Benchmark
+    public String criarMensagemPlacar() {
+        return alvo.criarMensagemPlacar();
+    }
+    
+    @Benchmark
+    public String[] parsearPergunta() {
+        return alvo.parsearPergunta();
+    }
+    
+    @Benchmark
+    public byte[] codificarPerguntaBinaria() {
+        return alvo.codificarPerguntaBinaria();
+    }
+    
+    @Benchmark
+    public byte[] codificarResultadoBinario() {
+        return alvo.codificarResultadoBinario();
+    }
+}
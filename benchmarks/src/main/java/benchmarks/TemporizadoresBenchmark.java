@@ -0,0 +1,43 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Custo de agendar e cancelar um prazo de resposta com muitos prazos
+ * pendentes: na roda de temporizadores as duas operações são O(1); no
+ * ScheduledThreadPoolExecutor cada uma mexe em um heap de O(log n)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemporizadoresBenchmark {
+    
+    @Param({"1000", "1000000"})
+    private int pendentes;
+    
+    @Param({"false", "true"})
+    private boolean roda;
+    
+    private AlvoTemporizadores alvo;
+    
+    @Setup
+    public void preparar() {
+        alvo = Cenarios.criar("CenarioTemporizadores", AlvoTemporizadores.class);
+        alvo.preparar(pendentes, roda);
+    }
+    
+    @TearDown
+    public void encerrar() {
+        alvo.encerrar();
+    }
+    
+    @Benchmark
+    public void renovar() {
+        alvo.renovar();
+    }
+}
@@ -0,0 +1,15 @@
+#!/bin/bash
+
+# Script para compilar e executar os benchmarks JMH
+# Sempre mede vazão e alocação (-prof gc); os resultados também são gravados
+# em benchmarks/target/resultados.json
+# Argumentos extras vão para o JMH, por exemplo:
+#   ./executar_benchmarks.sh EstadoJogo -p jogadores=1000
+
+echo "Compilando benchmarks do Jogo do Milhão - TI..."
+mvn -B -q package || exit 1
+
+java -jar benchmarks/target/benchmarks.jar \
+    -prof gc \
+    -rf json -rff benchmarks/target/resultados.json \
+    "$@"
@@ -0,0 +1,8 @@
+#!/bin/bash
+
+# Script para executar o gerador de carga contra um servidor já iniciado
+# Exemplo: ./executar_carga.sh --jogadores=2000 --duracao=300 --chatPorMinuto=2
+
+echo "Iniciando gerador de carga do Jogo do Milhão - TI..."
+cd src
+java GeradorCarga "$@"
@@ -4,5 +4,5 @@
 
 echo "Iniciando cliente do Jogo do Milhão - TI..."
 cd src
-java Cliente
+java Cliente "$@"
 
@@ -4,5 +4,5 @@
 
 echo "Iniciando servidor do Jogo do Milhão - TI..."
 cd src
-java Servidor
+java Servidor "$@"
 
@@ -0,0 +1,144 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Analisador dos comandos em texto enviados pelo cliente
+ * Trabalha direto sobre os bytes da linha recebida: o nome do comando é
+ * comparado byte a byte, sem criar String nem dividir a linha, e o número
+ * do RESPOSTA é decodificado no próprio buffer. Apenas os campos de texto
+ * livre (nome do CONECTAR, token do RETOMAR e texto do CHAT) viram String
+ */
+public final class AnalisadorComandos {
+    
+    private static final byte SEPARADOR = '|';
+    
+    private static final byte[] CONECTAR = bytes(Protocolo.CONECTAR);
+    private static final byte[] RESPOSTA = bytes(Protocolo.RESPOSTA);
+    private static final byte[] PARAR = bytes(Protocolo.PARAR);
+    private static final byte[] CHAT = bytes(Protocolo.CHAT);
+    private static final byte[] SINCRONIZAR = bytes(Protocolo.SINCRONIZAR);
+    private static final byte[] RETOMAR = bytes(Protocolo.RETOMAR);
+    private static final byte[] PING = bytes(Protocolo.PING);
+    private static final byte[] PONG = bytes(Protocolo.PONG);
+    private static final byte[] BINARIO = bytes(Protocolo.BINARIO);
+    
+    private AnalisadorComandos() {
+    }
+    
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Analisa a linha dados[inicio, fim) (sem a quebra de linha) e chama o
+     * método correspondente do tratador
+     */
+    public static void analisar(byte[] dados, int inicio, int fim, TratadorComandos tratador) {
+        int fimComando = procurarSeparador(dados, inicio, fim);
+        int campo = fimComando + 1;
+        boolean temCampo = fimComando < fim;
+        
+        // Verificados na ordem de frequência durante uma partida
+        if (igual(dados, inicio, fimComando, RESPOSTA)) {
+            if (temCampo) {
+                analisarResposta(dados, campo, procurarSeparador(dados, campo, fim), tratador);
+            }
+        } else if (igual(dados, inicio, fimComando, CHAT)) {
+            if (temCampo) {
+                // O texto vai até o fim da linha, mesmo contendo '|'
+                tratador.aoConversar(textoLivre(dados, campo, fim));
+            }
+        } else if (igual(dados, inicio, fimComando, PARAR)) {
+            tratador.aoParar();
+        } else if (igual(dados, inicio, fimComando, PONG)) {
+            tratador.aoPong();
+        } else if (igual(dados, inicio, fimComando, SINCRONIZAR)) {
+            tratador.aoSincronizar();
+        } else if (igual(dados, inicio, fimComando, CONECTAR)) {
+            if (temCampo) {
+                int fimNome = procurarSeparador(dados, campo, fim);
+                tratador.aoConectar(textoLivre(dados, campo, fimNome), pedeBinario(dados, fimNome, fim));
+            }
+        } else if (igual(dados, inicio, fimComando, RETOMAR)) {
+            if (temCampo) {
+                int fimToken = procurarSeparador(dados, campo, fim);
+                tratador.aoRetomar(texto(dados, campo, fimToken), pedeBinario(dados, fimToken, fim));
+            }
+        } else if (igual(dados, inicio, fimComando, PING)) {
+            tratador.aoPing();
+        } else {
+            tratador.aoComandoDesconhecido(texto(dados, inicio, fimComando));
+        }
+    }
+    
+    /**
+     * Indica se o campo que começa depois de dados[separador] é BINARIO
+     */
+    private static boolean pedeBinario(byte[] dados, int separador, int fim) {
+        return separador < fim
+            && igual(dados, separador + 1, procurarSeparador(dados, separador + 1, fim), BINARIO);
+    }
+    
+    /**
+     * Decodifica o inteiro de dados[inicio, fim) sem criar String
+     */
+    private static void analisarResposta(byte[] dados, int inicio, int fim, TratadorComandos tratador) {
+        boolean negativo = inicio < fim && dados[inicio] == '-';
+        int i = negativo ? inicio + 1 : inicio;
+        if (i == fim) {
+            tratador.aoResponderInvalido();
+            return;
+        }
+        
+        // Acumula em negativo, como Integer.parseInt, para aceitar Integer.MIN_VALUE
+        int limite = negativo ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int valor = 0;
+        for (; i < fim; i++) {
+            int digito = dados[i] - '0';
+            if (digito < 0 || digito > 9 || valor < limite / 10) {
+                tratador.aoResponderInvalido();
+                return;
+            }
+            valor *= 10;
+            if (valor < limite + digito) {
+                tratador.aoResponderInvalido();
+                return;
+            }
+            valor -= digito;
+        }
+        
+        tratador.aoResponder(negativo ? valor : -valor);
+    }
+    
+    private static int procurarSeparador(byte[] dados, int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if (dados[i] == SEPARADOR) {
+                return i;
+            }
+        }
+        return fim;
+    }
+    
+    private static boolean igual(byte[] dados, int inicio, int fim, byte[] esperado) {
+        if (fim - inicio != esperado.length) {
+            return false;
+        }
+        for (int i = 0; i < esperado.length; i++) {
+            if (dados[inicio + i] != esperado[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static String texto(byte[] dados, int inicio, int fim) {
+        return new String(dados, inicio, fim - inicio, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Texto livre (nome, chat) sem quebras de linha: um '\r' solto no meio
+     * da linha também encerra a mensagem em quem a lê por linhas
+     */
+    private static String textoLivre(byte[] dados, int inicio, int fim) {
+        return Protocolo.removerQuebrasLinha(texto(dados, inicio, fim));
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Arquivos do log: grava em servidor.log e, quando ele passaria do
+ * tamanho máximo, o renomeia para servidor.log.1 (os anteriores descem
+ * para .2, .3, ...) e começa outro; só os mais recentes são mantidos
+ *
+ * Cada write é uma linha inteira do Log, então a troca de arquivo nunca
+ * divide uma linha. Usado apenas pela thread do log
+ */
+public class ArquivoLogRotativo extends OutputStream {
+    private static final String NOME = "servidor.log";
+    private static final int ANTERIORES = 5;
+    
+    private final Path diretorio;
+    private final long tamanhoMaximo;
+    private OutputStream atual;
+    private long tamanho;
+    
+    public ArquivoLogRotativo(Path diretorio, long tamanhoMaximo) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoMaximo = tamanhoMaximo;
+        Files.createDirectories(diretorio);
+        
+        // Continua o arquivo de uma execução anterior
+        Path arquivo = diretorio.resolve(NOME);
+        this.tamanho = Files.exists(arquivo) ? Files.size(arquivo) : 0;
+        this.atual = abrir(StandardOpenOption.APPEND);
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+    
+    @Override
+    public void write(byte[] dados, int inicio, int quantidade) throws IOException {
+        if (tamanho > 0 && tamanho + quantidade > tamanhoMaximo) {
+            rodar();
+        }
+        atual.write(dados, inicio, quantidade);
+        tamanho += quantidade;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        atual.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        atual.close();
+    }
+    
+    /**
+     * Fecha o arquivo atual, desloca os anteriores (o mais antigo é
+     * descartado) e abre um arquivo vazio
+     */
+    private void rodar() throws IOException {
+        atual.close();
+        Files.deleteIfExists(anterior(ANTERIORES));
+        for (int i = ANTERIORES - 1; i >= 1; i--) {
+            if (Files.exists(anterior(i))) {
+                Files.move(anterior(i), anterior(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(diretorio.resolve(NOME), anterior(1), StandardCopyOption.REPLACE_EXISTING);
+        
+        atual = abrir(StandardOpenOption.TRUNCATE_EXISTING);
+        tamanho = 0;
+    }
+    
+    private Path anterior(int numero) {
+        return diretorio.resolve(NOME + "." + numero);
+    }
+    
+    private OutputStream abrir(StandardOpenOption modo) throws IOException {
+        return new BufferedOutputStream(Files.newOutputStream(diretorio.resolve(NOME),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, modo), 1 << 16);
+    }
+}
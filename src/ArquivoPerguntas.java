@@ -0,0 +1,348 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Banco de perguntas em arquivo binário, lido por mapeamento em memória
+ * (FileChannel.map). Ao abrir, só a estrutura do arquivo é conferida
+ * (índices, alternativa correta, número de alternativas e tamanho dos
+ * textos), sem criar nenhuma String; cada pergunta é decodificada quando
+ * sorteada, então bancos com milhões de perguntas não ocupam o heap. As
+ * perguntas decodificadas ficam em um cache pequeno e de tamanho fixo
+ *
+ * Formato (big-endian):
+ * - int mágico "JDMP", int versão, int número de níveis (15)
+ * - por nível: double prêmio, int quantidade, int posição do índice
+ * - por nível: índice com a posição (int) de cada pergunta
+ * - perguntas: byte alternativa correta, byte número de alternativas
+ *   (sempre Pergunta.ALTERNATIVAS), enunciado e alternativas como texto
+ *   UTF-8 precedido do tamanho (unsigned short)
+ *
+ * O arquivo mapeado não pode ser alterado no lugar: um banco novo deve ser
+ * gravado em outro arquivo e renomeado por cima (como faz gravar)
+ */
+public final class ArquivoPerguntas implements FontePerguntas {
+    
+    public static final int MAGICO = 0x4A444D50; // "JDMP"
+    public static final int VERSAO = 1;
+    
+    private static final int NIVEIS = 15;
+    private static final int TAMANHO_CABECALHO = 12;
+    private static final int TAMANHO_NIVEL = 16;
+    private static final int TAMANHO_CACHE = 4096; // potência de 2
+    
+    /**
+     * Pergunta decodificada, com a posição de onde veio
+     */
+    private static final class EntradaCache {
+        private final int posicao;
+        private final Pergunta pergunta;
+        
+        private EntradaCache(int posicao, Pergunta pergunta) {
+            this.posicao = posicao;
+            this.pergunta = pergunta;
+        }
+    }
+    
+    private final Path caminho;
+    private final MappedByteBuffer dados;
+    private final double[] premios;
+    private final int[] quantidades;
+    private final int[] indices;
+    private final AtomicReferenceArray<EntradaCache> cache;
+    
+    private ArquivoPerguntas(Path caminho, MappedByteBuffer dados) throws IOException {
+        this.caminho = caminho;
+        this.dados = dados;
+        this.premios = new double[NIVEIS];
+        this.quantidades = new int[NIVEIS];
+        this.indices = new int[NIVEIS];
+        this.cache = new AtomicReferenceArray<>(TAMANHO_CACHE);
+        lerCabecalho();
+        validarPerguntas();
+    }
+    
+    /**
+     * Mapeia o arquivo e valida o cabeçalho e os índices
+     */
+    public static ArquivoPerguntas abrir(Path caminho) throws IOException {
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            if (tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo de perguntas maior que 2 GB: " + caminho);
+            }
+            // O mapeamento continua válido depois que o canal é fechado
+            return new ArquivoPerguntas(caminho, canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho));
+        }
+    }
+    
+    private void lerCabecalho() throws IOException {
+        int tamanho = dados.limit();
+        if (tamanho < TAMANHO_CABECALHO + NIVEIS * TAMANHO_NIVEL
+                || dados.getInt(0) != MAGICO) {
+            throw new IOException("Arquivo de perguntas inválido: " + caminho);
+        }
+        if (dados.getInt(4) != VERSAO || dados.getInt(8) != NIVEIS) {
+            throw new IOException("Versão de arquivo de perguntas não suportada: " + caminho);
+        }
+        
+        for (int i = 0; i < NIVEIS; i++) {
+            int posicao = TAMANHO_CABECALHO + i * TAMANHO_NIVEL;
+            premios[i] = dados.getDouble(posicao);
+            quantidades[i] = dados.getInt(posicao + 8);
+            indices[i] = dados.getInt(posicao + 12);
+            if (quantidades[i] < 0 || indices[i] < 0
+                    || (long) indices[i] + 4L * quantidades[i] > tamanho) {
+                throw new IOException("Índice do nível " + (i + 1) + " inválido em " + caminho);
+            }
+        }
+    }
+    
+    /**
+     * Confere a estrutura de todas as perguntas: um arquivo com alguma
+     * pergunta inválida é recusado inteiro (na recarga, o banco atual
+     * continua em uso)
+     */
+    private void validarPerguntas() throws IOException {
+        int tamanho = dados.limit();
+        for (int i = 0; i < NIVEIS; i++) {
+            for (int j = 0; j < quantidades[i]; j++) {
+                int posicao = dados.getInt(indices[i] + j * 4);
+                if (posicao < 0 || posicao > tamanho - 2
+                        || dados.get(posicao) < 0 || dados.get(posicao) >= Pergunta.ALTERNATIVAS
+                        || dados.get(posicao + 1) != Pergunta.ALTERNATIVAS) {
+                    throw new IOException("Pergunta " + (j + 1) + " do nível " + (i + 1) + " inválida em " + caminho);
+                }
+                
+                // Enunciado e alternativas
+                long fim = posicao + 2;
+                for (int k = 0; k <= Pergunta.ALTERNATIVAS; k++) {
+                    if (fim + 2 > tamanho) {
+                        fim = Long.MAX_VALUE;
+                        break;
+                    }
+                    fim += 2 + (dados.getShort((int) fim) & 0xFFFF);
+                }
+                if (fim > tamanho) {
+                    throw new IOException("Pergunta " + (j + 1) + " do nível " + (i + 1) + " truncada em " + caminho);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public int getQuantidade(int nivel) {
+        return quantidades[nivel - 1];
+    }
+    
+    @Override
+    public Pergunta obter(int nivel, int indice) {
+        int posicao = dados.getInt(indices[nivel - 1] + indice * 4);
+        int slot = (posicao * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(TAMANHO_CACHE));
+        
+        EntradaCache entrada = cache.get(slot);
+        if (entrada == null || entrada.posicao != posicao) {
+            entrada = new EntradaCache(posicao, decodificar(posicao, nivel));
+            cache.set(slot, entrada);
+        }
+        return entrada.pergunta;
+    }
+    
+    private Pergunta decodificar(int posicao, int nivel) {
+        try {
+            ByteBuffer leitura = dados.duplicate();
+            leitura.position(posicao);
+            int respostaCorreta = leitura.get();
+            String[] alternativas = new String[leitura.get() & 0xFF];
+            if (respostaCorreta < 0 || respostaCorreta >= Pergunta.ALTERNATIVAS
+                    || alternativas.length != Pergunta.ALTERNATIVAS) {
+                throw new IllegalArgumentException();
+            }
+            String enunciado = lerTexto(leitura);
+            for (int i = 0; i < alternativas.length; i++) {
+                alternativas[i] = lerTexto(leitura);
+            }
+            return new Pergunta(enunciado, alternativas, respostaCorreta, nivel, premios[nivel - 1]);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IllegalStateException("Pergunta corrompida na posição " + posicao + " de " + caminho);
+        }
+    }
+    
+    private static String lerTexto(ByteBuffer leitura) {
+        byte[] texto = new byte[leitura.getShort() & 0xFFFF];
+        leitura.get(texto);
+        return new String(texto, StandardCharsets.UTF_8);
+    }
+    
+    public Path getCaminho() {
+        return caminho;
+    }
+    
+    /**
+     * Grava as perguntas (uma lista por nível, do 1 ao 15) no formato do
+     * arquivo. Grava em um arquivo temporário e o renomeia por cima do
+     * destino, para que um servidor lendo o banco antigo nunca veja um
+     * arquivo pela metade
+     */
+    public static void gravar(Path destino, List<List<Pergunta>> perguntasPorNivel) throws IOException {
+        if (perguntasPorNivel.size() != NIVEIS) {
+            throw new IllegalArgumentException("São necessários " + NIVEIS + " níveis");
+        }
+        
+        // Perguntas serializadas primeiro, para conhecer as posições
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        DataOutputStream saidaCorpo = new DataOutputStream(corpo);
+        List<int[]> posicoes = new ArrayList<>();
+        int totalPerguntas = 0;
+        for (List<Pergunta> perguntas : perguntasPorNivel) {
+            int[] posicoesNivel = new int[perguntas.size()];
+            for (int i = 0; i < perguntas.size(); i++) {
+                posicoesNivel[i] = saidaCorpo.size();
+                escreverPergunta(perguntas.get(i), saidaCorpo);
+            }
+            posicoes.add(posicoesNivel);
+            totalPerguntas += perguntas.size();
+        }
+        
+        long inicioCorpo = TAMANHO_CABECALHO + (long) NIVEIS * TAMANHO_NIVEL + 4L * totalPerguntas;
+        if (inicioCorpo + corpo.size() > Integer.MAX_VALUE) {
+            throw new IOException("Banco de perguntas maior que 2 GB");
+        }
+        
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+            saida.writeInt(MAGICO);
+            saida.writeInt(VERSAO);
+            saida.writeInt(NIVEIS);
+            
+            int indice = TAMANHO_CABECALHO + NIVEIS * TAMANHO_NIVEL;
+            for (int nivel = 1; nivel <= NIVEIS; nivel++) {
+                List<Pergunta> perguntas = perguntasPorNivel.get(nivel - 1);
+                saida.writeDouble(perguntas.isEmpty()
+                    ? BancoPerguntas.getPremioGarantido(nivel) : perguntas.get(0).getPremio());
+                saida.writeInt(perguntas.size());
+                saida.writeInt(indice);
+                indice += 4 * perguntas.size();
+            }
+            
+            for (int[] posicoesNivel : posicoes) {
+                for (int posicao : posicoesNivel) {
+                    saida.writeInt((int) inicioCorpo + posicao);
+                }
+            }
+            corpo.writeTo(saida);
+        }
+        
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static void escreverPergunta(Pergunta pergunta, DataOutputStream saida) throws IOException {
+        if (pergunta.getAlternativas().length != Pergunta.ALTERNATIVAS
+                || pergunta.getRespostaCorreta() < 0 || pergunta.getRespostaCorreta() >= Pergunta.ALTERNATIVAS) {
+            throw new IllegalArgumentException("Pergunta sem " + Pergunta.ALTERNATIVAS
+                + " alternativas ou com resposta inválida: " + pergunta.getEnunciado());
+        }
+        saida.writeByte(pergunta.getRespostaCorreta());
+        saida.writeByte(pergunta.getAlternativas().length);
+        escreverTexto(pergunta.getEnunciado(), saida);
+        for (String alternativa : pergunta.getAlternativas()) {
+            escreverTexto(alternativa, saida);
+        }
+    }
+    
+    private static void escreverTexto(String texto, DataOutputStream saida) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Texto longo demais para o banco: " + texto.substring(0, 40));
+        }
+        saida.writeShort(bytes.length);
+        saida.write(bytes);
+    }
+    
+    /**
+     * Lê perguntas de um arquivo de texto, uma por linha, com os campos
+     * separados por tabulação: nível, enunciado, as 4 alternativas e o
+     * índice da alternativa correta (0 a 3). Linhas vazias ou iniciadas
+     * por # são ignoradas
+     */
+    public static List<List<Pergunta>> lerArquivoTexto(Path origem) throws IOException {
+        List<List<Pergunta>> perguntasPorNivel = new ArrayList<>();
+        for (int i = 0; i < NIVEIS; i++) {
+            perguntasPorNivel.add(new ArrayList<>());
+        }
+        
+        try (BufferedReader leitor = Files.newBufferedReader(origem, StandardCharsets.UTF_8)) {
+            String linha;
+            int numeroLinha = 0;
+            while ((linha = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (linha.isBlank() || linha.startsWith("#")) continue;
+                
+                String[] campos = linha.split("\t");
+                try {
+                    int nivel = Integer.parseInt(campos[0].trim());
+                    int correta = Integer.parseInt(campos[campos.length - 1].trim());
+                    String[] alternativas = new String[campos.length - 3];
+                    System.arraycopy(campos, 2, alternativas, 0, alternativas.length);
+                    if (nivel < 1 || nivel > NIVEIS || alternativas.length != Pergunta.ALTERNATIVAS
+                            || correta < 0 || correta >= alternativas.length) {
+                        throw new IllegalArgumentException();
+                    }
+                    perguntasPorNivel.get(nivel - 1).add(new Pergunta(campos[1], alternativas, correta, nivel,
+                        BancoPerguntas.getPremioGarantido(nivel)));
+                } catch (RuntimeException e) {
+                    throw new IOException("Linha " + numeroLinha + " inválida em " + origem);
+                }
+            }
+        }
+        return perguntasPorNivel;
+    }
+    
+    /**
+     * Gera um arquivo de perguntas
+     * Uso: java ArquivoPerguntas destino.bin [perguntas.tsv]
+     * Sem o arquivo de texto, exporta as perguntas embutidas
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Uso: java ArquivoPerguntas destino.bin [perguntas.tsv]");
+            return;
+        }
+        
+        try {
+            List<List<Pergunta>> perguntasPorNivel;
+            if (args.length == 2) {
+                perguntasPorNivel = lerArquivoTexto(Paths.get(args[1]));
+            } else {
+                BancoPerguntas banco = new BancoPerguntas();
+                perguntasPorNivel = new ArrayList<>();
+                for (int nivel = 1; nivel <= NIVEIS; nivel++) {
+                    perguntasPorNivel.add(banco.getPerguntas(nivel));
+                }
+            }
+            
+            Path destino = Paths.get(args[0]);
+            gravar(destino, perguntasPorNivel);
+            
+            int total = perguntasPorNivel.stream().mapToInt(List::size).sum();
+            System.out.println(total + " perguntas gravadas em " + destino);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Erro ao gerar banco de perguntas: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Balde de fichas: cada ação gasta uma ficha, e as fichas voltam a uma
+ * taxa constante até a capacidade do balde
+ * Permite rajadas de até 'capacidade' ações e, no longo prazo, no máximo
+ * 'porSegundo' ações por segundo
+ *
+ * Não é seguro para várias threads: cada conexão tem o seu, usado só por
+ * quem lê os comandos dela
+ */
+public class BaldeFichas {
+    private final double capacidade;
+    private final double porNano;
+    private double fichas;
+    private long ultimaReposicao;
+    
+    public BaldeFichas(int capacidade, int porSegundo) {
+        this.capacidade = capacidade;
+        this.porNano = porSegundo / 1e9;
+        this.fichas = capacidade;
+        this.ultimaReposicao = System.nanoTime();
+    }
+    
+    /**
+     * Gasta uma ficha; retorna false se o balde está vazio
+     */
+    public boolean consumir() {
+        long agora = System.nanoTime();
+        fichas = Math.min(capacidade, fichas + (agora - ultimaReposicao) * porNano);
+        ultimaReposicao = agora;
+        
+        if (fichas < 1) {
+            return false;
+        }
+        fichas--;
+        return true;
+    }
+}
@@ -1,8 +1,14 @@
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Banco de perguntas sobre TI para o jogo do milhão
  * Contém perguntas de diferentes níveis de dificuldade
+ *
+ * As perguntas vêm de uma FontePerguntas compartilhada por todas as salas:
+ * por padrão as embutidas abaixo, ou um arquivo (ArquivoPerguntas) que pode
+ * ser trocado com o servidor no ar
  */
 public class BancoPerguntas {
     private static final double[] PREMIOS = {
@@ -11,19 +17,46 @@ public class BancoPerguntas {
         2000000, 3000000, 5000000, 10000000, 1000000
     };
     
-    private List<List<Pergunta>> perguntasPorNivel;
-    private Random random;
+    // Criadas uma única vez: todas as salas compartilham as mesmas perguntas
+    // (e, com elas, os quadros PERGUNTA já codificados)
+    private static final List<List<Pergunta>> EMBUTIDAS = inicializarPerguntas();
+    
+    // A fonte em uso com o seu baralho; trocar a fonte troca os dois juntos
+    private static volatile BaralhoPerguntas baralho = new BaralhoPerguntas(new PerguntasEmbutidas());
     
     public BancoPerguntas() {
-        this.perguntasPorNivel = new ArrayList<>();
-        this.random = new Random();
-        inicializarPerguntas();
+    }
+    
+    /**
+     * Perguntas embutidas no código, como fonte
+     */
+    private static class PerguntasEmbutidas implements FontePerguntas {
+        @Override
+        public int getQuantidade(int nivel) {
+            return EMBUTIDAS.get(nivel - 1).size();
+        }
+        
+        @Override
+        public Pergunta obter(int nivel, int indice) {
+            return EMBUTIDAS.get(nivel - 1).get(indice);
+        }
+    }
+    
+    /**
+     * Passa a sortear as perguntas da fonte informada, em todas as salas
+     * As perguntas já enviadas continuam válidas; a troca vale a partir da
+     * próxima pergunta
+     */
+    public static void usarFonte(FontePerguntas novaFonte) {
+        baralho = new BaralhoPerguntas(novaFonte);
     }
     
     /**
      * Inicializa todas as perguntas organizadas por nível
      */
-    private void inicializarPerguntas() {
+    private static List<List<Pergunta>> inicializarPerguntas() {
+        List<List<Pergunta>> perguntasPorNivel = new ArrayList<>();
+        
         // Nível 1 - R$ 1.000
         perguntasPorNivel.add(Arrays.asList(
             new Pergunta("O que significa a sigla 'HTML'?", 
@@ -218,19 +251,55 @@ public class BancoPerguntas {
                 new String[]{"Paradigma de programação assíncrona orientada a fluxos", "Linguagem de programação", "Banco de dados", "Protocolo de rede"}, 
                 0, 15, PREMIOS[14])
         ));
+        
+        return perguntasPorNivel;
     }
     
     /**
      * Obtém uma pergunta aleatória do nível especificado
+     * Usa o gerador da própria thread, sem disputa entre os clientes
      */
     public Pergunta obterPergunta(int nivel) {
+        return obterPergunta(nivel, ThreadLocalRandom.current());
+    }
+    
+    /**
+     * Obtém uma pergunta do nível sorteada pelo gerador informado (um
+     * gerador com semente fixa repete as mesmas perguntas)
+     */
+    public Pergunta obterPergunta(int nivel, RandomGenerator gerador) {
         if (nivel < 1 || nivel > 15) {
             return null;
         }
         
-        List<Pergunta> perguntasNivel = perguntasPorNivel.get(nivel - 1);
-        int indiceAleatorio = random.nextInt(perguntasNivel.size());
-        return perguntasNivel.get(indiceAleatorio);
+        FontePerguntas atual = baralho.getFonte();
+        int quantidade = atual.getQuantidade(nivel);
+        if (quantidade == 0) {
+            return null;
+        }
+        int indiceAleatorio = gerador.nextInt(quantidade);
+        return atual.obter(nivel, indiceAleatorio);
+    }
+    
+    /**
+     * Obtém a pergunta do nível na posição informada do baralho
+     * Posições consecutivas dão perguntas diferentes até esgotar o nível
+     */
+    public Pergunta obterPerguntaDoBaralho(int nivel, long posicao) {
+        if (nivel < 1 || nivel > 15) {
+            return null;
+        }
+        return baralho.obter(nivel, posicao);
+    }
+    
+    /**
+     * Retorna todas as perguntas embutidas de um nível
+     */
+    public List<Pergunta> getPerguntas(int nivel) {
+        if (nivel < 1 || nivel > 15) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(EMBUTIDAS.get(nivel - 1));
     }
     
     /**
@@ -0,0 +1,75 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Baralho das perguntas de uma fonte: para cada nível, uma permutação
+ * embaralhada dos índices das perguntas, criada na primeira vez que o
+ * nível é usado e depois só lida. Uma única cópia é compartilhada por
+ * todas as salas; trocar a fonte cria um baralho novo em vez de alterar
+ * este
+ *
+ * Cada sala começa em uma posição própria de cada nível e cada jogador
+ * lê a posição da sala mais o seu identificador: jogadores da mesma sala
+ * recebem perguntas diferentes enquanto o nível tiver perguntas, sem
+ * nenhum estado por jogador
+ */
+public final class BaralhoPerguntas {
+    private static final int NIVEIS = 15;
+    
+    // Embaralhamento fixo; a variedade entre salas vem da posição inicial
+    private static final long SEMENTE_EMBARALHAMENTO = 0x6A09E667F3BCC909L;
+    
+    private final FontePerguntas fonte;
+    private final AtomicReferenceArray<int[]> permutacoes;
+    
+    public BaralhoPerguntas(FontePerguntas fonte) {
+        this.fonte = fonte;
+        this.permutacoes = new AtomicReferenceArray<>(NIVEIS);
+    }
+    
+    public FontePerguntas getFonte() {
+        return fonte;
+    }
+    
+    /**
+     * Pergunta do nível (1 a 15) na posição informada do baralho
+     * Posições consecutivas dão perguntas diferentes até completar o nível
+     */
+    public Pergunta obter(int nivel, long posicao) {
+        int[] permutacao = permutacao(nivel);
+        if (permutacao.length == 0) {
+            return null;
+        }
+        return fonte.obter(nivel, permutacao[(int) Math.floorMod(posicao, (long) permutacao.length)]);
+    }
+    
+    /**
+     * Permutação do nível; se duas threads a criarem ao mesmo tempo, o
+     * embaralhamento é o mesmo e qualquer uma das cópias serve
+     */
+    private int[] permutacao(int nivel) {
+        int[] permutacao = permutacoes.get(nivel - 1);
+        if (permutacao == null) {
+            permutacao = embaralhar(fonte.getQuantidade(nivel), new SplittableRandom(SEMENTE_EMBARALHAMENTO + nivel));
+            permutacoes.set(nivel - 1, permutacao);
+        }
+        return permutacao;
+    }
+    
+    /**
+     * Fisher-Yates sobre os índices 0 até quantidade - 1
+     */
+    private static int[] embaralhar(int quantidade, SplittableRandom gerador) {
+        int[] indices = new int[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            indices[i] = i;
+        }
+        for (int i = quantidade - 1; i > 0; i--) {
+            int j = gerador.nextInt(i + 1);
+            int troca = indices[i];
+            indices[i] = indices[j];
+            indices[j] = troca;
+        }
+        return indices;
+    }
+}
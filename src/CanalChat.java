@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Canal de chat de uma sala
+ * As mensagens não vão na hora para os clientes: ficam em uma fila sem
+ * lock e, a cada intervalo, todas as acumuladas saem em um único quadro
+ * (Quadro.lote). Cada cliente recebe uma entrada na fila de saída e uma
+ * escrita por intervalo, não importa quantas mensagens chegaram, e o
+ * envio não usa o lock da sala
+ *
+ * O canal guarda no máximo MAXIMO_PENDENTES mensagens por intervalo; as
+ * que passam disso são recusadas. Sem agendador ou com intervalo 0, cada
+ * mensagem é enviada na hora
+ */
+public class CanalChat {
+    private static final int MAXIMO_PENDENTES = 256;
+    
+    private final Sala sala;
+    private final ScheduledExecutorService agendador;
+    private final long intervaloMs;
+    private final Queue<String> pendentes;
+    private final AtomicInteger quantidade;
+    private final AtomicBoolean envioAgendado;
+    
+    public CanalChat(Sala sala, ScheduledExecutorService agendador, long intervaloMs) {
+        this.sala = sala;
+        this.agendador = agendador;
+        this.intervaloMs = intervaloMs;
+        this.pendentes = new ConcurrentLinkedQueue<>();
+        this.quantidade = new AtomicInteger();
+        this.envioAgendado = new AtomicBoolean(false);
+    }
+    
+    /**
+     * Coloca a mensagem no próximo lote; retorna false se o canal está
+     * cheio e ela foi recusada
+     */
+    public boolean publicar(String remetente, String texto) {
+        if (quantidade.incrementAndGet() > MAXIMO_PENDENTES) {
+            quantidade.decrementAndGet();
+            return false;
+        }
+        pendentes.add(Protocolo.criarMensagemChat(remetente, texto));
+        
+        if (agendador == null || intervaloMs <= 0) {
+            enviar();
+        } else if (envioAgendado.compareAndSet(false, true)) {
+            try {
+                agendador.schedule(this::enviarAgendado, intervaloMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // servidor em encerramento
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Fim do intervalo (tarefa do agendador)
+     * A marca é retirada antes do envio: o que chegar durante ele agenda o
+     * próximo lote
+     */
+    private void enviarAgendado() {
+        envioAgendado.set(false);
+        enviar();
+    }
+    
+    private void enviar() {
+        List<String> lote = new ArrayList<>();
+        String mensagem;
+        while ((mensagem = pendentes.poll()) != null) {
+            quantidade.decrementAndGet();
+            lote.add(mensagem);
+        }
+        if (!lote.isEmpty()) {
+            sala.broadcast(Quadro.lote(lote));
+        }
+    }
+}
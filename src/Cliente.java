@@ -1,25 +1,47 @@
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
  * Cliente do Jogo do Milhão - TI
  * Conecta-se ao servidor e permite interação do jogador
  */
-public class Cliente {
+public class Cliente implements TratadorMensagens {
     private static final String HOST = "localhost";
     private static final int PORTA = 12345;
     
+    // Retomada da sessão depois de uma queda de conexão
+    private static final int TENTATIVAS_RETOMADA = 5;
+    private static final long INTERVALO_RETOMADA_MS = 1000;
+    
     private Socket socket;
     private BufferedReader entrada;
     private PrintWriter saida;
+    private DataInputStream entradaBinaria;
+    private OutputStream saidaBinaria;
+    private final boolean binario;
     private boolean conectado;
     private String nomeJogador;
+    private volatile String token; // sessão recebida no CONECTADO
     private InterfaceUsuario interfaceUsuario;
+    private PlacarCliente placar;
     
     public Cliente() {
+        this(false);
+    }
+    
+    /**
+     * Cria o cliente; se binario for true, usa ProtocoloBinario após o CONECTAR
+     */
+    public Cliente(boolean binario) {
+        this.binario = binario;
         this.conectado = false;
         this.interfaceUsuario = new InterfaceUsuario();
+        this.placar = new PlacarCliente();
     }
     
     /**
@@ -27,14 +49,14 @@ public class Cliente {
      */
     public boolean conectar(String nome) {
         try {
-            socket = new Socket(HOST, PORTA);
-            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            saida = new PrintWriter(socket.getOutputStream(), true);
+            abrirConexao();
             conectado = true;
             nomeJogador = nome;
             
-            // Envia comando de conexão
-            saida.println(Protocolo.criarMensagemConectar(nome));
+            // Envia comando de conexão; o CONECTAR é sempre em texto
+            saida.println(binario
+                ? Protocolo.criarMensagemConectarBinario(nome)
+                : Protocolo.criarMensagemConectar(nome));
             
             // Inicia thread para receber mensagens
             Thread threadRecebimento = new Thread(this::receberMensagens);
@@ -42,7 +64,7 @@ public class Cliente {
             threadRecebimento.start();
             
             return true;
-            
+        
         } catch (ConnectException e) {
             interfaceUsuario.mostrarErro("Não foi possível conectar ao servidor. Verifique se o servidor está rodando.");
             return false;
@@ -52,17 +74,33 @@ public class Cliente {
         }
     }
     
+    /**
+     * Abre o socket e os fluxos de entrada e saída do protocolo em uso
+     */
+    private void abrirConexao() throws IOException {
+        socket = new Socket(HOST, PORTA);
+        saida = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+        if (binario) {
+            entradaBinaria = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            saidaBinaria = new BufferedOutputStream(socket.getOutputStream());
+        } else {
+            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+    
     /**
      * Thread que recebe mensagens do servidor
+     * Se a conexão cair, tenta retomar a sessão antes de desistir
      */
     private void receberMensagens() {
-        try {
-            String mensagem;
-            while (conectado && (mensagem = entrada.readLine()) != null) {
-                processarMensagem(mensagem);
+        while (conectado) {
+            try {
+                lerMensagens();
+            } catch (IOException | IllegalArgumentException e) {
+                // Queda da conexão, tratada abaixo
             }
-        } catch (IOException e) {
-            if (conectado) {
+            
+            if (conectado && !retomarSessao()) {
                 interfaceUsuario.mostrarErro("Conexão perdida com o servidor.");
                 desconectar();
             }
@@ -70,78 +108,138 @@ public class Cliente {
     }
     
     /**
-     * Processa mensagens recebidas do servidor
+     * Lê e processa mensagens até a conexão terminar
+     */
+    private void lerMensagens() throws IOException {
+        if (binario) {
+            ByteBuffer quadro;
+            while (conectado && (quadro = ProtocoloBinario.lerQuadro(entradaBinaria, Integer.MAX_VALUE)) != null) {
+                ProtocoloBinario.despacharMensagem(quadro, this);
+            }
+        } else {
+            String mensagem;
+            while (conectado && (mensagem = entrada.readLine()) != null) {
+                Protocolo.despacharMensagem(mensagem, this);
+            }
+        }
+    }
+    
+    /**
+     * Reabre a conexão e pede RETOMAR com o token da sessão; o servidor
+     * devolve o placar e a pergunta pendente
      */
-    private void processarMensagem(String mensagem) {
-        String[] partes = Protocolo.parsearMensagem(mensagem);
+    private boolean retomarSessao() {
+        if (token == null) {
+            return false;
+        }
         
-        if (partes.length == 0) {
+        for (int tentativa = 1; tentativa <= TENTATIVAS_RETOMADA && conectado; tentativa++) {
+            try {
+                Thread.sleep(INTERVALO_RETOMADA_MS);
+                interfaceUsuario.mostrarMensagem("Conexão perdida, reconectando (tentativa " + tentativa + ")...");
+                fecharConexao();
+                abrirConexao();
+                saida.println(binario
+                    ? Protocolo.criarMensagemRetomarBinario(token)
+                    : Protocolo.criarMensagemRetomar(token));
+                return true;
+            } catch (IOException e) {
+                // Nova tentativa depois do intervalo
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public void aoConectado(String mensagem, String token) {
+        interfaceUsuario.mostrarMensagem(mensagem);
+        if (token != null) {
+            this.token = token;
+        }
+    }
+    
+    @Override
+    public void aoPing() {
+        enviar(Protocolo.criarMensagemPong());
+    }
+    
+    @Override
+    public void aoErro(String mensagem) {
+        interfaceUsuario.mostrarErro(mensagem);
+    }
+    
+    @Override
+    public void aoJogoIniciado() {
+        interfaceUsuario.mostrarMensagem("\n=== JOGO INICIADO! ===");
+        interfaceUsuario.mostrarPlacar(placar.getEntradas());
+    }
+    
+    @Override
+    public void aoPergunta(String enunciado, String[] alternativas, int nivel, double premio) {
+        interfaceUsuario.mostrarPergunta(enunciado, alternativas, nivel, premio);
+    }
+    
+    @Override
+    public void aoResultado(boolean acertou, double premio, int nivel) {
+        interfaceUsuario.mostrarResultado(acertou, premio, nivel);
+    }
+    
+    @Override
+    public void aoEstatisticas(long versao, Map<Integer, PlacarCliente.Entrada> jogadores) {
+        placar.aplicarCompleto(versao, jogadores);
+        interfaceUsuario.mostrarPlacar(placar.getEntradas());
+    }
+    
+    @Override
+    public void aoPlacar(long versao, int id, PlacarCliente.Entrada entrada) {
+        PlacarCliente.Resultado resultado = placar.aplicarAlteracao(versao, id, entrada);
+        
+        if (resultado == PlacarCliente.Resultado.APLICADA) {
+            interfaceUsuario.mostrarPlacar(placar.getEntradas());
+        } else if (resultado == PlacarCliente.Resultado.DESSINCRONIZADO) {
+            enviar(Protocolo.criarMensagemSincronizar());
+        }
+    }
+    
+    @Override
+    public void aoTempoEsgotado(String status, double premio, int nivel) {
+        interfaceUsuario.mostrarTempoEsgotado("ELIMINADO".equals(status), premio, nivel);
+    }
+    
+    @Override
+    public void aoJogoFinalizado(String vencedor, double premio) {
+        interfaceUsuario.mostrarFimJogo(vencedor, premio);
+    }
+    
+    @Override
+    public void aoMensagem(String remetente, String texto) {
+        interfaceUsuario.mostrarChat(remetente, texto);
+    }
+    
+    /**
+     * Envia uma mensagem qualquer ao servidor
+     */
+    private void enviar(String mensagem) {
+        if (!conectado || saida == null) {
             return;
         }
         
-        String comando = partes[0];
+        if (!binario) {
+            saida.println(mensagem);
+            return;
+        }
         
-        switch (comando) {
-            case Protocolo.CONECTADO:
-                if (partes.length >= 2) {
-                    interfaceUsuario.mostrarMensagem(partes[1]);
-                }
-                break;
-                
-            case Protocolo.ERRO:
-                if (partes.length >= 2) {
-                    interfaceUsuario.mostrarErro(partes[1]);
-                }
-                break;
-                
-            case Protocolo.JOGO_INICIADO:
-                interfaceUsuario.mostrarMensagem("\n=== JOGO INICIADO! ===");
-                break;
-                
-            case Protocolo.PERGUNTA:
-                if (partes.length >= 7) {
-                    String enunciado = partes[1];
-                    String[] alternativas = {
-                        partes[2], partes[3], partes[4], partes[5]
-                    };
-                    int nivel = Integer.parseInt(partes[6]);
-                    double premio = Double.parseDouble(partes[7]);
-                    
-                    interfaceUsuario.mostrarPergunta(enunciado, alternativas, nivel, premio);
-                }
-                break;
-                
-            case Protocolo.RESULTADO:
-                if (partes.length >= 4) {
-                    boolean acertou = partes[1].equals("ACERTOU");
-                    double premio = Double.parseDouble(partes[2]);
-                    int nivel = Integer.parseInt(partes[3]);
-                    
-                    interfaceUsuario.mostrarResultado(acertou, premio, nivel);
-                }
-                break;
-                
-            case Protocolo.ESTATISTICAS:
-                if (partes.length >= 2) {
-                    interfaceUsuario.mostrarEstatisticas(partes[1]);
-                }
-                break;
-                
-            case Protocolo.JOGO_FINALIZADO:
-                if (partes.length >= 3) {
-                    String vencedor = partes[1];
-                    double premio = Double.parseDouble(partes[2]);
-                    interfaceUsuario.mostrarFimJogo(vencedor, premio);
-                }
-                break;
-                
-            case Protocolo.MENSAGEM:
-                if (partes.length >= 3) {
-                    String remetente = partes[1];
-                    String texto = partes[2];
-                    interfaceUsuario.mostrarChat(remetente, texto);
-                }
-                break;
+        // Enviado pela thread principal e pela de recebimento (SINCRONIZAR, PONG)
+        synchronized (saidaBinaria) {
+            try {
+                saidaBinaria.write(ProtocoloBinario.codificar(mensagem));
+                saidaBinaria.flush();
+            } catch (IOException e) {
+                interfaceUsuario.mostrarErro("Erro ao enviar mensagem: " + e.getMessage());
+            }
         }
     }
     
@@ -149,27 +247,21 @@ public class Cliente {
      * Envia resposta do jogador
      */
     public void enviarResposta(int resposta) {
-        if (conectado && saida != null) {
-            saida.println(Protocolo.criarMensagemResposta(resposta));
-        }
+        enviar(Protocolo.criarMensagemResposta(resposta));
     }
     
     /**
      * Envia decisão de parar
      */
     public void enviarParada() {
-        if (conectado && saida != null) {
-            saida.println(Protocolo.criarMensagemParar());
-        }
+        enviar(Protocolo.criarMensagemParar());
     }
     
     /**
      * Envia mensagem de chat
      */
     public void enviarChat(String mensagem) {
-        if (conectado && saida != null) {
-            saida.println(Protocolo.criarMensagemChat(mensagem));
-        }
+        enviar(Protocolo.criarMensagemChat(mensagem));
     }
     
     /**
@@ -177,8 +269,13 @@ public class Cliente {
      */
     public void desconectar() {
         conectado = false;
+        fecharConexao();
+    }
+    
+    private void fecharConexao() {
         try {
             if (entrada != null) entrada.close();
+            if (entradaBinaria != null) entradaBinaria.close();
             if (saida != null) saida.close();
             if (socket != null && !socket.isClosed()) socket.close();
         } catch (IOException e) {
@@ -198,7 +295,9 @@ public class Cliente {
      * Método principal do cliente
      */
     public static void main(String[] args) {
-        Cliente cliente = new Cliente();
+        // --binario: usa o protocolo binário em vez do texto
+        boolean binario = Arrays.asList(args).contains("--binario");
+        Cliente cliente = new Cliente(binario);
         Scanner scanner = new Scanner(System.in);
         
         // Solicita nome do jogador
@@ -0,0 +1,256 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opções do gerador de carga, no formato --opcao=valor
+ *
+ * Opções disponíveis:
+ * - --host=HOST                 servidor (padrão: localhost)
+ * - --porta=N                   porta do servidor (padrão: 12345)
+ * - --jogadores=N               jogadores simulados simultâneos (padrão: 100)
+ * - --duracao=S                 duração do teste em segundos (padrão: 60)
+ * - --rampa=S                   tempo para abrir todas as conexões (padrão: 5)
+ * - --acerto=P                  probabilidade de acertar cada pergunta, de 0 a 1
+ *                              (padrão: 0.9)
+ * - --pensamento=DIST           tempo até responder, em milissegundos:
+ *                              fixo:MS, uniforme:MIN-MAX ou exponencial:MEDIA
+ *                              (padrão: exponencial:500)
+ * - --chatPorMinuto=N           mensagens de chat por jogador por minuto,
+ *                              em intervalos exponenciais (padrão: 0)
+ * - --binario                   usa o protocolo binário
+ * - --perguntas=ARQUIVO         banco de perguntas do servidor, gerado por
+ *                              ArquivoPerguntas, para saber a alternativa
+ *                              certa (padrão: perguntas embutidas)
+ * - --relatorio=S               intervalo entre relatórios parciais (padrão: 5)
+ */
+public class ConfiguracaoCarga {
+    
+    /**
+     * Distribuição do tempo de pensamento antes de cada resposta
+     */
+    public static class Pensamento {
+        private final String tipo;
+        private final long a;
+        private final long b;
+        
+        private Pensamento(String tipo, long a, long b) {
+            this.tipo = tipo;
+            this.a = a;
+            this.b = b;
+        }
+        
+        static Pensamento ler(String valor) {
+            String[] partes = valor.split(":", 2);
+            try {
+                switch (partes[0]) {
+                    case "fixo":
+                        return new Pensamento("fixo", Long.parseLong(partes[1]), 0);
+                    
+                    case "uniforme":
+                        String[] limites = partes[1].split("-", 2);
+                        long minimo = Long.parseLong(limites[0]);
+                        long maximo = Long.parseLong(limites[1]);
+                        if (maximo >= minimo) {
+                            return new Pensamento("uniforme", minimo, maximo);
+                        }
+                        break;
+                    
+                    case "exponencial":
+                        return new Pensamento("exponencial", Long.parseLong(partes[1]), 0);
+                    
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // tratado abaixo
+            }
+            throw new IllegalArgumentException("Distribuição de pensamento inválida: " + valor);
+        }
+        
+        /**
+         * Sorteia um tempo de pensamento em milissegundos
+         */
+        public long sortear() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (tipo) {
+                case "fixo":
+                    return a;
+                case "uniforme":
+                    return random.nextLong(a, b + 1);
+                default:
+                    return (long) (-a * Math.log(1 - random.nextDouble()));
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return "uniforme".equals(tipo) ? tipo + ":" + a + "-" + b : tipo + ":" + a;
+        }
+    }
+    
+    private String host;
+    private int porta;
+    private int jogadores;
+    private int duracaoSegundos;
+    private int rampaSegundos;
+    private double acerto;
+    private Pensamento pensamento;
+    private double chatPorMinuto;
+    private boolean binario;
+    private String arquivoPerguntas;
+    private int relatorioSegundos;
+    
+    public ConfiguracaoCarga() {
+        this.host = "localhost";
+        this.porta = 12345;
+        this.jogadores = 100;
+        this.duracaoSegundos = 60;
+        this.rampaSegundos = 5;
+        this.acerto = 0.9;
+        this.pensamento = Pensamento.ler("exponencial:500");
+        this.chatPorMinuto = 0;
+        this.binario = false;
+        this.arquivoPerguntas = null;
+        this.relatorioSegundos = 5;
+    }
+    
+    /**
+     * Cria a configuração a partir dos argumentos de linha de comando
+     */
+    public static ConfiguracaoCarga deArgumentos(String[] args) {
+        ConfiguracaoCarga config = new ConfiguracaoCarga();
+        
+        for (String arg : args) {
+            if (arg.equals("--binario")) {
+                config.binario = true;
+                continue;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg);
+            }
+            
+            String chave = arg.substring(2, arg.indexOf('='));
+            String valor = arg.substring(arg.indexOf('=') + 1);
+            
+            switch (chave) {
+                case "host":
+                    config.host = valor;
+                    break;
+                
+                case "porta":
+                    config.porta = lerInteiro(chave, valor, 1);
+                    break;
+                
+                case "jogadores":
+                    config.jogadores = lerInteiro(chave, valor, 1);
+                    break;
+                
+                case "duracao":
+                    config.duracaoSegundos = lerInteiro(chave, valor, 1);
+                    break;
+                
+                case "rampa":
+                    config.rampaSegundos = lerInteiro(chave, valor, 0);
+                    break;
+                
+                case "acerto":
+                    config.acerto = lerFracao(chave, valor, 1);
+                    break;
+                
+                case "pensamento":
+                    config.pensamento = Pensamento.ler(valor);
+                    break;
+                
+                case "chatPorMinuto":
+                    config.chatPorMinuto = lerFracao(chave, valor, Double.MAX_VALUE);
+                    break;
+                
+                case "perguntas":
+                    if (valor.isEmpty()) {
+                        throw new IllegalArgumentException("Valor inválido para --perguntas: " + valor);
+                    }
+                    config.arquivoPerguntas = valor;
+                    break;
+                
+                case "relatorio":
+                    config.relatorioSegundos = lerInteiro(chave, valor, 1);
+                    break;
+                
+                default:
+                    throw new IllegalArgumentException("Opção desconhecida: --" + chave);
+            }
+        }
+        
+        return config;
+    }
+    
+    private static int lerInteiro(String chave, String valor, int minimo) {
+        try {
+            int numero = Integer.parseInt(valor);
+            if (numero >= minimo) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // tratado abaixo
+        }
+        throw new IllegalArgumentException("Valor inválido para --" + chave + ": " + valor);
+    }
+    
+    private static double lerFracao(String chave, String valor, double maximo) {
+        try {
+            double numero = Double.parseDouble(valor);
+            if (numero >= 0 && numero <= maximo) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // tratado abaixo
+        }
+        throw new IllegalArgumentException("Valor inválido para --" + chave + ": " + valor);
+    }
+    
+    public String getHost() {
+        return host;
+    }
+    
+    public int getPorta() {
+        return porta;
+    }
+    
+    public int getJogadores() {
+        return jogadores;
+    }
+    
+    public int getDuracaoSegundos() {
+        return duracaoSegundos;
+    }
+    
+    public int getRampaSegundos() {
+        return rampaSegundos;
+    }
+    
+    public double getAcerto() {
+        return acerto;
+    }
+    
+    public Pensamento getPensamento() {
+        return pensamento;
+    }
+    
+    public double getChatPorMinuto() {
+        return chatPorMinuto;
+    }
+    
+    public boolean isBinario() {
+        return binario;
+    }
+    
+    /**
+     * Caminho do banco de perguntas em arquivo, ou null para as embutidas
+     */
+    public String getArquivoPerguntas() {
+        return arquivoPerguntas;
+    }
+    
+    public int getRelatorioSegundos() {
+        return relatorioSegundos;
+    }
+}
@@ -0,0 +1,447 @@
+/**
+ * Opções de inicialização do servidor
+ * Lidas da linha de comando no formato --opcao=valor
+ *
+ * Opções disponíveis:
+ * - --modo=threads|virtual|nio (padrão: threads)
+ * - --loops=N                  número de threads do loop de eventos no modo nio
+ *                              (padrão: número de processadores)
+ * - --jogadoresPorSala=N        jogadores necessários para iniciar a partida
+ *                              de uma sala (padrão: 2, mínimo: 2)
+ * - --filaSaida=N               mensagens pendentes por cliente antes do
+ *                              transbordo (padrão: 1024)
+ * - --transbordo=descartar|desconectar
+ *                              descartar: descarta estatísticas e chat e
+ *                              só desconecta em último caso (padrão)
+ *                              desconectar: desconecta o cliente lento
+ * - --intervaloPlacar=MS        intervalo mínimo entre publicações do placar
+ *                              de uma sala; 0 publica cada alteração na
+ *                              hora (padrão: 100)
+ * - --intervaloChat=MS          intervalo entre os lotes de chat de uma sala;
+ *                              0 envia cada mensagem na hora (padrão: 250)
+ * - --chatPorSegundo=N          mensagens de chat por segundo de cada
+ *                              jogador, em média; 0 deixa sem limite
+ *                              (padrão: 1)
+ * - --chatRajada=N              mensagens de chat seguidas que um jogador
+ *                              pode enviar antes do limite (padrão: 5)
+ * - --estadoJogadores=objetos|tabela
+ *                              objetos: estado em cada Jogador (padrão)
+ *                              tabela: estado em arrays primitivos por
+ *                              sala (TabelaJogadores), para salas enormes
+ * - --perguntas=ARQUIVO         banco de perguntas gerado por ArquivoPerguntas
+ *                              (padrão: perguntas embutidas); o arquivo é
+ *                              recarregado quando substituído
+ * - --semente=N                 sorteio determinístico das perguntas: com a
+ *                              mesma semente e a mesma ordem de entrada,
+ *                              cada jogador recebe as mesmas perguntas
+ *                              (padrão: aleatório)
+ * - --diario=DIRETORIO          grava as transições das partidas em um
+ *                              diário de eventos (DiarioEventos) e as
+ *                              reconstrói dele ao iniciar (padrão: sem diário)
+ * - --intervaloInstantaneo=S    segundos entre instantâneos do diário
+ *                              (padrão: 30)
+ * - --tempoSessao=S             segundos que um jogador em partida que perdeu
+ *                              a conexão fica na sala à espera de um RETOMAR;
+ *                              0 o remove na hora (padrão: 30)
+ * - --tempoResposta=S           segundos para responder cada pergunta;
+ *                              0 deixa sem limite (padrão: 60)
+ * - --tempoEsgotado=parar|eliminar
+ *                              o que acontece com quem não responde a tempo
+ *                              parar: para com o prêmio atual (padrão)
+ *                              eliminar: é eliminado e perde o prêmio
+ * - --intervaloPing=S           segundos sem receber nada de uma conexão
+ *                              até o servidor enviar PING; sem resposta
+ *                              em mais um intervalo, a conexão é encerrada;
+ *                              0 desativa (padrão: 15)
+ * - --metricas=PORTA            publica as métricas internas (Metricas) no
+ *                              formato do Prometheus em
+ *                              http://host:PORTA/metrics (padrão: 0, desativadas)
+ * - --log=DIRETORIO             grava o log do servidor (Log) em arquivos
+ *                              rotativos no diretório (padrão: console)
+ * - --logTamanho=MB             tamanho máximo de cada arquivo do log
+ *                              (padrão: 10)
+ * - --logTransbordo=descartar|preservarErros
+ *                              o que descartar quando o log não dá vazão
+ *                              descartar: qualquer evento
+ *                              preservarErros: primeiro os informativos,
+ *                              guardando espaço para avisos e erros (padrão)
+ */
+public class ConfiguracaoServidor {
+    
+    /**
+     * Modo de atendimento das conexões
+     */
+    public enum ModoConexao {
+        THREADS, // uma thread bloqueante por cliente
+        VIRTUAL, // uma thread virtual bloqueante por cliente (Java 21+)
+        NIO      // poucos loops de eventos com Selector
+    }
+    
+    /**
+     * Onde fica o estado (nível, prêmio, status) dos jogadores de uma sala
+     */
+    public enum EstadoJogadores {
+        OBJETOS, // campos de cada Jogador
+        TABELA   // arrays primitivos da sala (TabelaJogadores)
+    }
+    
+    /**
+     * O que acontece com o jogador cujo prazo de resposta venceu
+     */
+    public enum TempoEsgotado {
+        PARAR,   // para com o prêmio atual
+        ELIMINAR // é eliminado, como em uma resposta errada
+    }
+    
+    private ModoConexao modo;
+    private int loopsEventos;
+    private int jogadoresPorSala;
+    private int capacidadeFilaSaida;
+    private FilaSaida.PoliticaTransbordo politicaTransbordo;
+    private long intervaloPlacarMs;
+    private long intervaloChatMs;
+    private int chatPorSegundo;
+    private int chatRajada;
+    private EstadoJogadores estadoJogadores;
+    private String arquivoPerguntas;
+    private Long semente;
+    private String diretorioDiario;
+    private int intervaloInstantaneoS;
+    private int tempoSessaoS;
+    private int tempoRespostaS;
+    private TempoEsgotado tempoEsgotado;
+    private int intervaloPingS;
+    private int portaMetricas;
+    private String diretorioLog;
+    private int tamanhoLogMb;
+    private Log.PoliticaTransbordo transbordoLog;
+    
+    public ConfiguracaoServidor() {
+        this.modo = ModoConexao.THREADS;
+        this.loopsEventos = Runtime.getRuntime().availableProcessors();
+        this.jogadoresPorSala = 2;
+        this.capacidadeFilaSaida = 1024;
+        this.politicaTransbordo = FilaSaida.PoliticaTransbordo.DESCARTAR_ESTATISTICAS;
+        this.intervaloPlacarMs = 100;
+        this.intervaloChatMs = 250;
+        this.chatPorSegundo = 1;
+        this.chatRajada = 5;
+        this.estadoJogadores = EstadoJogadores.OBJETOS;
+        this.arquivoPerguntas = null;
+        this.semente = null;
+        this.diretorioDiario = null;
+        this.intervaloInstantaneoS = 30;
+        this.tempoSessaoS = 30;
+        this.tempoRespostaS = 60;
+        this.tempoEsgotado = TempoEsgotado.PARAR;
+        this.intervaloPingS = 15;
+        this.portaMetricas = 0;
+        this.diretorioLog = null;
+        this.tamanhoLogMb = 10;
+        this.transbordoLog = Log.PoliticaTransbordo.PRESERVAR_ERROS;
+    }
+    
+    /**
+     * Cria a configuração a partir dos argumentos de linha de comando
+     */
+    public static ConfiguracaoServidor deArgumentos(String[] args) {
+        ConfiguracaoServidor config = new ConfiguracaoServidor();
+        
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg);
+            }
+            
+            String chave = arg.substring(2, arg.indexOf('='));
+            String valor = arg.substring(arg.indexOf('=') + 1);
+            
+            switch (chave) {
+                case "modo":
+                    config.modo = lerModo(valor);
+                    break;
+                
+                case "loops":
+                    config.loopsEventos = lerInteiroPositivo(chave, valor);
+                    break;
+                
+                case "jogadoresPorSala":
+                    config.jogadoresPorSala = lerInteiroPositivo(chave, valor);
+                    if (config.jogadoresPorSala < 2) {
+                        throw new IllegalArgumentException("Uma sala precisa de pelo menos 2 jogadores");
+                    }
+                    break;
+                
+                case "filaSaida":
+                    config.capacidadeFilaSaida = lerInteiroPositivo(chave, valor);
+                    break;
+                
+                case "transbordo":
+                    config.politicaTransbordo = lerPoliticaTransbordo(valor);
+                    break;
+                
+                case "intervaloPlacar":
+                    config.intervaloPlacarMs = lerInteiroNaoNegativo(chave, valor);
+                    break;
+                
+                case "intervaloChat":
+                    config.intervaloChatMs = lerInteiroNaoNegativo(chave, valor);
+                    break;
+                
+                case "chatPorSegundo":
+                    config.chatPorSegundo = lerInteiroNaoNegativo(chave, valor);
+                    break;
+                
+                case "chatRajada":
+                    config.chatRajada = lerInteiroPositivo(chave, valor);
+                    break;
+                
+                case "estadoJogadores":
+                    config.estadoJogadores = lerEstadoJogadores(valor);
+                    break;
+                
+                case "perguntas":
+                    if (valor.isEmpty()) {
+                        throw new IllegalArgumentException("Valor inválido para --perguntas: " + valor);
+                    }
+                    config.arquivoPerguntas = valor;
+                    break;
+                
+                case "semente":
+                    try {
+                        config.semente = Long.parseLong(valor);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Valor inválido para --semente: " + valor);
+                    }
+                    break;
+                
+                case "diario":
+                    if (valor.isEmpty()) {
+                        throw new IllegalArgumentException("Valor inválido para --diario: " + valor);
+                    }
+                    config.diretorioDiario = valor;
+                    break;
+                
+                case "intervaloInstantaneo":
+                    config.intervaloInstantaneoS = lerInteiroPositivo(chave, valor);
+                    break;
+                
+                case "tempoSessao":
+                    config.tempoSessaoS = lerInteiroNaoNegativo(chave, valor);
+                    break;
+                
+                case "tempoResposta":
+                    config.tempoRespostaS = lerInteiroNaoNegativo(chave, valor);
+                    break;
+                
+                case "tempoEsgotado":
+                    config.tempoEsgotado = lerTempoEsgotado(valor);
+                    break;
+                
+                case "intervaloPing":
+                    config.intervaloPingS = lerInteiroNaoNegativo(chave, valor);
+                    break;
+                
+                case "metricas":
+                    config.portaMetricas = lerInteiroNaoNegativo(chave, valor);
+                    break;
+                
+                case "log":
+                    if (valor.isEmpty()) {
+                        throw new IllegalArgumentException("Valor inválido para --log: " + valor);
+                    }
+                    config.diretorioLog = valor;
+                    break;
+                
+                case "logTamanho":
+                    config.tamanhoLogMb = lerInteiroPositivo(chave, valor);
+                    break;
+                
+                case "logTransbordo":
+                    config.transbordoLog = lerTransbordoLog(valor);
+                    break;
+                
+                default:
+                    throw new IllegalArgumentException("Opção desconhecida: --" + chave);
+            }
+        }
+        
+        return config;
+    }
+    
+    private static ModoConexao lerModo(String valor) {
+        try {
+            return ModoConexao.valueOf(valor.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Modo inválido: " + valor);
+        }
+    }
+    
+    private static EstadoJogadores lerEstadoJogadores(String valor) {
+        try {
+            return EstadoJogadores.valueOf(valor.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estado de jogadores inválido: " + valor);
+        }
+    }
+    
+    private static TempoEsgotado lerTempoEsgotado(String valor) {
+        try {
+            return TempoEsgotado.valueOf(valor.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ação de tempo esgotado inválida: " + valor);
+        }
+    }
+    
+    private static FilaSaida.PoliticaTransbordo lerPoliticaTransbordo(String valor) {
+        switch (valor.toLowerCase()) {
+            case "descartar":
+                return FilaSaida.PoliticaTransbordo.DESCARTAR_ESTATISTICAS;
+            case "desconectar":
+                return FilaSaida.PoliticaTransbordo.DESCONECTAR;
+            default:
+                throw new IllegalArgumentException("Política de transbordo inválida: " + valor);
+        }
+    }
+    
+    private static Log.PoliticaTransbordo lerTransbordoLog(String valor) {
+        switch (valor.toLowerCase()) {
+            case "descartar":
+                return Log.PoliticaTransbordo.DESCARTAR;
+            case "preservarerros":
+                return Log.PoliticaTransbordo.PRESERVAR_ERROS;
+            default:
+                throw new IllegalArgumentException("Política de transbordo do log inválida: " + valor);
+        }
+    }
+    
+    private static int lerInteiroPositivo(String chave, String valor) {
+        try {
+            int numero = Integer.parseInt(valor);
+            if (numero > 0) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // tratado abaixo
+        }
+        throw new IllegalArgumentException("Valor inválido para --" + chave + ": " + valor);
+    }
+    
+    private static int lerInteiroNaoNegativo(String chave, String valor) {
+        return "0".equals(valor) ? 0 : lerInteiroPositivo(chave, valor);
+    }
+    
+    public ModoConexao getModo() {
+        return modo;
+    }
+    
+    public int getLoopsEventos() {
+        return loopsEventos;
+    }
+    
+    public int getJogadoresPorSala() {
+        return jogadoresPorSala;
+    }
+    
+    public int getCapacidadeFilaSaida() {
+        return capacidadeFilaSaida;
+    }
+    
+    public FilaSaida.PoliticaTransbordo getPoliticaTransbordo() {
+        return politicaTransbordo;
+    }
+    
+    public long getIntervaloPlacarMs() {
+        return intervaloPlacarMs;
+    }
+    
+    public long getIntervaloChatMs() {
+        return intervaloChatMs;
+    }
+    
+    /**
+     * Mensagens de chat por segundo de cada jogador, ou 0 sem limite
+     */
+    public int getChatPorSegundo() {
+        return chatPorSegundo;
+    }
+    
+    public int getChatRajada() {
+        return chatRajada;
+    }
+    
+    public EstadoJogadores getEstadoJogadores() {
+        return estadoJogadores;
+    }
+    
+    /**
+     * Caminho do banco de perguntas em arquivo, ou null para as embutidas
+     */
+    public String getArquivoPerguntas() {
+        return arquivoPerguntas;
+    }
+    
+    /**
+     * Semente do sorteio das perguntas, ou null para sorteio aleatório
+     */
+    public Long getSemente() {
+        return semente;
+    }
+    
+    /**
+     * Diretório do diário de eventos, ou null sem diário
+     */
+    public String getDiretorioDiario() {
+        return diretorioDiario;
+    }
+    
+    public int getIntervaloInstantaneoS() {
+        return intervaloInstantaneoS;
+    }
+    
+    /**
+     * Segundos que a sessão de um jogador que perdeu a conexão é mantida
+     */
+    public int getTempoSessaoS() {
+        return tempoSessaoS;
+    }
+    
+    /**
+     * Segundos para responder cada pergunta, ou 0 sem limite
+     */
+    public int getTempoRespostaS() {
+        return tempoRespostaS;
+    }
+    
+    public TempoEsgotado getTempoEsgotado() {
+        return tempoEsgotado;
+    }
+    
+    /**
+     * Segundos sem atividade até o PING a uma conexão, ou 0 sem verificação
+     */
+    public int getIntervaloPingS() {
+        return intervaloPingS;
+    }
+    
+    /**
+     * Porta HTTP do endpoint de métricas, ou 0 sem métricas
+     */
+    public int getPortaMetricas() {
+        return portaMetricas;
+    }
+    
+    /**
+     * Diretório dos arquivos do log, ou null para o console
+     */
+    public String getDiretorioLog() {
+        return diretorioLog;
+    }
+    
+    public long getTamanhoLogBytes() {
+        return tamanhoLogMb * 1024L * 1024L;
+    }
+    
+    public Log.PoliticaTransbordo getTransbordoLog() {
+        return transbordoLog;
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+
+/**
+ * Status dos jogadores de uma partida com totais mantidos a cada transição
+ * Guarda um byte de status por identificador e o conjunto dos jogadores
+ * ativos, de modo que contar os ativos e achar o último deles é feito em
+ * tempo constante, sem percorrer os jogadores
+ *
+ * Alterações são feitas com o lock do EstadoJogo
+ */
+public class ContagemJogadores {
+    public static final byte VAZIO = 0;
+    public static final byte ATIVO = 1;
+    public static final byte ELIMINADO = 2;
+    public static final byte PAROU = 3;
+    
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private volatile byte[] status;
+    
+    // Conjunto dos ativos: ids em ativos[0, totalAtivos) e a posição de cada
+    // um em posicoesAtivos, para remover trocando com o último
+    private int[] ativos;
+    private int[] posicoesAtivos;
+    
+    private int totalAtivos;
+    private int totalEliminados;
+    private int totalPararam;
+    
+    public ContagemJogadores() {
+        this.status = new byte[CAPACIDADE_INICIAL];
+        this.ativos = new int[CAPACIDADE_INICIAL];
+        this.posicoesAtivos = new int[CAPACIDADE_INICIAL];
+    }
+    
+    /**
+     * Status correspondente ao estado de um jogador
+     */
+    public static byte statusDe(Jogador jogador) {
+        return jogador.isEliminado() ? ELIMINADO : (jogador.isParou() ? PAROU : ATIVO);
+    }
+    
+    /**
+     * Registra o jogador com o status informado
+     */
+    public void adicionar(int id, byte estado) {
+        if (id >= status.length) {
+            int capacidade = status.length;
+            while (capacidade <= id) {
+                capacidade *= 2;
+            }
+            status = Arrays.copyOf(status, capacidade);
+            ativos = Arrays.copyOf(ativos, capacidade);
+            posicoesAtivos = Arrays.copyOf(posicoesAtivos, capacidade);
+        }
+        
+        if (status[id] == VAZIO) {
+            status[id] = estado;
+            contar(id, estado, 1);
+        }
+    }
+    
+    /**
+     * Retira o jogador dos totais
+     */
+    public void remover(int id) {
+        if (id >= 0 && id < status.length && status[id] != VAZIO) {
+            contar(id, status[id], -1);
+            status[id] = VAZIO;
+        }
+    }
+    
+    /**
+     * Muda o status do jogador, atualizando os totais
+     */
+    public void setStatus(int id, byte estado) {
+        byte anterior = status[id];
+        if (anterior != estado && anterior != VAZIO) {
+            contar(id, anterior, -1);
+            status[id] = estado;
+            contar(id, estado, 1);
+        }
+    }
+    
+    public byte getStatus(int id) {
+        return status[id];
+    }
+    
+    /**
+     * Atualiza os totais e o conjunto de ativos ao entrar (1) ou sair (-1)
+     * do estado informado
+     */
+    private void contar(int id, byte estado, int delta) {
+        switch (estado) {
+            case ATIVO:
+                totalAtivos += delta;
+                if (delta > 0) {
+                    posicoesAtivos[id] = totalAtivos - 1;
+                    ativos[totalAtivos - 1] = id;
+                } else {
+                    int posicao = posicoesAtivos[id];
+                    int ultimo = ativos[totalAtivos];
+                    ativos[posicao] = ultimo;
+                    posicoesAtivos[ultimo] = posicao;
+                }
+                break;
+            
+            case ELIMINADO:
+                totalEliminados += delta;
+                break;
+            
+            case PAROU:
+                totalPararam += delta;
+                break;
+            
+            default:
+                break;
+        }
+    }
+    
+    public int getTotalAtivos() {
+        return totalAtivos;
+    }
+    
+    public int getTotalEliminados() {
+        return totalEliminados;
+    }
+    
+    public int getTotalPararam() {
+        return totalPararam;
+    }
+    
+    /**
+     * Identificador de um jogador ativo qualquer, ou -1 se não houver
+     * (com um único ativo, é o último jogador no jogo)
+     */
+    public int getUmAtivo() {
+        return totalAtivos > 0 ? ativos[0] : -1;
+    }
+}
@@ -0,0 +1,643 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Diário de eventos das partidas (write-ahead log), para reconstruir o
+ * estado dos jogadores depois de uma queda do servidor
+ *
+ * Cada transição de um EstadoJogo (entrada, resposta, parada, saída,
+ * início e fim) vira um registro acrescentado ao segmento atual. Quem
+ * registra só copia o registro para um buffer em memória; uma thread do
+ * diário grava todo o buffer de uma vez e chama force uma única vez por
+ * lote (group commit). O que só pode ser enviado ao cliente depois que o
+ * registro está em disco é entregue a aposGravar, e a thread do diário o
+ * executa depois do force que grava o registro: ninguém fica bloqueado à
+ * espera do disco (no modo NIO, a thread do loop de eventos), e um mesmo
+ * force atende todos os registros do lote
+ *
+ * Periodicamente a thread grava um instantâneo de todas as partidas, com
+ * a sequência do último registro que ele já contém, começa um segmento
+ * novo e apaga os anteriores. Na inicialização, o estado é reconstruído
+ * do instantâneo mais os registros posteriores a ele. Os registros guardam
+ * o estado resultante (nível, prêmio e status), não a operação, então
+ * aplicar de novo um registro que o instantâneo já contém não muda nada
+ *
+ * Formato de um registro (big-endian): int tamanho, long sequência, byte
+ * tipo, int sala, int jogador, dados do tipo e int CRC32C da sequência até
+ * o fim dos dados. Um registro incompleto ou com CRC errado marca o fim do
+ * segmento (gravação interrompida pela queda)
+ */
+public class DiarioEventos {
+    
+    public static final byte ENTRADA = 1; // nome e token da sessão ("" sem sessão)
+    public static final byte ESTADO = 2;  // nível, prêmio em centavos, status
+    public static final byte SAIDA = 3;
+    public static final byte INICIO = 4;
+    public static final byte FIM = 5;     // jogador: vencedor, ou -1
+    
+    private static final int MAGICO_INSTANTANEO = 0x4A444D49; // "JDMI"
+    private static final int VERSAO = 2; // 2: token da sessão de cada jogador
+    private static final String INSTANTANEO = "instantaneo.bin";
+    private static final String PREFIXO_SEGMENTO = "eventos-";
+    private static final String SUFIXO_SEGMENTO = ".log";
+    
+    // tamanho + CRC, e sequência, tipo, sala e jogador
+    private static final int TAMANHO_MOLDURA = 8;
+    private static final int TAMANHO_CABECALHO = 17;
+    private static final int CAPACIDADE_INICIAL = 64 * 1024;
+    
+    // Nome e token têm o tamanho em um unsigned short, no registro e no
+    // instantâneo (writeUTF); até 3 bytes por caractere nos dois casos
+    private static final int TAMANHO_MAXIMO_TEXTO = 0xFFFF / 3;
+    
+    private final Path diretorio;
+    private final ConfiguracaoServidor.EstadoJogadores estadoJogadores;
+    private final long intervaloInstantaneoNs;
+    private final Map<Integer, EstadoJogo> partidasRecuperadas;
+    
+    private final ReentrantLock lock;
+    private final Condition haRegistros;
+    private final Queue<AcaoPendente> acoesPendentes; // em ordem de sequência
+    private ByteBuffer pendente;
+    private long ultimaSequencia;
+    private long sequenciaGravada;
+    private int maiorIdSala;
+    private boolean aberto;
+    private boolean encerrando;
+    
+    // Só usados pela thread do diário (e pela inicialização, antes dela)
+    private ByteBuffer gravando;
+    private FileChannel segmento;
+    private Supplier<Collection<EstadoJogo>> partidas;
+    private Thread thread;
+    
+    /**
+     * Ação de aposGravar à espera do registro de sequência informada
+     */
+    private static final class AcaoPendente {
+        final long sequencia;
+        final Runnable acao;
+        
+        AcaoPendente(long sequencia, Runnable acao) {
+            this.sequencia = sequencia;
+            this.acao = acao;
+        }
+    }
+    
+    private DiarioEventos(Path diretorio, ConfiguracaoServidor.EstadoJogadores estadoJogadores,
+                          long intervaloInstantaneoMs) {
+        this.diretorio = diretorio;
+        this.estadoJogadores = estadoJogadores;
+        this.intervaloInstantaneoNs = TimeUnit.MILLISECONDS.toNanos(intervaloInstantaneoMs);
+        this.partidasRecuperadas = new TreeMap<>();
+        this.lock = new ReentrantLock();
+        this.haRegistros = lock.newCondition();
+        this.acoesPendentes = new ArrayDeque<>();
+        this.pendente = ByteBuffer.allocate(CAPACIDADE_INICIAL);
+        this.gravando = ByteBuffer.allocate(CAPACIDADE_INICIAL);
+        this.aberto = false;
+        this.encerrando = false;
+    }
+    
+    /**
+     * Abre o diário do diretório, reconstruindo as partidas que ele contém
+     * O diário só passa a gravar depois de iniciar
+     */
+    public static DiarioEventos abrir(Path diretorio, ConfiguracaoServidor.EstadoJogadores estadoJogadores,
+                                      long intervaloInstantaneoMs) throws IOException {
+        Files.createDirectories(diretorio);
+        DiarioEventos diario = new DiarioEventos(diretorio, estadoJogadores, intervaloInstantaneoMs);
+        diario.recuperar();
+        return diario;
+    }
+    
+    /**
+     * Partidas já iniciadas reconstruídas do diário, em ordem de sala
+     * (as que não tinham começado não têm nada a preservar)
+     */
+    public Collection<EstadoJogo> getPartidasRecuperadas() {
+        return Collections.unmodifiableCollection(partidasRecuperadas.values());
+    }
+    
+    /**
+     * Maior número de sala que aparece no diário; salas novas devem usar
+     * números maiores, para não se misturar com registros antigos
+     */
+    public int getMaiorIdSala() {
+        lock.lock();
+        try {
+            return maiorIdSala;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Começa a gravar: compacta o que foi recuperado em um instantâneo e
+     * inicia a thread do diário
+     * partidas fornece as partidas existentes a cada instantâneo
+     */
+    public void iniciar(Supplier<Collection<EstadoJogo>> partidas) throws IOException {
+        this.partidas = partidas;
+        abrirSegmento(ultimaSequencia + 1);
+        gravarInstantaneo(ultimaSequencia);
+        
+        lock.lock();
+        try {
+            aberto = true;
+        } finally {
+            lock.unlock();
+        }
+        
+        thread = new Thread(this::executar, "diario-eventos");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Grava o que falta, grava um último instantâneo e para o diário
+     * Registros feitos depois disso são ignorados
+     */
+    public void fechar() {
+        lock.lock();
+        try {
+            if (!aberto) {
+                return;
+            }
+            encerrando = true;
+            haRegistros.signal();
+        } finally {
+            lock.unlock();
+        }
+        
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public long registrarEntrada(int sala, Jogador jogador) {
+        return registrar(ENTRADA, sala, jogador.getId(), jogador);
+    }
+    
+    public long registrarEstado(int sala, Jogador jogador) {
+        return registrar(ESTADO, sala, jogador.getId(), jogador);
+    }
+    
+    public long registrarSaida(int sala, int jogador) {
+        return registrar(SAIDA, sala, jogador, null);
+    }
+    
+    public long registrarInicio(int sala) {
+        return registrar(INICIO, sala, -1, null);
+    }
+    
+    public long registrarFim(int sala, int vencedor) {
+        return registrar(FIM, sala, vencedor, null);
+    }
+    
+    /**
+     * Acrescenta um registro ao buffer pendente e retorna a sua sequência,
+     * ou -1 se o diário não está aberto
+     * Chamado com o lock da partida, de modo que a ordem dos registros de
+     * uma sala é a ordem em que as transições foram aplicadas
+     */
+    private long registrar(byte tipo, int sala, int idJogador, Jogador jogador) {
+        if (tipo == ENTRADA) {
+            verificarTexto(jogador.getNome());
+            verificarTexto(jogador.getToken());
+        }
+        byte[] nome = tipo == ENTRADA ? jogador.getNome().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] token = tipo == ENTRADA && jogador.getToken() != null
+            ? jogador.getToken().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int tamanhoDados;
+        switch (tipo) {
+            case ENTRADA:
+                tamanhoDados = 2 + nome.length + 2 + token.length;
+                break;
+            case ESTADO:
+                tamanhoDados = 13;
+                break;
+            default:
+                tamanhoDados = 0;
+        }
+        
+        lock.lock();
+        try {
+            if (!aberto) {
+                return -1;
+            }
+            garantirEspaco(TAMANHO_MOLDURA + TAMANHO_CABECALHO + tamanhoDados);
+            
+            long sequencia = ++ultimaSequencia;
+            maiorIdSala = Math.max(maiorIdSala, sala);
+            
+            pendente.putInt(TAMANHO_CABECALHO + tamanhoDados);
+            int inicio = pendente.position();
+            pendente.putLong(sequencia);
+            pendente.put(tipo);
+            pendente.putInt(sala);
+            pendente.putInt(idJogador);
+            if (tipo == ENTRADA) {
+                pendente.putShort((short) nome.length);
+                pendente.put(nome);
+                pendente.putShort((short) token.length);
+                pendente.put(token);
+            } else if (tipo == ESTADO) {
+                pendente.putInt(jogador.getNivelAtual());
+                pendente.putLong(Math.round(jogador.getPremioAtual() * 100));
+                pendente.put(ContagemJogadores.statusDe(jogador));
+            }
+            pendente.putInt(crc(pendente, inicio, pendente.position()));
+            
+            haRegistros.signal();
+            return sequencia;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Recusa um texto que não cabe em um registro nem no instantâneo
+     */
+    static void verificarTexto(String texto) {
+        if (texto != null && texto.length() > TAMANHO_MAXIMO_TEXTO) {
+            throw new IllegalArgumentException("Texto longo demais para o diário: " + texto.length() + " caracteres");
+        }
+    }
+    
+    /**
+     * Aumenta o buffer pendente se o registro não cabe (chamado com o lock)
+     */
+    private void garantirEspaco(int tamanho) {
+        if (pendente.remaining() < tamanho) {
+            int capacidade = pendente.capacity();
+            while (capacidade - pendente.position() < tamanho) {
+                capacidade *= 2;
+            }
+            ByteBuffer maior = ByteBuffer.allocate(capacidade);
+            pendente.flip();
+            maior.put(pendente);
+            pendente = maior;
+        }
+    }
+    
+    /**
+     * Executa a ação depois que todos os registros feitos até aqui estiverem
+     * em disco, sem esperar: a ação fica com a thread do diário, que a
+     * executa logo depois do force
+     * Se não há nada por gravar, ou o diário foi fechado, a ação é
+     * executada na hora, na thread atual
+     */
+    public void aposGravar(Runnable acao) {
+        lock.lock();
+        try {
+            // A sequência é lida e a ação enfileirada com o lock, então a
+            // fila fica em ordem de sequência
+            if (aberto && sequenciaGravada < ultimaSequencia) {
+                acoesPendentes.add(new AcaoPendente(ultimaSequencia, acao));
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        executarAcao(acao);
+    }
+    
+    /**
+     * Thread do diário: grava os registros pendentes em lotes e, no
+     * intervalo configurado e ao fechar, grava um instantâneo
+     */
+    private void executar() {
+        long proximoInstantaneo = System.nanoTime() + intervaloInstantaneoNs;
+        boolean ultimoLote = false;
+        
+        try {
+            while (!ultimoLote) {
+                long ultima;
+                lock.lock();
+                try {
+                    while (!encerrando && pendente.position() == 0) {
+                        long espera = proximoInstantaneo - System.nanoTime();
+                        if (espera <= 0) {
+                            break;
+                        }
+                        haRegistros.awaitNanos(espera);
+                    }
+                    if (encerrando) {
+                        ultimoLote = true;
+                        aberto = false;
+                    }
+                    
+                    // Troca os buffers: novos registros continuam chegando
+                    // enquanto o lote é gravado
+                    ByteBuffer lote = pendente;
+                    pendente = gravando;
+                    gravando = lote;
+                    ultima = ultimaSequencia;
+                } finally {
+                    lock.unlock();
+                }
+                
+                if (gravando.position() > 0) {
+                    gravando.flip();
+                    while (gravando.hasRemaining()) {
+                        segmento.write(gravando);
+                    }
+                    segmento.force(false);
+                    gravando.clear();
+                    marcarGravados(ultima);
+                }
+                
+                if (ultimoLote || System.nanoTime() - proximoInstantaneo >= 0) {
+                    // Os registros até ultima estão no segmento que termina
+                    // aqui; os seguintes vão para o novo
+                    abrirSegmento(ultima + 1);
+                    gravarInstantaneo(ultima);
+                    proximoInstantaneo = System.nanoTime() + intervaloInstantaneoNs;
+                }
+            }
+        } catch (IOException e) {
+            Log.erro("diario_interrompido", "erro", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fecharSegmento();
+            // As ações que ainda esperam são liberadas, como as de um
+            // diário fechado
+            marcarGravados(Long.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * Registra que tudo até a sequência informada está em disco e executa,
+     * fora do lock, as ações que esperavam por isso
+     * Long.MAX_VALUE fecha o diário e libera todas as ações
+     */
+    private void marcarGravados(long sequencia) {
+        List<Runnable> prontas = new ArrayList<>();
+        lock.lock();
+        try {
+            if (sequencia == Long.MAX_VALUE) {
+                aberto = false;
+            } else {
+                sequenciaGravada = sequencia;
+            }
+            while (!acoesPendentes.isEmpty() && acoesPendentes.peek().sequencia <= sequencia) {
+                prontas.add(acoesPendentes.poll().acao);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Runnable acao : prontas) {
+            executarAcao(acao);
+        }
+    }
+    
+    /**
+     * Uma ação com defeito não pode interromper o diário nem as demais
+     */
+    private static void executarAcao(Runnable acao) {
+        try {
+            acao.run();
+        } catch (RuntimeException e) {
+            Log.erro("erro_acao_diario", "erro", e);
+        }
+    }
+    
+    /**
+     * Passa a gravar em um segmento novo, que começa na sequência informada
+     */
+    private void abrirSegmento(long primeiraSequencia) throws IOException {
+        fecharSegmento();
+        segmento = FileChannel.open(diretorio.resolve(nomeSegmento(primeiraSequencia)),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    private void fecharSegmento() {
+        if (segmento != null) {
+            try {
+                segmento.close();
+            } catch (IOException e) {
+                Log.aviso("erro_fechar_segmento", "erro", e.getMessage());
+            }
+            segmento = null;
+        }
+    }
+    
+    /**
+     * Grava o instantâneo de todas as partidas, que contém todos os
+     * registros até a sequência informada, e apaga os segmentos anteriores
+     * ao atual
+     * Gravado em outro arquivo e renomeado por cima: uma queda no meio
+     * deixa o instantâneo anterior, que continua válido com os segmentos
+     */
+    private void gravarInstantaneo(long sequencia) throws IOException {
+        Collection<EstadoJogo> atuais = partidas.get();
+        Path destino = diretorio.resolve(INSTANTANEO);
+        Path temporario = diretorio.resolve(INSTANTANEO + ".tmp");
+        
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+            saida.writeInt(MAGICO_INSTANTANEO);
+            saida.writeInt(VERSAO);
+            saida.writeLong(sequencia);
+            saida.writeInt(getMaiorIdSala());
+            saida.writeInt(atuais.size());
+            for (EstadoJogo partida : atuais) {
+                partida.gravar(saida);
+            }
+            saida.flush();
+            canal.force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        String atual = nomeSegmento(sequencia + 1);
+        for (Path anterior : listarSegmentos()) {
+            if (!anterior.getFileName().toString().equals(atual)) {
+                Files.deleteIfExists(anterior);
+            }
+        }
+    }
+    
+    /**
+     * Reconstrói as partidas do instantâneo e dos segmentos
+     */
+    private void recuperar() throws IOException {
+        long base = 0;
+        Path instantaneo = diretorio.resolve(INSTANTANEO);
+        if (Files.exists(instantaneo)) {
+            base = lerInstantaneo(instantaneo);
+        }
+        
+        ultimaSequencia = base;
+        for (Path arquivo : listarSegmentos()) {
+            reproduzir(arquivo, base);
+        }
+        sequenciaGravada = ultimaSequencia;
+        
+        partidasRecuperadas.values().removeIf(partida ->
+            !partida.isJogoIniciado() || partida.getJogadores().getTamanho() == 0);
+    }
+    
+    /**
+     * Lê o instantâneo e retorna a sequência até a qual ele está atualizado
+     */
+    private long lerInstantaneo(Path arquivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            if (entrada.readInt() != MAGICO_INSTANTANEO) {
+                throw new IOException("Instantâneo do diário inválido: " + arquivo);
+            }
+            int versao = entrada.readInt();
+            if (versao < 1 || versao > VERSAO) {
+                throw new IOException("Versão do instantâneo não suportada: " + arquivo);
+            }
+            long sequencia = entrada.readLong();
+            maiorIdSala = entrada.readInt();
+            int quantidade = entrada.readInt();
+            for (int i = 0; i < quantidade; i++) {
+                EstadoJogo partida = EstadoJogo.ler(entrada, versao, estadoJogadores, this);
+                partidasRecuperadas.put(partida.getIdSala(), partida);
+            }
+            return sequencia;
+        }
+    }
+    
+    /**
+     * Aplica os registros do segmento posteriores à sequência base
+     */
+    private void reproduzir(Path arquivo, long base) throws IOException {
+        ByteBuffer dados;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        
+        while (dados.remaining() >= 4) {
+            int tamanho = dados.getInt(dados.position());
+            if (tamanho < TAMANHO_CABECALHO || dados.remaining() < tamanho + TAMANHO_MOLDURA) {
+                break;
+            }
+            int inicio = dados.position() + 4;
+            int fim = inicio + tamanho;
+            if (crc(dados, inicio, fim) != dados.getInt(fim)) {
+                break;
+            }
+            
+            dados.position(inicio);
+            long sequencia = dados.getLong();
+            byte tipo = dados.get();
+            int sala = dados.getInt();
+            int jogador = dados.getInt();
+            if (sequencia > base) {
+                aplicar(dados, fim, tipo, sala, jogador);
+                ultimaSequencia = Math.max(ultimaSequencia, sequencia);
+            }
+            dados.position(fim + 4);
+        }
+        
+        if (dados.hasRemaining()) {
+            Log.aviso("diario_final_descartado", "arquivo", arquivo.getFileName(), "bytes", dados.remaining());
+        }
+    }
+    
+    /**
+     * Aplica um registro cujos dados vão da posição atual até fim
+     */
+    private void aplicar(ByteBuffer dados, int fim, byte tipo, int sala, int jogador) {
+        maiorIdSala = Math.max(maiorIdSala, sala);
+        EstadoJogo partida = partidasRecuperadas.computeIfAbsent(sala,
+            id -> new EstadoJogo(estadoJogadores, null, this, id));
+        
+        switch (tipo) {
+            case ENTRADA:
+                String nome = lerTexto(dados);
+                // Registros da versão 1 do diário não têm o token
+                String token = dados.position() < fim ? lerTexto(dados) : "";
+                partida.restaurarJogador(jogador, nome, token.isEmpty() ? null : token);
+                break;
+            
+            case ESTADO:
+                partida.restaurarEstado(jogador, dados.getInt(), dados.getLong() / 100.0, dados.get());
+                break;
+            
+            case SAIDA:
+                partida.restaurarSaida(jogador);
+                break;
+            
+            case INICIO:
+                partida.restaurarInicio();
+                break;
+            
+            case FIM:
+                partida.restaurarFim(jogador);
+                break;
+            
+            default:
+                break;
+        }
+    }
+    
+    private static String lerTexto(ByteBuffer dados) {
+        byte[] bytes = new byte[dados.getShort() & 0xFFFF];
+        dados.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Segmentos do diretório, em ordem de sequência
+     */
+    private List<Path> listarSegmentos() throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio,
+                PREFIXO_SEGMENTO + "*" + SUFIXO_SEGMENTO)) {
+            for (Path arquivo : arquivos) {
+                segmentos.add(arquivo);
+            }
+        }
+        Collections.sort(segmentos);
+        return segmentos;
+    }
+    
+    /**
+     * Nome do segmento que começa na sequência informada; a sequência tem
+     * largura fixa para que a ordem dos nomes seja a dos segmentos
+     */
+    private static String nomeSegmento(long primeiraSequencia) {
+        return PREFIXO_SEGMENTO + String.format("%019d", primeiraSequencia) + SUFIXO_SEGMENTO;
+    }
+    
+    private static int crc(ByteBuffer dados, int inicio, int fim) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer trecho = dados.duplicate();
+        trecho.limit(fim).position(inicio);
+        crc.update(trecho);
+        return (int) crc.getValue();
+    }
+}
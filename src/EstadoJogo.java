@@ -1,56 +1,164 @@
-import java.util.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.random.RandomGenerator;
 
 /**
- * Classe que gerencia o estado global do jogo
+ * Classe que gerencia o estado de uma partida (cada Sala possui o seu)
+ * Os jogadores ficam em um registro concorrente, lido sem lock. O lock da
+ * partida protege só as transições (entrada, saída, acerto, erro, parada),
+ * e cada uma atualiza os totais da ContagemJogadores, de modo que o fim de
+ * jogo é verificado em tempo constante
+ *
+ * Com um DiarioEventos, cada transição é registrada no diário com o lock
+ * adquirido, na mesma ordem em que é aplicada; o que confirma a transição
+ * aos clientes é entregue a aposGravar e só sai depois que o registro
+ * está em disco
  */
 public class EstadoJogo {
-    private List<Jogador> jogadores;
-    private Map<Jogador, Pergunta> perguntasAtuais;
+    private final RegistroJogadores<Jogador> jogadores;
+    private final TabelaJogadores tabela; // null com o estado nos objetos
+    private final ContagemJogadores contagem;
     private BancoPerguntas bancoPerguntas;
-    private boolean jogoIniciado;
-    private boolean jogoFinalizado;
-    private Jogador vencedor;
+    private final int[] iniciosBaralho; // posição da sala no baralho de cada nível
+    private volatile boolean jogoIniciado;
+    private volatile boolean jogoFinalizado;
+    private volatile Jogador vencedor;
+    private final DiarioEventos diario; // null sem diário
+    private final int idSala;
+    private final ReentrantLock lock = new ReentrantLock();
     
     public EstadoJogo() {
-        this.jogadores = new ArrayList<>();
-        this.perguntasAtuais = new HashMap<>();
+        this(ConfiguracaoServidor.EstadoJogadores.OBJETOS);
+    }
+    
+    public EstadoJogo(ConfiguracaoServidor.EstadoJogadores estadoJogadores) {
+        this(estadoJogadores, null);
+    }
+    
+    public EstadoJogo(ConfiguracaoServidor.EstadoJogadores estadoJogadores, Long semente) {
+        this(estadoJogadores, semente, null, 0);
+    }
+    
+    public EstadoJogo(ConfiguracaoServidor.EstadoJogadores estadoJogadores, Long semente,
+                      DiarioEventos diario, int idSala) {
+        RandomGenerator gerador = semente == null ? ThreadLocalRandom.current() : new SplittableRandom(semente);
+        this.iniciosBaralho = new int[15];
+        for (int i = 0; i < iniciosBaralho.length; i++) {
+            iniciosBaralho[i] = gerador.nextInt(Integer.MAX_VALUE);
+        }
+        this.jogadores = new RegistroJogadores<>();
+        this.tabela = estadoJogadores == ConfiguracaoServidor.EstadoJogadores.TABELA
+            ? new TabelaJogadores() : null;
+        this.contagem = tabela != null ? tabela.getContagem() : new ContagemJogadores();
         this.bancoPerguntas = new BancoPerguntas();
         this.jogoIniciado = false;
         this.jogoFinalizado = false;
         this.vencedor = null;
+        this.diario = diario;
+        this.idSala = idSala;
     }
     
     /**
-     * Adiciona um jogador ao jogo
+     * Número da sala da partida, usado nos registros do diário
      */
-    public synchronized void adicionarJogador(Jogador jogador) {
-        jogadores.add(jogador);
+    public int getIdSala() {
+        return idSala;
+    }
+    
+    /**
+     * Adiciona um jogador ao jogo e atribui o seu identificador na sala
+     */
+    public void adicionarJogador(Jogador jogador) {
+        if (diario != null) {
+            // Antes de mudar a partida: recusado aqui, o jogador não entra
+            DiarioEventos.verificarTexto(jogador.getNome());
+        }
+        lock.lock();
+        try {
+            jogador.setId(jogadores.adicionar(jogador));
+            vincular(jogador);
+            if (diario != null) {
+                diario.registrarEntrada(idSala, jogador);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
      * Remove um jogador do jogo
+     * Com a partida em andamento, a saída pode deixar um único jogador ativo,
+     * que vence
      */
-    public synchronized void removerJogador(Jogador jogador) {
-        jogadores.remove(jogador);
-        perguntasAtuais.remove(jogador);
+    public void removerJogador(Jogador jogador) {
+        lock.lock();
+        try {
+            desvincular(jogador);
+            jogadores.remover(jogador.getId());
+            jogador.setPerguntaAtual(null);
+            if (diario != null) {
+                diario.registrarSaida(idSala, jogador.getId());
+            }
+            
+            if (jogoIniciado && !jogoFinalizado) {
+                verificarFimJogo();
+            }
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
-     * Obtém lista de jogadores
+     * Leva o estado do jogador para a tabela ou a contagem (chamado com o
+     * lock, depois de atribuído o identificador)
      */
-    public List<Jogador> getJogadores() {
-        return new ArrayList<>(jogadores);
+    private void vincular(Jogador jogador) {
+        if (tabela != null) {
+            jogador.vincular(tabela);
+        } else {
+            contagem.adicionar(jogador.getId(), ContagemJogadores.statusDe(jogador));
+        }
+    }
+    
+    /**
+     * Retira o jogador da tabela ou da contagem (chamado com o lock)
+     */
+    private void desvincular(Jogador jogador) {
+        if (tabela != null) {
+            jogador.desvincular();
+        } else {
+            contagem.remover(jogador.getId());
+        }
+    }
+    
+    /**
+     * Registro dos jogadores, indexado pelo identificador na sala
+     */
+    public RegistroJogadores<Jogador> getJogadores() {
+        return jogadores;
     }
     
     /**
      * Inicia o jogo
      */
-    public synchronized void iniciarJogo() {
-        if (jogadores.size() < 2) {
-            throw new IllegalStateException("É necessário pelo menos 2 jogadores para iniciar");
+    public void iniciarJogo() {
+        lock.lock();
+        try {
+            if (jogadores.getTamanho() < 2) {
+                throw new IllegalStateException("É necessário pelo menos 2 jogadores para iniciar");
+            }
+            this.jogoIniciado = true;
+            this.jogoFinalizado = false;
+            if (diario != null) {
+                diario.registrarInicio(idSala);
+            }
+        } finally {
+            lock.unlock();
         }
-        this.jogoIniciado = true;
-        this.jogoFinalizado = false;
     }
     
     public boolean isJogoIniciado() {
@@ -63,71 +171,146 @@ public class EstadoJogo {
     
     /**
      * Obtém uma pergunta para um jogador baseado no seu nível atual
+     * Não usa o lock: só altera a pergunta atual do próprio jogador
+     * A pergunta é a do baralho do nível na posição da sala mais o
+     * identificador do jogador, então jogadores da mesma sala não repetem
+     * perguntas; com semente, o resultado não depende da ordem das threads
      */
     public Pergunta obterPerguntaParaJogador(Jogador jogador) {
         int proximoNivel = jogador.getNivelAtual() + 1;
-        Pergunta pergunta = bancoPerguntas.obterPergunta(proximoNivel);
-        perguntasAtuais.put(jogador, pergunta);
+        if (proximoNivel > iniciosBaralho.length) {
+            return null;
+        }
+        long posicao = (long) iniciosBaralho[proximoNivel - 1] + jogador.getId();
+        Pergunta pergunta = bancoPerguntas.obterPerguntaDoBaralho(proximoNivel, posicao);
+        jogador.setPerguntaAtual(pergunta);
         return pergunta;
     }
     
     /**
      * Processa a resposta de um jogador
+     * A pergunta é retirada e conferida fora do lock; ele só é adquirido
+     * para aplicar o resultado
      */
-    public synchronized boolean processarResposta(Jogador jogador, int resposta) {
-        Pergunta pergunta = perguntasAtuais.get(jogador);
+    public boolean processarResposta(Jogador jogador, int resposta) {
+        Pergunta pergunta = jogador.tomarPerguntaAtual();
         if (pergunta == null) {
             return false;
         }
         
         boolean acertou = pergunta.verificarResposta(resposta);
         
-        if (acertou) {
-            jogador.avancarNivel();
-            jogador.setPremioAtual(pergunta.getPremio());
-            perguntasAtuais.remove(jogador);
+        lock.lock();
+        long inicioLock = Metricas.iniciar();
+        try {
+            if (acertou) {
+                jogador.avancarNivel();
+                jogador.setPremioAtual(pergunta.getPremio());
+            } else {
+                jogador.setEliminado(true);
+                jogador.setPremioAtual(0); // Perde tudo ao errar
+                atualizarContagem(jogador);
+            }
+            registrarEstado(jogador);
             
             // Verifica se ganhou o jogo (chegou ao nível 15)
-            if (jogador.getNivelAtual() >= 15) {
+            if (acertou && jogador.getNivelAtual() >= 15) {
                 finalizarJogo(jogador);
             }
-        } else {
-            jogador.setEliminado(true);
-            jogador.setPremioAtual(0); // Perde tudo ao errar
-            perguntasAtuais.remove(jogador);
+            
+            verificarFimJogo();
+        } finally {
+            lock.unlock();
+            Metricas.registrarLockResposta(inicioLock);
         }
         
-        verificarFimJogo();
         return acertou;
     }
     
     /**
      * Processa a decisão de parar de um jogador
      */
-    public synchronized void processarParada(Jogador jogador) {
-        jogador.setParou(true);
-        perguntasAtuais.remove(jogador);
-        verificarFimJogo();
+    public void processarParada(Jogador jogador) {
+        jogador.setPerguntaAtual(null);
+        
+        lock.lock();
+        try {
+            jogador.setParou(true);
+            atualizarContagem(jogador);
+            registrarEstado(jogador);
+            verificarFimJogo();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Aplica o fim do prazo de resposta de um jogador, cuja pergunta já foi
+     * retirada por quem chama: ele para com o prêmio atual ou é eliminado
+     * Não passa por aposGravar: não há resposta do cliente a confirmar
+     */
+    public void processarTempoEsgotado(Jogador jogador, boolean eliminar) {
+        lock.lock();
+        try {
+            if (eliminar) {
+                jogador.setEliminado(true);
+                jogador.setPremioAtual(0);
+            } else {
+                jogador.setParou(true);
+            }
+            atualizarContagem(jogador);
+            registrarEstado(jogador);
+            verificarFimJogo();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Registra no diário o nível, o prêmio e o status do jogador (chamado
+     * com o lock)
+     */
+    private void registrarEstado(Jogador jogador) {
+        if (diario != null) {
+            diario.registrarEstado(idSala, jogador);
+        }
+    }
+    
+    /**
+     * Executa a ação depois que as transições já aplicadas estiverem em
+     * disco (DiarioEventos.aposGravar), sem bloquear quem chama; sem diário,
+     * ela é executada na hora
+     * Chamado sem o lock
+     */
+    public void aposGravar(Runnable acao) {
+        if (diario != null) {
+            diario.aposGravar(acao);
+        } else {
+            acao.run();
+        }
     }
     
     /**
-     * Verifica se o jogo deve terminar
+     * Leva o novo status do jogador para a contagem (chamado com o lock)
+     * Com a tabela isso já acontece no próprio Jogador; um jogador que já
+     * saiu é ignorado, pois seu identificador pode ter sido reaproveitado
+     */
+    private void atualizarContagem(Jogador jogador) {
+        if (tabela == null && jogadores.obter(jogador.getId()) == jogador) {
+            contagem.setStatus(jogador.getId(), ContagemJogadores.statusDe(jogador));
+        }
+    }
+    
+    /**
+     * Verifica se o jogo deve terminar (chamado com o lock)
      */
     private void verificarFimJogo() {
-        long jogadoresAtivos = jogadores.stream()
-            .filter(Jogador::estaNoJogo)
-            .count();
+        int jogadoresAtivos = contagem.getTotalAtivos();
         
         if (jogadoresAtivos == 0) {
             finalizarJogo(null);
         } else if (jogadoresAtivos == 1 && !jogoFinalizado) {
-            Jogador ultimoJogador = jogadores.stream()
-                .filter(Jogador::estaNoJogo)
-                .findFirst()
-                .orElse(null);
-            if (ultimoJogador != null) {
-                finalizarJogo(ultimoJogador);
-            }
+            finalizarJogo(jogadores.obter(contagem.getUmAtivo()));
         }
     }
     
@@ -137,6 +320,9 @@ public class EstadoJogo {
     private void finalizarJogo(Jogador vencedor) {
         this.jogoFinalizado = true;
         this.vencedor = vencedor;
+        if (diario != null) {
+            diario.registrarFim(idSala, vencedor != null ? vencedor.getId() : -1);
+        }
     }
     
     public Jogador getVencedor() {
@@ -148,14 +334,133 @@ public class EstadoJogo {
      */
     public String obterEstatisticas() {
         StringBuilder sb = new StringBuilder();
-        for (Jogador j : jogadores) {
-            sb.append(j.getNome()).append("|")
-              .append(j.getNivelAtual()).append("|")
-              .append(j.getPremioAtual()).append("|")
-              .append(j.isEliminado() ? "ELIMINADO" : (j.isParou() ? "PAROU" : "ATIVO"))
-              .append(";");
-        }
+        jogadores.paraCada(j -> sb.append(j.getId()).append("|")
+            .append(j.getNome()).append("|")
+            .append(j.getNivelAtual()).append("|")
+            .append(j.getPremioAtual()).append("|")
+            .append(j.getStatus())
+            .append(";"));
         return sb.toString();
     }
+    
+    /**
+     * Grava a partida no instantâneo do diário
+     * Usa o lock, para que o instantâneo não veja uma transição pela metade
+     */
+    public void gravar(DataOutput saida) throws IOException {
+        lock.lock();
+        try {
+            Jogador atual = vencedor;
+            saida.writeInt(idSala);
+            saida.writeBoolean(jogoIniciado);
+            saida.writeBoolean(jogoFinalizado);
+            saida.writeInt(atual != null && jogadores.obter(atual.getId()) == atual ? atual.getId() : -1);
+            saida.writeInt(jogadores.getTamanho());
+            for (int id = 0; id < jogadores.getLimite(); id++) {
+                Jogador jogador = jogadores.obter(id);
+                if (jogador != null) {
+                    saida.writeInt(id);
+                    saida.writeUTF(jogador.getNome());
+                    saida.writeUTF(jogador.getToken() != null ? jogador.getToken() : "");
+                    saida.writeInt(jogador.getNivelAtual());
+                    saida.writeLong(Math.round(jogador.getPremioAtual() * 100));
+                    saida.writeByte(ContagemJogadores.statusDe(jogador));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Lê uma partida gravada por gravar; instantâneos da versão 1 não têm
+     * o token dos jogadores
+     */
+    public static EstadoJogo ler(DataInput entrada, int versao, ConfiguracaoServidor.EstadoJogadores estadoJogadores,
+                                 DiarioEventos diario) throws IOException {
+        EstadoJogo estado = new EstadoJogo(estadoJogadores, null, diario, entrada.readInt());
+        boolean iniciado = entrada.readBoolean();
+        boolean finalizado = entrada.readBoolean();
+        int idVencedor = entrada.readInt();
+        int quantidade = entrada.readInt();
+        for (int i = 0; i < quantidade; i++) {
+            int id = entrada.readInt();
+            String nome = entrada.readUTF();
+            String token = versao >= 2 ? entrada.readUTF() : "";
+            estado.restaurarJogador(id, nome, token.isEmpty() ? null : token);
+            estado.restaurarEstado(id, entrada.readInt(), entrada.readLong() / 100.0, entrada.readByte());
+        }
+        if (iniciado) {
+            estado.restaurarInicio();
+        }
+        if (finalizado) {
+            estado.restaurarFim(idVencedor);
+        }
+        return estado;
+    }
+    
+    /**
+     * Reconstrução pelo diário: os métodos restaurar aplicam o que já foi
+     * registrado, sem registrar de novo
+     * Jogador que entrou com o identificador e o token de sessão (ou null)
+     * informados; um jogador anterior com o mesmo identificador é
+     * substituído
+     */
+    public void restaurarJogador(int id, String nome, String token) {
+        lock.lock();
+        try {
+            Jogador anterior = jogadores.obter(id);
+            if (anterior != null) {
+                desvincular(anterior);
+            }
+            Jogador jogador = new Jogador(nome);
+            jogador.setId(id);
+            jogador.setToken(token);
+            jogadores.colocar(id, jogador);
+            vincular(jogador);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Nível, prêmio e status registrados de um jogador
+     */
+    public void restaurarEstado(int id, int nivel, double premio, byte status) {
+        lock.lock();
+        try {
+            Jogador jogador = jogadores.obter(id);
+            if (jogador != null) {
+                jogador.setNivelAtual(nivel);
+                jogador.setPremioAtual(premio);
+                jogador.setEliminado(status == ContagemJogadores.ELIMINADO);
+                jogador.setParou(status == ContagemJogadores.PAROU);
+                atualizarContagem(jogador);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void restaurarSaida(int id) {
+        lock.lock();
+        try {
+            Jogador jogador = jogadores.obter(id);
+            if (jogador != null) {
+                desvincular(jogador);
+                jogadores.remover(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void restaurarInicio() {
+        jogoIniciado = true;
+    }
+    
+    public void restaurarFim(int idVencedor) {
+        jogoFinalizado = true;
+        vencedor = jogadores.obter(idVencedor);
+    }
 }
-
@@ -0,0 +1,114 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fila limitada de quadros de saída de uma conexão
+ * Quem envia apenas enfileira; a escrita no socket é feita depois por um
+ * único escritor por conexão, que esvazia a fila em lotes. Assim um
+ * cliente lento nunca bloqueia quem faz o broadcast
+ *
+ * Quadros de baixa prioridade (chat) ficam em uma segunda fila, retirada
+ * só quando a principal está vazia, e podem ocupar no máximo metade da
+ * capacidade: uma enxurrada de chat não atrasa nem faz transbordar as
+ * mensagens do jogo
+ */
+public class FilaSaida {
+    
+    /**
+     * O que fazer quando a fila de um cliente lento está cheia
+     */
+    public enum PoliticaTransbordo {
+        DESCARTAR_ESTATISTICAS, // descarta atualizações de placar e chat; demais mensagens desconectam
+        DESCONECTAR             // qualquer transbordo desconecta o cliente
+    }
+    
+    /**
+     * Resultado de uma tentativa de enfileirar
+     */
+    public enum Resultado {
+        ENFILEIRADA,
+        DESCARTADA,
+        TRANSBORDOU
+    }
+    
+    private final Queue<Quadro> mensagens;
+    private final Queue<Quadro> baixaPrioridade;
+    private final AtomicInteger tamanho;
+    private final AtomicBoolean drenagemAgendada;
+    private final int capacidade;
+    private final PoliticaTransbordo politica;
+    
+    public FilaSaida(int capacidade, PoliticaTransbordo politica) {
+        this.mensagens = new ConcurrentLinkedQueue<>();
+        this.baixaPrioridade = new ConcurrentLinkedQueue<>();
+        this.tamanho = new AtomicInteger();
+        this.drenagemAgendada = new AtomicBoolean(false);
+        this.capacidade = capacidade;
+        this.politica = politica;
+    }
+    
+    /**
+     * Tenta enfileirar uma mensagem respeitando a capacidade
+     */
+    public Resultado oferecer(Quadro quadro) {
+        int limite = quadro.isBaixaPrioridade() ? Math.max(1, capacidade / 2) : capacidade;
+        if (tamanho.incrementAndGet() > limite) {
+            tamanho.decrementAndGet();
+            if (politica == PoliticaTransbordo.DESCARTAR_ESTATISTICAS && quadro.isDescartavel()) {
+                return Resultado.DESCARTADA;
+            }
+            return Resultado.TRANSBORDOU;
+        }
+        
+        (quadro.isBaixaPrioridade() ? baixaPrioridade : mensagens).add(quadro);
+        return Resultado.ENFILEIRADA;
+    }
+    
+    /**
+     * Retira o próximo quadro, ou null se a fila está vazia
+     * Os de baixa prioridade só saem com a fila principal vazia
+     */
+    public Quadro retirar() {
+        Quadro quadro = mensagens.poll();
+        if (quadro == null) {
+            quadro = baixaPrioridade.poll();
+        }
+        if (quadro != null) {
+            tamanho.decrementAndGet();
+        }
+        return quadro;
+    }
+    
+    /**
+     * Marca que há uma drenagem em andamento
+     * Retorna true apenas para quem deve iniciá-la
+     */
+    public boolean agendarDrenagem() {
+        return drenagemAgendada.compareAndSet(false, true);
+    }
+    
+    /**
+     * Encerra a drenagem atual
+     * Retorna true se chegaram mensagens nesse meio tempo e o escritor deve
+     * continuar drenando
+     */
+    public boolean concluirDrenagem() {
+        drenagemAgendada.set(false);
+        return (!mensagens.isEmpty() || !baixaPrioridade.isEmpty()) && agendarDrenagem();
+    }
+    
+    /**
+     * Descarta tudo o que estiver pendente
+     */
+    public void limpar() {
+        while (retirar() != null) {
+            // descarta
+        }
+    }
+    
+    public int getTamanho() {
+        return tamanho.get();
+    }
+}
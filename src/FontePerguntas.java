@@ -0,0 +1,18 @@
+/**
+ * Origem das perguntas sorteadas pelo BancoPerguntas
+ * As perguntas embutidas no código e as de um arquivo (ArquivoPerguntas)
+ * implementam esta interface; a fonte em uso pode ser trocada com o
+ * servidor no ar
+ */
+public interface FontePerguntas {
+    
+    /**
+     * Quantidade de perguntas do nível (1 a 15)
+     */
+    int getQuantidade(int nivel);
+    
+    /**
+     * Pergunta de índice informado no nível (0 até getQuantidade - 1)
+     */
+    Pergunta obter(int nivel, int indice);
+}
@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de carga sem interface para testes de capacidade e de longa
+ * duração
+ * Abre muitos jogadores simulados (JogadorSimulado) contra um servidor,
+ * em threads virtuais quando disponíveis (Java 21+), e mede a latência
+ * entre cada RESPOSTA e o RESULTADO correspondente
+ *
+ * Uso: java GeradorCarga [--opcao=valor ...] (opções em ConfiguracaoCarga)
+ */
+public class GeradorCarga {
+    private final ConfiguracaoCarga configuracao;
+    private final Map<String, Integer> respostasCorretas;
+    private final HistogramaLatencia latencias;
+    private final List<JogadorSimulado> jogadores;
+    private final ScheduledExecutorService agendador;
+    private volatile boolean rodando;
+    
+    private final AtomicLong respostas = new AtomicLong();
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong erros = new AtomicLong();
+    private final AtomicLong falhasConexao = new AtomicLong();
+    private final AtomicLong quedas = new AtomicLong();
+    private final AtomicLong partidas = new AtomicLong();
+    private final AtomicLong chats = new AtomicLong();
+    
+    private long inicio;
+    private long respostasNoUltimoRelatorio;
+    
+    public GeradorCarga(ConfiguracaoCarga configuracao) throws IOException {
+        this.configuracao = configuracao;
+        this.respostasCorretas = new HashMap<>();
+        this.latencias = new HistogramaLatencia();
+        this.jogadores = new ArrayList<>();
+        this.agendador = Executors.newScheduledThreadPool(2, tarefa -> {
+            Thread thread = new Thread(tarefa, "agendador-carga");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // O gerador precisa do mesmo banco do servidor (--perguntas nos dois)
+        // para saber a alternativa certa
+        if (configuracao.getArquivoPerguntas() != null) {
+            ArquivoPerguntas arquivo = ArquivoPerguntas.abrir(Paths.get(configuracao.getArquivoPerguntas()));
+            for (int nivel = 1; nivel <= 15; nivel++) {
+                for (int indice = 0; indice < arquivo.getQuantidade(nivel); indice++) {
+                    Pergunta pergunta = arquivo.obter(nivel, indice);
+                    respostasCorretas.put(pergunta.getEnunciado(), pergunta.getRespostaCorreta());
+                }
+            }
+        } else {
+            BancoPerguntas banco = new BancoPerguntas();
+            for (int nivel = 1; nivel <= 15; nivel++) {
+                for (Pergunta pergunta : banco.getPerguntas(nivel)) {
+                    respostasCorretas.put(pergunta.getEnunciado(), pergunta.getRespostaCorreta());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Executa o teste pelo tempo configurado e imprime o resumo
+     */
+    public void executar() throws InterruptedException {
+        ExecutorService executor;
+        try {
+            executor = Servidor.criarExecutorVirtual();
+        } catch (IllegalStateException e) {
+            executor = Executors.newCachedThreadPool();
+        }
+        
+        System.out.println("Gerador de carga: " + configuracao.getJogadores() + " jogadores contra " +
+                         configuracao.getHost() + ":" + configuracao.getPorta() + " por " +
+                         configuracao.getDuracaoSegundos() + "s (acerto " + configuracao.getAcerto() +
+                         ", pensamento " + configuracao.getPensamento() + ", chat " +
+                         configuracao.getChatPorMinuto() + "/min, " +
+                         (configuracao.isBinario() ? "binário" : "texto") + ")");
+        
+        rodando = true;
+        inicio = System.nanoTime();
+        
+        // Abre as conexões distribuídas ao longo da rampa
+        long rampaMs = TimeUnit.SECONDS.toMillis(configuracao.getRampaSegundos());
+        for (int i = 0; i < configuracao.getJogadores(); i++) {
+            JogadorSimulado jogador = new JogadorSimulado(this, i);
+            jogadores.add(jogador);
+            ExecutorService destino = executor;
+            agendador.schedule(() -> destino.execute(jogador),
+                rampaMs * i / configuracao.getJogadores(), TimeUnit.MILLISECONDS);
+        }
+        
+        int relatorio = configuracao.getRelatorioSegundos();
+        agendador.scheduleAtFixedRate(this::imprimirParcial, relatorio, relatorio, TimeUnit.SECONDS);
+        
+        Thread.sleep(TimeUnit.SECONDS.toMillis(configuracao.getDuracaoSegundos()));
+        
+        rodando = false;
+        agendador.shutdownNow();
+        for (JogadorSimulado jogador : jogadores) {
+            jogador.encerrar();
+        }
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        
+        imprimirResumo();
+    }
+    
+    private double segundosDecorridos() {
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+    
+    private synchronized void imprimirParcial() {
+        long total = respostas.get();
+        long noIntervalo = total - respostasNoUltimoRelatorio;
+        respostasNoUltimoRelatorio = total;
+        
+        System.out.printf("[%5.0fs] respostas/s: %8.1f | p50: %s | p99: %s | p99.9: %s | erros: %d | quedas: %d | falhas de conexão: %d%n",
+            segundosDecorridos(), noIntervalo / (double) configuracao.getRelatorioSegundos(),
+            formatar(latencias.percentil(0.50)), formatar(latencias.percentil(0.99)),
+            formatar(latencias.percentil(0.999)), erros.get(), quedas.get(), falhasConexao.get());
+    }
+    
+    private void imprimirResumo() {
+        double segundos = segundosDecorridos();
+        System.out.println("\n========================================");
+        System.out.println("  RESUMO DO TESTE DE CARGA");
+        System.out.println("========================================");
+        System.out.printf("Duração:                 %.1f s%n", segundos);
+        System.out.printf("Partidas (conexões):     %d%n", partidas.get());
+        System.out.printf("Respostas:               %d (%.1f/s, %d acertos)%n",
+            respostas.get(), respostas.get() / segundos, acertos.get());
+        System.out.printf("Chats enviados:          %d%n", chats.get());
+        System.out.printf("Latência RESPOSTA→RESULTADO: p50 %s | p99 %s | p99.9 %s%n",
+            formatar(latencias.percentil(0.50)), formatar(latencias.percentil(0.99)),
+            formatar(latencias.percentil(0.999)));
+        System.out.printf("Erros do servidor:       %d%n", erros.get());
+        System.out.printf("Quedas de conexão:       %d%n", quedas.get());
+        System.out.printf("Falhas ao conectar:      %d%n", falhasConexao.get());
+        System.out.println("========================================");
+    }
+    
+    private static String formatar(long microssegundos) {
+        return String.format("%.2f ms", microssegundos / 1000.0);
+    }
+    
+    /**
+     * Índice da alternativa correta de uma pergunta (0 se desconhecida)
+     */
+    int respostaCorreta(String enunciado) {
+        return respostasCorretas.getOrDefault(enunciado, 0);
+    }
+    
+    void registrarResultado(long nanos, boolean acertou) {
+        respostas.incrementAndGet();
+        if (acertou) {
+            acertos.incrementAndGet();
+        }
+        latencias.registrar(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+    
+    void registrarErro() {
+        erros.incrementAndGet();
+    }
+    
+    void registrarQueda() {
+        quedas.incrementAndGet();
+    }
+    
+    void registrarFalhaConexao() {
+        falhasConexao.incrementAndGet();
+    }
+    
+    void registrarPartida() {
+        partidas.incrementAndGet();
+    }
+    
+    void registrarChat() {
+        chats.incrementAndGet();
+    }
+    
+    boolean isRodando() {
+        return rodando;
+    }
+    
+    ConfiguracaoCarga getConfiguracao() {
+        return configuracao;
+    }
+    
+    ScheduledExecutorService getAgendador() {
+        return agendador;
+    }
+    
+    /**
+     * Método principal
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ConfiguracaoCarga configuracao;
+        try {
+            configuracao = ConfiguracaoCarga.deArgumentos(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: java GeradorCarga [--opcao=valor ...] (opções em ConfiguracaoCarga)");
+            return;
+        }
+        
+        GeradorCarga gerador;
+        try {
+            gerador = new GeradorCarga(configuracao);
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir banco de perguntas: " + e.getMessage());
+            return;
+        }
+        gerador.executar();
+    }
+}
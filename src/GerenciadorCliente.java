@@ -1,112 +1,170 @@
-import java.io.*;
 import java.net.Socket;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Classe que gerencia a comunicação com um cliente específico
- * Cada cliente conectado tem uma thread dedicada
+ * Concentra a lógica de tratamento dos comandos do protocolo; o transporte
+ * (thread dedicada ou loop de eventos NIO) é definido pelas subclasses, que
+ * entregam cada comando recebido por meio de TratadorComandos
  */
-public class GerenciadorCliente extends Thread {
-    private Socket socket;
-    private BufferedReader entrada;
-    private PrintWriter saida;
-    private Servidor servidor;
-    private Jogador jogador;
-    private boolean conectado;
-    
-    public GerenciadorCliente(Socket socket, Servidor servidor) {
+public abstract class GerenciadorCliente implements TratadorComandos {
+    // Maior linha de texto aceita de um cliente, nos dois transportes
+    protected static final int TAMANHO_MAXIMO_LINHA = 8192;
+    
+    protected final Socket socket;
+    protected final Servidor servidor;
+    protected Jogador jogador;
+    protected Sala sala;
+    protected String token; // sessão do jogador (SessoesJogadores)
+    protected volatile boolean conectado;
+    protected volatile boolean binario;
+    protected final FilaSaida filaSaida;
+    private final AtomicBoolean desconectado;
+    
+    // Instante (System.nanoTime) do último dado recebido do cliente, lido
+    // pela verificação de conexões ociosas do servidor
+    private volatile long ultimaAtividade;
+    
+    // Limite de chat do cliente (null sem limite); usado só por quem lê
+    // os comandos da conexão
+    private final BaldeFichas baldeChat;
+    private boolean chatLimitado;
+    
+    protected GerenciadorCliente(Socket socket, Servidor servidor) {
         this.socket = socket;
         this.servidor = servidor;
         this.conectado = true;
+        this.desconectado = new AtomicBoolean(false);
+        this.ultimaAtividade = System.nanoTime();
         
-        try {
-            this.entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            this.saida = new PrintWriter(socket.getOutputStream(), true);
-        } catch (IOException e) {
-            System.err.println("Erro ao criar streams de comunicação: " + e.getMessage());
-            conectado = false;
-        }
+        ConfiguracaoServidor configuracao = servidor.getConfiguracao();
+        this.filaSaida = new FilaSaida(configuracao.getCapacidadeFilaSaida(), configuracao.getPoliticaTransbordo());
+        this.baldeChat = configuracao.getChatPorSegundo() > 0
+            ? new BaldeFichas(configuracao.getChatRajada(), configuracao.getChatPorSegundo()) : null;
+        this.chatLimitado = false;
     }
     
     @Override
-    public void run() {
-        try {
-            // Aguarda conexão do cliente
-            String mensagem;
-            while (conectado && (mensagem = entrada.readLine()) != null) {
-                processarMensagem(mensagem);
-            }
-        } catch (IOException e) {
-            System.err.println("Erro na comunicação com cliente: " + e.getMessage());
-        } finally {
-            desconectar();
+    public void aoConectar(String nome, boolean pedeBinario) {
+        Metricas.registrarRecebida(Protocolo.CONECTAR);
+        conectarJogador(nome, pedeBinario);
+    }
+    
+    @Override
+    public void aoResponder(int resposta) {
+        Metricas.registrarRecebida(Protocolo.RESPOSTA);
+        processarResposta(resposta);
+    }
+    
+    @Override
+    public void aoResponderInvalido() {
+        Metricas.registrarRecebida(Protocolo.RESPOSTA);
+        enviarMensagem(Protocolo.criarMensagemErro("Resposta inválida"));
+    }
+    
+    @Override
+    public void aoParar() {
+        Metricas.registrarRecebida(Protocolo.PARAR);
+        processarParada();
+    }
+    
+    @Override
+    public void aoConversar(String texto) {
+        Metricas.registrarRecebida(Protocolo.CHAT);
+        processarChat(texto);
+    }
+    
+    @Override
+    public void aoSincronizar() {
+        Metricas.registrarRecebida(Protocolo.SINCRONIZAR);
+        if (sala != null) {
+            sala.enviarEstatisticas(this);
         }
     }
     
+    @Override
+    public void aoRetomar(String tokenSessao, boolean pedeBinario) {
+        Metricas.registrarRecebida(Protocolo.RETOMAR);
+        retomarSessao(tokenSessao, pedeBinario);
+    }
+    
+    @Override
+    public void aoPing() {
+        Metricas.registrarRecebida(Protocolo.PING);
+        enviarMensagem(Protocolo.criarMensagemPong());
+    }
+    
+    @Override
+    public void aoPong() {
+        // Basta ter chegado: a atividade já foi registrada pelo transporte
+        Metricas.registrarRecebida(Protocolo.PONG);
+    }
+    
+    @Override
+    public void aoComandoDesconhecido(String comando) {
+        Metricas.registrarRecebida(Metricas.COMANDO_DESCONHECIDO);
+        enviarMensagem(Protocolo.criarMensagemErro("Comando desconhecido: " + comando));
+    }
+    
     /**
-     * Processa mensagens recebidas do cliente
+     * Conecta um jogador ao servidor
      */
-    private void processarMensagem(String mensagem) {
-        String[] partes = Protocolo.parsearMensagem(mensagem);
-        
-        if (partes.length == 0) {
+    private void conectarJogador(String nome, boolean pedeBinario) {
+        if (jogador != null) {
+            enviarMensagem(Protocolo.criarMensagemErro("Já está conectado"));
             return;
         }
         
-        String comando = partes[0];
+        // A partir daqui as duas direções usam o protocolo pedido; a troca
+        // vem antes da entrada na sala, cujo placar já sai codificado
+        binario = pedeBinario;
         
-        switch (comando) {
-            case Protocolo.CONECTAR:
-                if (partes.length >= 2) {
-                    String nome = partes[1];
-                    conectarJogador(nome);
-                }
-                break;
-                
-            case Protocolo.RESPOSTA:
-                if (partes.length >= 2) {
-                    try {
-                        int resposta = Integer.parseInt(partes[1]);
-                        processarResposta(resposta);
-                    } catch (NumberFormatException e) {
-                        enviarMensagem(Protocolo.criarMensagemErro("Resposta inválida"));
-                    }
-                }
-                break;
-                
-            case Protocolo.PARAR:
-                processarParada();
-                break;
-                
-            case Protocolo.CHAT:
-                if (partes.length >= 2) {
-                    String textoChat = partes[1];
-                    processarChat(textoChat);
-                }
-                break;
-                
-            default:
-                enviarMensagem(Protocolo.criarMensagemErro("Comando desconhecido: " + comando));
+        if (nome.length() > Protocolo.TAMANHO_MAXIMO_NOME) {
+            enviarMensagem(Protocolo.criarMensagemErro(
+                "Nome muito longo (máximo " + Protocolo.TAMANHO_MAXIMO_NOME + " caracteres)"));
+            return;
         }
+        
+        // ';' separa os jogadores no placar completo e '|' os campos; o nome
+        // não é o último campo do PLACAR nem do MENSAGEM
+        jogador = new Jogador(Protocolo.removerQuebrasLinha(nome).replace(";", "").replace("|", ""));
+        // O token é gravado no diário com a entrada na sala
+        jogador.setToken(servidor.criarToken());
+        sala = servidor.adicionarJogador(jogador, this);
+        token = servidor.abrirSessao(jogador, sala, this);
+        
+        enviarMensagem(Protocolo.criarMensagemConectado(
+            "Bem-vindo ao Jogo do Milhão - TI! Aguardando outros jogadores...", token
+        ));
+        
+        // Verifica se a sala já pode iniciar o jogo
+        sala.verificarInicioJogo();
     }
     
     /**
-     * Conecta um jogador ao servidor
+     * Liga esta conexão ao jogador de uma sessão anterior
+     * O jogador volta com nível, prêmio e pergunta atual; só esta conexão
+     * recebe o placar e a pergunta
      */
-    private void conectarJogador(String nome) {
+    private void retomarSessao(String tokenSessao, boolean pedeBinario) {
         if (jogador != null) {
             enviarMensagem(Protocolo.criarMensagemErro("Já está conectado"));
             return;
         }
         
-        jogador = new Jogador(nome, socket);
-        servidor.adicionarJogador(jogador, this);
+        SessoesJogadores.Sessao sessao = servidor.retomarSessao(tokenSessao, this);
+        if (sessao == null) {
+            enviarMensagem(Protocolo.criarMensagemErro("Sessão inválida ou expirada"));
+            return;
+        }
         
-        enviarMensagem(Protocolo.criarMensagemConectado(
-            "Bem-vindo ao Jogo do Milhão - TI! Aguardando outros jogadores..."
-        ));
+        binario = pedeBinario;
+        token = tokenSessao;
+        jogador = sessao.getJogador();
+        sala = sessao.getSala();
         
-        // Verifica se pode iniciar o jogo
-        servidor.verificarInicioJogo();
+        enviarMensagem(Protocolo.criarMensagemConectado("Sessão retomada", token));
+        sala.retomarJogador(jogador, this);
     }
     
     /**
@@ -118,7 +176,7 @@ public class GerenciadorCliente extends Thread {
             return;
         }
         
-        if (!servidor.isJogoIniciado()) {
+        if (!sala.isJogoIniciado()) {
             enviarMensagem(Protocolo.criarMensagemErro("O jogo ainda não começou"));
             return;
         }
@@ -128,22 +186,28 @@ public class GerenciadorCliente extends Thread {
             return;
         }
         
-        boolean acertou = servidor.processarResposta(jogador, resposta);
-        double premio = jogador.getPremioAtual();
-        int nivel = jogador.getNivelAtual();
-        
-        enviarMensagem(Protocolo.criarMensagemResultado(acertou, premio, nivel));
+        Jogador atual = jogador;
+        Sala salaAtual = sala;
+        boolean acertou = salaAtual.processarResposta(atual, resposta);
+        double premio = atual.getPremioAtual();
+        int nivel = atual.getNivelAtual();
         
-        // Envia estatísticas atualizadas
-        servidor.broadcastEstatisticas();
-        
-        // Se acertou, envia próxima pergunta
-        if (acertou && jogador.estaNoJogo()) {
-            Pergunta proximaPergunta = servidor.obterPerguntaParaJogador(jogador);
-            if (proximaPergunta != null) {
-                enviarMensagem(Protocolo.criarMensagemPergunta(proximaPergunta));
+        // O resultado só é confirmado depois que o diário o gravou, mas
+        // quem leu o comando (no modo NIO, o loop de eventos) não espera:
+        // resultado e próxima pergunta saem da thread do diário. A
+        // alteração do placar é publicada pela sala no próximo tick
+        salaAtual.aposGravar(() -> {
+            enviarQuadro(Protocolo.criarQuadroResultado(acertou, premio, nivel));
+            
+            // Se acertou, envia próxima pergunta; sem conexão, ela fica
+            // para quem retomar a sessão
+            if (acertou && atual.estaNoJogo() && conectado) {
+                Pergunta proximaPergunta = salaAtual.obterPerguntaParaJogador(atual);
+                if (proximaPergunta != null) {
+                    enviarQuadro(proximaPergunta.getQuadro());
+                }
             }
-        }
+        });
     }
     
     /**
@@ -155,7 +219,7 @@ public class GerenciadorCliente extends Thread {
             return;
         }
         
-        if (!servidor.isJogoIniciado()) {
+        if (!sala.isJogoIniciado()) {
             enviarMensagem(Protocolo.criarMensagemErro("O jogo ainda não começou"));
             return;
         }
@@ -165,58 +229,155 @@ public class GerenciadorCliente extends Thread {
             return;
         }
         
-        servidor.processarParada(jogador);
-        enviarMensagem(Protocolo.criarMensagemResultado(true, jogador.getPremioAtual(), jogador.getNivelAtual()));
-        servidor.broadcastEstatisticas();
+        sala.processarParada(jogador);
+        Quadro resultado = Protocolo.criarQuadroResultado(true, jogador.getPremioAtual(), jogador.getNivelAtual());
+        sala.aposGravar(() -> enviarQuadro(resultado));
     }
     
     /**
      * Processa mensagem de chat
+     * Acima do limite do cliente a mensagem é descartada; o aviso é
+     * enviado só na primeira de cada sequência descartada
      */
     private void processarChat(String texto) {
         if (jogador == null) {
             return;
         }
         
-        servidor.broadcastChat(jogador.getNome(), texto);
+        if (baldeChat != null && !baldeChat.consumir()) {
+            if (!chatLimitado) {
+                chatLimitado = true;
+                enviarMensagem(Protocolo.criarMensagemErro("Mensagens demais no chat; aguarde um pouco"));
+            }
+            return;
+        }
+        chatLimitado = false;
+        
+        if (!sala.broadcastChat(jogador.getNome(), texto)) {
+            enviarMensagem(Protocolo.criarMensagemErro("Chat da sala congestionado; mensagem descartada"));
+        }
     }
     
     /**
      * Envia mensagem para o cliente
      */
     public void enviarMensagem(String mensagem) {
-        if (saida != null && conectado) {
-            saida.println(mensagem);
+        enviarQuadro(Quadro.de(mensagem));
+    }
+    
+    /**
+     * Envia um quadro já codificado (possivelmente compartilhado)
+     * Apenas enfileira o quadro, sem fazer E/S; pode ser chamado com o lock
+     * da sala adquirido
+     */
+    public void enviarQuadro(Quadro quadro) {
+        if (!conectado) {
+            return;
         }
+        
+        switch (filaSaida.oferecer(quadro)) {
+            case ENFILEIRADA:
+                if (filaSaida.agendarDrenagem()) {
+                    iniciarDrenagem();
+                }
+                break;
+                
+            case DESCARTADA:
+                break;
+                
+            case TRANSBORDOU:
+                // A desconexão não pode ser feita aqui: quem chama pode estar
+                // percorrendo os clientes da sala durante um broadcast
+                Log.aviso("cliente_lento_desconectado", "jogador", jogador != null ? jogador.getNome() : "Desconhecido");
+                conectado = false;
+                filaSaida.limpar();
+                agendarDesconexao();
+                break;
+        }
+    }
+    
+    /**
+     * Registra que chegaram dados do cliente (chamado pelo transporte)
+     */
+    protected void registrarAtividade() {
+        ultimaAtividade = System.nanoTime();
+    }
+    
+    public long getUltimaAtividade() {
+        return ultimaAtividade;
     }
     
     /**
-     * Desconecta o cliente
+     * Mensagens aguardando na fila de saída
+     */
+    public int getTamanhoFilaSaida() {
+        return filaSaida.getTamanho();
+    }
+    
+    /**
+     * Encerra uma conexão que não respondeu aos PINGs (conexão meio aberta:
+     * o cliente sumiu sem fechar o socket)
+     * Para de receber mensagens na hora; a desconexão é concluída pelo
+     * transporte, como a de um cliente lento
+     */
+    public void encerrarPorOciosidade() {
+        conectado = false;
+        filaSaida.limpar();
+        agendarDesconexao();
+    }
+    
+    /**
+     * Aciona o escritor da conexão para esvaziar a fila de saída
+     */
+    protected abstract void iniciarDrenagem();
+    
+    /**
+     * Providencia a desconexão fora da thread atual
+     */
+    protected abstract void agendarDesconexao();
+    
+    /**
+     * Fecha os recursos de comunicação do transporte
+     */
+    protected abstract void fecharConexao();
+    
+    /**
+     * Desconecta o cliente (chamadas repetidas são ignoradas)
      */
     public void desconectar() {
         conectado = false;
+        if (!desconectado.compareAndSet(false, true)) {
+            return;
+        }
+        servidor.removerConexao(this);
         
+        // Com a partida em andamento o jogador pode ficar na sala à espera
+        // de um RETOMAR (SessoesJogadores)
         if (jogador != null) {
-            servidor.removerJogador(jogador, this);
+            servidor.desconectarSessao(token, this);
         }
         
-        try {
-            if (entrada != null) entrada.close();
-            if (saida != null) saida.close();
-            if (socket != null && !socket.isClosed()) socket.close();
-        } catch (IOException e) {
-            System.err.println("Erro ao fechar conexão: " + e.getMessage());
-        }
+        fecharConexao();
         
-        System.out.println("Cliente desconectado: " + (jogador != null ? jogador.getNome() : "Desconhecido"));
+        Log.info("cliente_desconectado", "jogador", jogador != null ? jogador.getNome() : "Desconhecido");
     }
     
     public Jogador getJogador() {
         return jogador;
     }
     
+    public Sala getSala() {
+        return sala;
+    }
+    
     public boolean isConectado() {
         return conectado;
     }
+    
+    /**
+     * Indica se a conexão já usa o protocolo binário
+     */
+    public boolean isBinario() {
+        return binario;
+    }
 }
-
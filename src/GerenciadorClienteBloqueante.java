@@ -0,0 +1,185 @@
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gerenciador de cliente baseado em E/S bloqueante
+ * Cada cliente conectado ocupa uma thread (de plataforma ou virtual)
+ * dedicada, bloqueada na leitura do socket
+ */
+public class GerenciadorClienteBloqueante extends GerenciadorCliente implements Runnable {
+    private static final long ESPERA_QUADRO_FINAL_MS = 1000;
+    
+    private DataInputStream entrada;
+    private OutputStream saida;
+    private byte[] linha = new byte[256];
+    
+    // Último quadro antes de fechar a conexão (ERRO de linha longa demais);
+    // o escritor avisa pelo latch quando ele chega ao socket
+    private volatile Quadro quadroFinal;
+    private final CountDownLatch quadroFinalEnviado = new CountDownLatch(1);
+    
+    public GerenciadorClienteBloqueante(Socket socket, Servidor servidor) {
+        super(socket, servidor);
+        
+        try {
+            // Lido byte a byte pelo próprio gerenciador: o CONECTAR pode
+            // trocar para o protocolo binário logo após a primeira linha
+            this.entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.saida = new BufferedOutputStream(socket.getOutputStream());
+        } catch (IOException e) {
+            Log.erro("erro_streams", "erro", e.getMessage());
+            conectado = false;
+        }
+    }
+    
+    @Override
+    public void run() {
+        try {
+            // Aguarda conexão do cliente
+            while (conectado) {
+                if (binario) {
+                    ByteBuffer quadro = ProtocoloBinario.lerQuadro(entrada, ProtocoloBinario.TAMANHO_MAXIMO_CLIENTE);
+                    if (quadro == null) break;
+                    registrarAtividade();
+                    ProtocoloBinario.despachar(quadro, this);
+                } else {
+                    int tamanho = lerLinha();
+                    if (tamanho < 0) break;
+                    if (tamanho > TAMANHO_MAXIMO_LINHA) {
+                        recusarLinhaLonga();
+                        break;
+                    }
+                    registrarAtividade();
+                    AnalisadorComandos.analisar(linha, 0, tamanho, this);
+                }
+            }
+        } catch (IOException e) {
+            Log.aviso("erro_comunicacao", "erro", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            Log.aviso("quadro_invalido", "erro", e.getMessage());
+        } finally {
+            desconectar();
+        }
+    }
+    
+    /**
+     * Lê uma linha para o buffer reutilizado 'linha', sem a quebra de linha
+     * Retorna o tamanho lido, -1 no fim da conexão, ou um valor maior que
+     * TAMANHO_MAXIMO_LINHA se a linha passou do limite (sem lê-la inteira)
+     */
+    private int lerLinha() throws IOException {
+        int tamanho = 0;
+        int b;
+        while ((b = entrada.read()) >= 0 && b != '\n') {
+            if (tamanho == TAMANHO_MAXIMO_LINHA) {
+                return tamanho + 1;
+            }
+            if (tamanho == linha.length) {
+                linha = Arrays.copyOf(linha, tamanho * 2);
+            }
+            linha[tamanho++] = (byte) b;
+        }
+        
+        if (b < 0 && tamanho == 0) {
+            return -1;
+        }
+        
+        return (tamanho > 0 && linha[tamanho - 1] == '\r') ? tamanho - 1 : tamanho;
+    }
+    
+    /**
+     * Responde ERRO e espera, por pouco tempo, o escritor entregá-lo antes
+     * que a conexão seja fechada
+     */
+    private void recusarLinhaLonga() {
+        Quadro erro = Quadro.de(Protocolo.criarMensagemErro("Mensagem muito longa"));
+        quadroFinal = erro;
+        enviarQuadro(erro);
+        try {
+            quadroFinalEnviado.await(ESPERA_QUADRO_FINAL_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Agenda o escritor da conexão no executor de escrita do servidor
+     */
+    @Override
+    protected void iniciarDrenagem() {
+        try {
+            servidor.getExecutorEscrita().execute(this::drenarFilaSaida);
+        } catch (RejectedExecutionException e) {
+            // servidor em encerramento
+        }
+    }
+    
+    /**
+     * Escreve todos os quadros pendentes com um único flush por lote
+     * Só roda um escritor por conexão de cada vez
+     */
+    private void drenarFilaSaida() {
+        do {
+            try {
+                Quadro quadro;
+                while ((quadro = filaSaida.retirar()) != null) {
+                    quadro.escreverEm(saida, binario);
+                    Metricas.registrarEnvio(quadro, quadro.getTamanho(binario));
+                    if (quadro == quadroFinal) {
+                        saida.flush();
+                        quadroFinalEnviado.countDown();
+                    }
+                }
+                saida.flush();
+            } catch (IOException e) {
+                encerrarEscrita();
+            } catch (RuntimeException e) {
+                // Sem o catch a marca de drenagem ficaria presa e a conexão
+                // nunca mais receberia nada
+                Log.erro("erro_escrita", "erro", e);
+                encerrarEscrita();
+            }
+        } while (filaSaida.concluirDrenagem());
+    }
+    
+    /**
+     * Falha na escrita: descarta o que está pendente e encerra a conexão
+     */
+    private void encerrarEscrita() {
+        conectado = false;
+        filaSaida.limpar();
+        agendarDesconexao();
+    }
+    
+    /**
+     * Fecha o socket; a thread de leitura recebe a exceção e conclui a
+     * desconexão
+     */
+    @Override
+    protected void agendarDesconexao() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            Log.aviso("erro_fechar_conexao", "erro", e.getMessage());
+        }
+    }
+    
+    /**
+     * Fecha streams e socket do cliente
+     */
+    @Override
+    protected void fecharConexao() {
+        try {
+            // Fechar o socket também fecha seus streams e libera a thread
+            // bloqueada na leitura
+            if (socket != null && !socket.isClosed()) socket.close();
+        } catch (IOException e) {
+            Log.aviso("erro_fechar_conexao", "erro", e.getMessage());
+        }
+    }
+}
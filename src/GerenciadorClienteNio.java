@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Gerenciador de cliente para o modo NIO
+ * Não possui thread própria: leituras e escritas são feitas pelo
+ * LoopEventos ao qual o canal está registrado, usando buffers por conexão
+ * e enquadramento por linha ('\n') ou por quadro binário
+ */
+public class GerenciadorClienteNio extends GerenciadorCliente {
+    private static final int TAMANHO_BUFFER_LEITURA = TAMANHO_MAXIMO_LINHA;
+    private static final int MAXIMO_PENDENTES = 64;
+    
+    private final SocketChannel canal;
+    private final LoopEventos loop;
+    private final ByteBuffer bufferLeitura;
+    private final ArrayDeque<ByteBuffer> pendentes;
+    private SelectionKey chave;
+    
+    public GerenciadorClienteNio(SocketChannel canal, LoopEventos loop, Servidor servidor) {
+        super(canal.socket(), servidor);
+        this.canal = canal;
+        this.loop = loop;
+        this.bufferLeitura = ByteBuffer.allocate(TAMANHO_BUFFER_LEITURA);
+        this.pendentes = new ArrayDeque<>();
+    }
+    
+    /**
+     * Registra o canal no seletor do loop (chamado pela thread do loop)
+     */
+    void registrar(Selector seletor) throws IOException {
+        chave = canal.register(seletor, SelectionKey.OP_READ, this);
+    }
+    
+    /**
+     * Lê os bytes disponíveis e processa as linhas completas
+     * (chamado pela thread do loop)
+     */
+    void aoLer() {
+        int lidos;
+        try {
+            lidos = canal.read(bufferLeitura);
+        } catch (IOException e) {
+            Log.aviso("erro_comunicacao", "erro", e.getMessage());
+            desconectar();
+            return;
+        }
+        
+        if (lidos < 0) {
+            desconectar();
+            return;
+        }
+        registrarAtividade();
+        
+        bufferLeitura.flip();
+        try {
+            extrairMensagens();
+        } catch (IllegalArgumentException e) {
+            Log.aviso("quadro_invalido", "erro", e.getMessage());
+            desconectar();
+            return;
+        }
+        bufferLeitura.compact();
+        
+        // Buffer cheio sem nenhuma mensagem completa: mensagem grande demais
+        if (conectado && !bufferLeitura.hasRemaining()) {
+            enviarMensagem(Protocolo.criarMensagemErro("Mensagem muito longa"));
+            desconectar();
+        }
+    }
+    
+    /**
+     * Processa as mensagens completas do buffer de leitura
+     * O formato é consultado a cada mensagem, pois o CONECTAR pode trocar
+     * o protocolo no meio do buffer
+     */
+    private void extrairMensagens() {
+        while (conectado && bufferLeitura.hasRemaining()) {
+            boolean extraiu = binario
+                ? ProtocoloBinario.extrairQuadro(bufferLeitura, this)
+                : extrairLinha();
+            if (!extraiu) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Processa a próxima linha completa, se houver
+     */
+    private boolean extrairLinha() {
+        byte[] dados = bufferLeitura.array();
+        int inicio = bufferLeitura.position();
+        int limite = bufferLeitura.limit();
+        
+        for (int i = inicio; i < limite; i++) {
+            if (dados[i] == '\n') {
+                int fim = (i > inicio && dados[i - 1] == '\r') ? i - 1 : i;
+                bufferLeitura.position(i + 1);
+                AnalisadorComandos.analisar(dados, inicio, fim, this);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Pede ao loop que esvazie a fila de saída
+     */
+    @Override
+    protected void iniciarDrenagem() {
+        loop.solicitarEscrita(this);
+    }
+    
+    /**
+     * A desconexão é sempre concluída pela thread do loop
+     */
+    @Override
+    protected void agendarDesconexao() {
+        loop.executar(this::desconectar);
+    }
+    
+    /**
+     * Move a fila de saída para os buffers pendentes e escreve o máximo
+     * possível com uma escrita agrupada; o que sobrar aguarda o canal ficar
+     * gravável (chamado pela thread do loop)
+     */
+    void aoEscrever() {
+        if (chave == null || !chave.isValid()) {
+            return;
+        }
+        
+        try {
+            do {
+                // Limita o que sai da fila limitada enquanto o socket não
+                // escoa, para que o transbordo continue valendo
+                Quadro quadro;
+                while (pendentes.size() < MAXIMO_PENDENTES && (quadro = filaSaida.retirar()) != null) {
+                    ByteBuffer dados = quadro.buffer(binario);
+                    pendentes.add(dados);
+                    Metricas.registrarEnvio(quadro, dados.remaining());
+                }
+                
+                canal.write(pendentes.toArray(new ByteBuffer[0]));
+                while (!pendentes.isEmpty() && !pendentes.peek().hasRemaining()) {
+                    pendentes.poll();
+                }
+                
+                if (!pendentes.isEmpty()) {
+                    // Socket cheio: continua quando o canal ficar gravável
+                    chave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            } while (filaSaida.getTamanho() > 0 || filaSaida.concluirDrenagem());
+            
+            chave.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            Log.aviso("erro_envio", "erro", e.getMessage());
+            desconectar();
+        }
+    }
+    
+    /**
+     * Cancela o registro no seletor e fecha o canal
+     */
+    @Override
+    protected void fecharConexao() {
+        try {
+            if (chave != null) chave.cancel();
+            canal.close();
+        } catch (IOException e) {
+            Log.aviso("erro_fechar_conexao", "erro", e.getMessage());
+        }
+    }
+}
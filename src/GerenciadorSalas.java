@@ -0,0 +1,142 @@
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saguão do servidor: distribui os jogadores entre salas independentes
+ * O lock do saguão só protege a lista de salas; as partidas em si usam o
+ * lock de cada sala, permitindo que várias rodem em paralelo
+ */
+public class GerenciadorSalas {
+    private final int jogadoresPorSala;
+    private final ScheduledExecutorService agendador;
+    private final long intervaloPlacarMs;
+    private final long intervaloChatMs;
+    private final RodaTemporizadores roda; // null sem prazo de resposta
+    private final long tempoRespostaMs;
+    private final ConfiguracaoServidor.TempoEsgotado tempoEsgotado;
+    private final ConfiguracaoServidor.EstadoJogadores estadoJogadores;
+    private final Long semente;
+    private final List<Sala> salas;
+    private DiarioEventos diario; // null sem --diario
+    private final ReentrantLock lock = new ReentrantLock();
+    private int proximoId;
+    
+    public GerenciadorSalas(int jogadoresPorSala, ScheduledExecutorService agendador, long intervaloPlacarMs,
+                            long intervaloChatMs, RodaTemporizadores roda, long tempoRespostaMs,
+                            ConfiguracaoServidor.TempoEsgotado tempoEsgotado,
+                            ConfiguracaoServidor.EstadoJogadores estadoJogadores, Long semente) {
+        this.jogadoresPorSala = jogadoresPorSala;
+        this.agendador = agendador;
+        this.intervaloPlacarMs = intervaloPlacarMs;
+        this.intervaloChatMs = intervaloChatMs;
+        this.roda = roda;
+        this.tempoRespostaMs = tempoRespostaMs;
+        this.tempoEsgotado = tempoEsgotado;
+        this.estadoJogadores = estadoJogadores;
+        this.semente = semente;
+        this.salas = new ArrayList<>();
+        this.proximoId = 1;
+    }
+    
+    /**
+     * Passa a registrar as partidas das novas salas no diário e recoloca
+     * no saguão as partidas recuperadas dele, retornando as suas salas
+     * Salas novas recebem números maiores que os do diário
+     */
+    public List<Sala> usarDiario(DiarioEventos diario) {
+        lock.lock();
+        try {
+            this.diario = diario;
+            List<Sala> recuperadas = new ArrayList<>();
+            for (EstadoJogo estadoJogo : diario.getPartidasRecuperadas()) {
+                Sala sala = criarSala(estadoJogo);
+                salas.add(sala);
+                recuperadas.add(sala);
+                Log.info("sala_recuperada", "sala", estadoJogo.getIdSala(),
+                    "jogadores", estadoJogo.getJogadores().getTamanho());
+            }
+            proximoId = Math.max(proximoId, diario.getMaiorIdSala() + 1);
+            return recuperadas;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Coloca o jogador na primeira sala aberta, criando uma nova se preciso
+     */
+    public Sala adicionarJogador(Jogador jogador, GerenciadorCliente gerenciador) {
+        lock.lock();
+        try {
+            Sala sala = null;
+            for (Sala candidata : salas) {
+                if (candidata.isAceitandoJogadores()) {
+                    sala = candidata;
+                    break;
+                }
+            }
+            
+            if (sala == null) {
+                // Cada sala tem a sua semente, derivada da global e do número da sala
+                int idSala = proximoId++;
+                Long sementeSala = semente == null ? null : new SplittableRandom(semente + idSala).nextLong();
+                EstadoJogo estadoJogo = new EstadoJogo(estadoJogadores, sementeSala, diario, idSala);
+                sala = criarSala(estadoJogo);
+                salas.add(sala);
+                Log.info("sala_criada", "sala", sala.getId(), "salas", salas.size());
+            }
+            
+            // Adicionado ainda sob o lock do saguão para que a vaga não seja
+            // ocupada por outro jogador entre a escolha e a entrada
+            sala.adicionarJogador(jogador, gerenciador);
+            return sala;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private Sala criarSala(EstadoJogo estadoJogo) {
+        return new Sala(estadoJogo.getIdSala(), jogadoresPorSala, agendador, intervaloPlacarMs,
+            intervaloChatMs, roda, tempoRespostaMs, tempoEsgotado, estadoJogo);
+    }
+    
+    /**
+     * Retira o jogador da sala e descarta a sala se ela ficou vazia
+     */
+    public void removerJogador(Jogador jogador, Sala sala) {
+        sala.removerJogador(jogador);
+        
+        lock.lock();
+        try {
+            if (sala.isVazia() && salas.remove(sala)) {
+                Log.info("sala_encerrada", "sala", sala.getId(), "salas", salas.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Retorna as partidas das salas existentes
+     */
+    public List<EstadoJogo> getPartidas() {
+        List<EstadoJogo> partidas = new ArrayList<>();
+        for (Sala sala : getSalas()) {
+            partidas.add(sala.getEstadoJogo());
+        }
+        return partidas;
+    }
+    
+    /**
+     * Retorna as salas existentes
+     */
+    public List<Sala> getSalas() {
+        lock.lock();
+        try {
+            return new ArrayList<>(salas);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Collection;
+
 /**
  * Classe responsável pela interface textual do cliente
  */
@@ -53,10 +55,26 @@ public class InterfaceUsuario {
     }
     
     /**
-     * Mostra estatísticas dos jogadores
+     * Mostra o fim do prazo para responder a pergunta
+     */
+    public void mostrarTempoEsgotado(boolean eliminado, double premio, int nivel) {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("⏱ TEMPO ESGOTADO!");
+        if (eliminado) {
+            System.out.println("Você foi eliminado!");
+            System.out.println("Prêmio final: R$ 0,00");
+        } else {
+            System.out.println("Você parou no nível " + nivel);
+            System.out.println("Prêmio final: R$ " + String.format("%.2f", premio));
+        }
+        System.out.println("=".repeat(60));
+    }
+    
+    /**
+     * Mostra o placar dos jogadores
      */
-    public void mostrarEstatisticas(String estatisticas) {
-        if (estatisticas == null || estatisticas.isEmpty()) {
+    public void mostrarPlacar(Collection<PlacarCliente.Entrada> jogadores) {
+        if (jogadores.isEmpty()) {
             return;
         }
         
@@ -64,20 +82,9 @@ public class InterfaceUsuario {
         System.out.println("PLACAR ATUAL:");
         System.out.println("-".repeat(60));
         
-        String[] jogadores = estatisticas.split(";");
-        for (String jogadorInfo : jogadores) {
-            if (jogadorInfo.isEmpty()) continue;
-            
-            String[] partes = jogadorInfo.split("\\|");
-            if (partes.length >= 4) {
-                String nome = partes[0];
-                int nivel = Integer.parseInt(partes[1]);
-                double premio = Double.parseDouble(partes[2]);
-                String status = partes[3];
-                
-                System.out.printf("%-20s | Nível: %2d | Prêmio: R$ %10.2f | %s%n",
-                    nome, nivel, premio, status);
-            }
+        for (PlacarCliente.Entrada jogador : jogadores) {
+            System.out.printf("%-20s | Nível: %2d | Prêmio: R$ %10.2f | %s%n",
+                jogador.getNome(), jogador.getNivel(), jogador.getPremio(), jogador.getStatus());
         }
         System.out.println("-".repeat(60));
     }
@@ -1,77 +1,247 @@
-import java.net.Socket;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Classe que representa um jogador conectado ao servidor
+ * Nível, prêmio e status ficam em um Estado próprio do jogador ou, quando
+ * a partida usa a TabelaJogadores, só na linha do jogador na tabela: o
+ * objeto guarda então apenas identificação, sessão e pergunta pendente
  */
 public class Jogador {
-    private String nome;
-    private Socket socket;
-    private int nivelAtual;
-    private double premioAtual;
-    private boolean eliminado;
-    private boolean parou;
-    
-    public Jogador(String nome, Socket socket) {
+    private static final AtomicReferenceFieldUpdater<Jogador, Pergunta> PERGUNTA_ATUAL =
+        AtomicReferenceFieldUpdater.newUpdater(Jogador.class, Pergunta.class, "perguntaAtual");
+    private static final AtomicReferenceFieldUpdater<Jogador, RodaTemporizadores.Temporizador> PRAZO_RESPOSTA =
+        AtomicReferenceFieldUpdater.newUpdater(Jogador.class, RodaTemporizadores.Temporizador.class, "prazoResposta");
+    
+    /**
+     * Nível, prêmio e status de um jogador fora da tabela
+     */
+    private static final class Estado {
+        private int nivel;
+        private double premio;
+        private boolean eliminado;
+        private boolean parou;
+    }
+    
+    private int id;
+    private final String nome;
+    private String token; // sessão (SessoesJogadores), gravada no diário
+    private volatile Pergunta perguntaAtual;
+    private volatile RodaTemporizadores.Temporizador prazoResposta;
+    
+    // Só um dos dois: o Estado (criado na primeira mudança; antes disso
+    // valem nível 0, prêmio 0 e ATIVO) ou a tabela da partida
+    private Estado estado;
+    private volatile TabelaJogadores tabela;
+    
+    public Jogador(String nome) {
+        this.id = -1;
         this.nome = nome;
-        this.socket = socket;
-        this.nivelAtual = 0;
-        this.premioAtual = 0;
-        this.eliminado = false;
-        this.parou = false;
+    }
+    
+    /**
+     * Identificador do jogador na sala, usado nas atualizações de placar
+     * e como índice nos registros da sala
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Atribuído pela sala quando o jogador entra
+     */
+    public void setId(int id) {
+        this.id = id;
     }
     
     public String getNome() {
         return nome;
     }
     
-    public Socket getSocket() {
-        return socket;
+    /**
+     * Token da sessão do jogador, ou null
+     * Vai para o diário junto com a entrada na sala, para que o RETOMAR
+     * funcione também depois de o servidor reiniciar
+     */
+    public String getToken() {
+        return token;
+    }
+    
+    /**
+     * Atribuído antes de o jogador entrar na sala
+     */
+    public void setToken(String token) {
+        this.token = token;
     }
     
     public int getNivelAtual() {
-        return nivelAtual;
+        TabelaJogadores t = tabela;
+        Estado e = estado;
+        return t != null ? t.getNivel(id) : (e != null ? e.nivel : 0);
     }
     
     public void setNivelAtual(int nivelAtual) {
-        this.nivelAtual = nivelAtual;
+        TabelaJogadores t = tabela;
+        if (t != null) {
+            t.setNivel(id, nivelAtual);
+        } else {
+            estado().nivel = nivelAtual;
+        }
     }
     
     public double getPremioAtual() {
-        return premioAtual;
+        TabelaJogadores t = tabela;
+        Estado e = estado;
+        return t != null ? t.getPremio(id) : (e != null ? e.premio : 0);
     }
     
     public void setPremioAtual(double premioAtual) {
-        this.premioAtual = premioAtual;
+        TabelaJogadores t = tabela;
+        if (t != null) {
+            t.setPremio(id, premioAtual);
+        } else {
+            estado().premio = premioAtual;
+        }
     }
     
     public boolean isEliminado() {
-        return eliminado;
+        TabelaJogadores t = tabela;
+        Estado e = estado;
+        return t != null ? t.getStatus(id) == TabelaJogadores.ELIMINADO : (e != null && e.eliminado);
     }
     
     public void setEliminado(boolean eliminado) {
-        this.eliminado = eliminado;
+        TabelaJogadores t = tabela;
+        if (t == null) {
+            estado().eliminado = eliminado;
+        } else if (eliminado) {
+            t.setStatus(id, TabelaJogadores.ELIMINADO);
+        } else if (t.getStatus(id) == TabelaJogadores.ELIMINADO) {
+            t.setStatus(id, TabelaJogadores.ATIVO);
+        }
     }
     
     public boolean isParou() {
-        return parou;
+        TabelaJogadores t = tabela;
+        Estado e = estado;
+        return t != null ? t.getStatus(id) == TabelaJogadores.PAROU : (e != null && e.parou);
     }
     
     public void setParou(boolean parou) {
-        this.parou = parou;
+        TabelaJogadores t = tabela;
+        if (t == null) {
+            estado().parou = parou;
+        } else if (parou) {
+            if (t.getStatus(id) == TabelaJogadores.ATIVO) {
+                t.setStatus(id, TabelaJogadores.PAROU);
+            }
+        } else if (t.getStatus(id) == TabelaJogadores.PAROU) {
+            t.setStatus(id, TabelaJogadores.ATIVO);
+        }
+    }
+    
+    /**
+     * Estado fora da tabela, criado na primeira mudança (chamado com o lock
+     * da partida)
+     */
+    private Estado estado() {
+        Estado e = estado;
+        if (e == null) {
+            e = new Estado();
+            estado = e;
+        }
+        return e;
+    }
+    
+    /**
+     * Passa a guardar nível, prêmio e status só na linha do jogador na
+     * tabela (chamado com o lock da partida, depois de atribuído o
+     * identificador)
+     */
+    public void vincular(TabelaJogadores tabela) {
+        tabela.adicionar(id, getNivelAtual(), getPremioAtual(), ContagemJogadores.statusDe(this));
+        this.tabela = tabela;
+        estado = null;
+    }
+    
+    /**
+     * Traz o estado de volta para o objeto e libera a linha na tabela
+     * O jogador que saiu continua legível (placar de saída, resultado final)
+     */
+    public void desvincular() {
+        TabelaJogadores t = tabela;
+        if (t == null) {
+            return;
+        }
+        Estado e = new Estado();
+        e.nivel = t.getNivel(id);
+        e.premio = t.getPremio(id);
+        e.eliminado = t.getStatus(id) == TabelaJogadores.ELIMINADO;
+        e.parou = t.getStatus(id) == TabelaJogadores.PAROU;
+        estado = e;
+        tabela = null;
+        t.remover(id);
+    }
+    
+    /**
+     * Pergunta aguardando resposta, ou null
+     */
+    public Pergunta getPerguntaAtual() {
+        return perguntaAtual;
+    }
+    
+    public void setPerguntaAtual(Pergunta perguntaAtual) {
+        this.perguntaAtual = perguntaAtual;
+    }
+    
+    /**
+     * Retira a pergunta atual de forma atômica: se chegarem duas respostas,
+     * só uma delas recebe a pergunta
+     */
+    public Pergunta tomarPerguntaAtual() {
+        return PERGUNTA_ATUAL.getAndSet(this, null);
+    }
+    
+    /**
+     * Retira a pergunta atual só se ela ainda for a informada (prazo de
+     * resposta vencido): uma resposta que chegou antes tem prioridade
+     */
+    public boolean tomarPerguntaAtual(Pergunta pergunta) {
+        return PERGUNTA_ATUAL.compareAndSet(this, pergunta, null);
+    }
+    
+    /**
+     * Prazo de resposta da pergunta atual; o anterior, se houver, é
+     * cancelado
+     */
+    public void setPrazoResposta(RodaTemporizadores.Temporizador prazo) {
+        RodaTemporizadores.Temporizador anterior = PRAZO_RESPOSTA.getAndSet(this, prazo);
+        if (anterior != null) {
+            anterior.cancelar();
+        }
+    }
+    
+    public void cancelarPrazoResposta() {
+        setPrazoResposta(null);
     }
     
     /**
      * Avança para o próximo nível
      */
     public void avancarNivel() {
-        this.nivelAtual++;
+        setNivelAtual(getNivelAtual() + 1);
     }
     
     /**
      * Verifica se o jogador ainda está no jogo
      */
     public boolean estaNoJogo() {
-        return !eliminado && !parou;
+        return !isEliminado() && !isParou();
+    }
+    
+    /**
+     * Status do jogador como exibido no placar
+     */
+    public String getStatus() {
+        return isEliminado() ? "ELIMINADO" : (isParou() ? "PAROU" : "ATIVO");
     }
 }
-
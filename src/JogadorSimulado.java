@@ -0,0 +1,240 @@
+import java.io.*;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jogador sem interface usado pelo GeradorCarga
+ * Joga partidas seguidas enquanto o teste durar: ao ser eliminado ou ao
+ * fim da partida, reconecta como um novo jogador
+ */
+public class JogadorSimulado implements Runnable {
+    private final GeradorCarga gerador;
+    private final ConfiguracaoCarga configuracao;
+    private final int numero;
+    private volatile Socket socket;
+    private OutputStream saida; // da conexão atual; só a thread do jogador escreve
+    
+    // Chats já devidos, contados pelo agendador e enviados pela thread do
+    // jogador: o agendador compartilhado nunca escreve em um socket
+    private final AtomicInteger chatsPendentes = new AtomicInteger();
+    private long respostaEnviadaEm;
+    private boolean aguardandoResultado;
+    private boolean partidaFinalizada;
+    
+    public JogadorSimulado(GeradorCarga gerador, int numero) {
+        this.gerador = gerador;
+        this.configuracao = gerador.getConfiguracao();
+        this.numero = numero;
+    }
+    
+    @Override
+    public void run() {
+        agendarChat();
+        
+        int partida = 0;
+        while (gerador.isRodando()) {
+            if (!jogarPartida(partida++)) {
+                // Falha ao conectar: espera um pouco antes de tentar de novo
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Conecta, joga até ser eliminado ou a partida acabar e desconecta
+     * Retorna false se não foi possível conectar
+     */
+    private boolean jogarPartida(int partida) {
+        try (Socket conexao = new Socket(configuracao.getHost(), configuracao.getPorta())) {
+            conexao.setTcpNoDelay(true);
+            InputStream entrada = new BufferedInputStream(conexao.getInputStream());
+            BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+            DataInputStream entradaBinaria = new DataInputStream(entrada);
+            saida = new BufferedOutputStream(conexao.getOutputStream());
+            socket = conexao;
+            chatsPendentes.set(0);
+            aguardandoResultado = false;
+            partidaFinalizada = false;
+            
+            // O CONECTAR é sempre em texto
+            String nome = "Simulado" + numero + "-" + partida;
+            escrever((configuracao.isBinario()
+                ? Protocolo.criarMensagemConectarBinario(nome)
+                : Protocolo.criarMensagemConectar(nome)) + "\n");
+            gerador.registrarPartida();
+            
+            while (gerador.isRodando()) {
+                String[] partes;
+                if (configuracao.isBinario()) {
+                    ByteBuffer quadro = ProtocoloBinario.lerQuadro(entradaBinaria, Integer.MAX_VALUE);
+                    partes = quadro != null ? ProtocoloBinario.decodificar(quadro) : null;
+                } else {
+                    String linha = leitor.readLine();
+                    partes = linha != null ? Protocolo.parsearMensagem(linha) : null;
+                }
+                
+                if (partes == null) {
+                    gerador.registrarQueda();
+                    return true;
+                }
+                
+                if (!tratarMensagem(partes)) {
+                    return true;
+                }
+                enviarChatsPendentes();
+            }
+            return true;
+            
+        } catch (ConnectException e) {
+            gerador.registrarFalhaConexao();
+            return false;
+        } catch (IOException | IllegalArgumentException e) {
+            if (gerador.isRodando()) {
+                gerador.registrarQueda();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } finally {
+            socket = null;
+        }
+    }
+    
+    /**
+     * Trata uma mensagem do servidor; retorna false quando a partida deste
+     * jogador terminou
+     */
+    private boolean tratarMensagem(String[] partes) throws IOException, InterruptedException {
+        switch (partes[0]) {
+            case Protocolo.PERGUNTA:
+                if (partes.length >= 2) {
+                    responder(partes[1]);
+                }
+                return true;
+            
+            case Protocolo.RESULTADO:
+                aguardandoResultado = false;
+                gerador.registrarResultado(System.nanoTime() - respostaEnviadaEm,
+                    partes.length >= 2 && "ACERTOU".equals(partes[1]));
+                return !partidaFinalizada && (partes.length < 2 || !"ERROU".equals(partes[1]));
+            
+            case Protocolo.PING:
+                enviar(Protocolo.criarMensagemPong());
+                return true;
+            
+            case Protocolo.TEMPO_ESGOTADO:
+                // Pensou além do prazo de resposta do servidor
+                return false;
+            
+            case Protocolo.JOGO_FINALIZADO:
+                // A resposta que encerrou a partida pode ter o RESULTADO
+                // entregue depois do anúncio do vencedor
+                partidaFinalizada = true;
+                return aguardandoResultado;
+            
+            case Protocolo.ERRO:
+                gerador.registrarErro();
+                return true;
+            
+            default:
+                return true;
+        }
+    }
+    
+    /**
+     * Pensa pelo tempo sorteado e responde, acertando com a probabilidade
+     * configurada
+     */
+    private void responder(String enunciado) throws IOException, InterruptedException {
+        Thread.sleep(configuracao.getPensamento().sortear());
+        
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int correta = gerador.respostaCorreta(enunciado);
+        int resposta = random.nextDouble() < configuracao.getAcerto()
+            ? correta
+            : (correta + 1 + random.nextInt(3)) % 4;
+        
+        respostaEnviadaEm = System.nanoTime();
+        aguardandoResultado = true;
+        enviar(Protocolo.criarMensagemResposta(resposta));
+    }
+    
+    /**
+     * Agenda a próxima mensagem de chat em um intervalo exponencial
+     */
+    private void agendarChat() {
+        if (configuracao.getChatPorMinuto() <= 0 || !gerador.isRodando()) {
+            return;
+        }
+        
+        double mediaMs = 60000.0 / configuracao.getChatPorMinuto();
+        long intervalo = (long) (-mediaMs * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+        try {
+            gerador.getAgendador().schedule(() -> {
+                if (socket != null) {
+                    chatsPendentes.incrementAndGet();
+                }
+                agendarChat();
+            }, intervalo, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // teste encerrado
+        }
+    }
+    
+    /**
+     * Envia os chats devidos desde a última mensagem recebida
+     * Como a thread fica bloqueada na leitura, eles saem junto com a
+     * próxima mensagem do servidor (placar, pergunta ou chat dos outros)
+     */
+    private void enviarChatsPendentes() throws IOException {
+        for (int pendentes = chatsPendentes.getAndSet(0); pendentes > 0; pendentes--) {
+            enviar(Protocolo.criarMensagemChat("Mensagem de carga do jogador " + numero));
+            gerador.registrarChat();
+        }
+    }
+    
+    /**
+     * Envia uma mensagem no protocolo negociado
+     */
+    private void enviar(String mensagem) throws IOException {
+        if (configuracao.isBinario()) {
+            escrever(ProtocoloBinario.codificar(mensagem));
+        } else {
+            escrever(mensagem + "\n");
+        }
+    }
+    
+    private void escrever(String texto) throws IOException {
+        escrever(texto.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private void escrever(byte[] dados) throws IOException {
+        saida.write(dados);
+        saida.flush();
+    }
+    
+    /**
+     * Fecha a conexão atual (fim do teste)
+     */
+    public void encerrar() {
+        Socket atual = socket;
+        if (atual != null) {
+            try {
+                atual.close();
+            } catch (IOException e) {
+                // já fechado
+            }
+        }
+    }
+}
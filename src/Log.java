@@ -0,0 +1,250 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log estruturado do servidor: cada evento tem um nome e pares
+ * campo=valor, e é gravado em uma linha (instante, nível, nome, campos)
+ *
+ * Quem registra nunca espera por E/S: o evento só é colocado em um anel
+ * de tamanho fixo sem lock (uma posição reservada por compareAndSet), e
+ * uma thread própria formata e grava os eventos em lotes, no console ou
+ * em arquivos rotativos (ArquivoLogRotativo). Com o anel cheio, o evento
+ * é descartado segundo a PoliticaTransbordo, e a thread do log informa
+ * quantos foram perdidos
+ *
+ * Os eventos registrados antes de iniciar() ficam no anel e são gravados
+ * assim que a thread começa
+ */
+public final class Log {
+    
+    /**
+     * Gravidade de um evento
+     */
+    public enum Nivel {
+        INFO,
+        AVISO,
+        ERRO
+    }
+    
+    /**
+     * Que eventos descartar quando o anel enche
+     */
+    public enum PoliticaTransbordo {
+        DESCARTAR,      // qualquer evento é descartado com o anel cheio
+        PRESERVAR_ERROS // INFO é descartado a partir de 3/4 do anel; o resto fica para AVISO e ERRO
+    }
+    
+    private static final int CAPACIDADE = 1 << 16; // eventos
+    private static final int MASCARA = CAPACIDADE - 1;
+    private static final long ESPERA_NS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long ESPERA_PARAR_MS = 2000;
+    
+    /**
+     * Evento ainda não formatado; a formatação fica com a thread do log
+     */
+    private static final class Evento {
+        final long instante;
+        final Nivel nivel;
+        final String nome;
+        final Object[] campos;
+        
+        Evento(Nivel nivel, String nome, Object[] campos) {
+            this.instante = System.currentTimeMillis();
+            this.nivel = nivel;
+            this.nome = nome;
+            this.campos = campos;
+        }
+    }
+    
+    // Posições [cabeca, cauda) do anel; só a thread do log avança a cabeça
+    private static final AtomicReferenceArray<Evento> anel = new AtomicReferenceArray<>(CAPACIDADE);
+    private static final AtomicLong cauda = new AtomicLong();
+    private static final AtomicLong cabeca = new AtomicLong();
+    private static final LongAdder descartados = new LongAdder();
+    
+    private static volatile PoliticaTransbordo politica = PoliticaTransbordo.PRESERVAR_ERROS;
+    private static volatile boolean rodando;
+    private static Thread thread;
+    
+    private Log() {
+    }
+    
+    public static void info(String evento, Object... campos) {
+        registrar(Nivel.INFO, evento, campos);
+    }
+    
+    public static void aviso(String evento, Object... campos) {
+        registrar(Nivel.AVISO, evento, campos);
+    }
+    
+    public static void erro(String evento, Object... campos) {
+        registrar(Nivel.ERRO, evento, campos);
+    }
+    
+    /**
+     * Coloca o evento no anel, ou o descarta se não houver lugar
+     * Os campos vêm em pares nome, valor; os valores só são convertidos
+     * em texto pela thread do log
+     */
+    public static void registrar(Nivel nivel, String evento, Object... campos) {
+        int limite = nivel == Nivel.INFO && politica == PoliticaTransbordo.PRESERVAR_ERROS
+            ? CAPACIDADE - CAPACIDADE / 4 : CAPACIDADE;
+        
+        long posicao;
+        do {
+            posicao = cauda.get();
+            if (posicao - cabeca.get() >= limite) {
+                descartados.increment();
+                return;
+            }
+        } while (!cauda.compareAndSet(posicao, posicao + 1));
+        
+        // A posição reservada está livre: a cabeça já passou do evento
+        // anterior que ocupou este lugar
+        anel.set((int) (posicao & MASCARA), new Evento(nivel, evento, campos));
+    }
+    
+    /**
+     * Inicia a thread do log, gravando no diretório informado ou, se ele
+     * for null, no console
+     */
+    public static synchronized void iniciar(Path diretorio, long tamanhoArquivo, PoliticaTransbordo politicaTransbordo)
+            throws IOException {
+        if (thread != null) {
+            return;
+        }
+        politica = politicaTransbordo;
+        OutputStream saida = diretorio != null
+            ? new ArquivoLogRotativo(diretorio, tamanhoArquivo)
+            : new BufferedOutputStream(System.out, 1 << 16);
+        
+        rodando = true;
+        thread = new Thread(() -> executar(saida), "log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Grava os eventos que ainda estão no anel e para a thread do log
+     */
+    public static synchronized void parar() {
+        if (thread == null || !rodando) {
+            return;
+        }
+        rodando = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(ESPERA_PARAR_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void executar(OutputStream saida) {
+        StringBuilder linha = new StringBuilder(256);
+        long informados = 0;
+        
+        try {
+            while (true) {
+                boolean parando = !rodando;
+                boolean gravou = false;
+                
+                long posicao = cabeca.get();
+                Evento evento;
+                while ((evento = anel.get((int) (posicao & MASCARA))) != null) {
+                    anel.set((int) (posicao & MASCARA), null);
+                    cabeca.set(++posicao);
+                    gravar(saida, linha, evento.instante, evento.nivel, evento.nome, evento.campos);
+                    gravou = true;
+                }
+                
+                long perdidos = descartados.sum();
+                if (perdidos > informados) {
+                    gravar(saida, linha, System.currentTimeMillis(), Nivel.AVISO, "log_descartados",
+                        new Object[] {"eventos", perdidos - informados});
+                    informados = perdidos;
+                    gravou = true;
+                }
+                
+                if (gravou) {
+                    saida.flush();
+                } else if (parando) {
+                    break;
+                } else {
+                    LockSupport.parkNanos(ESPERA_NS);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar o log, gravação interrompida: " + e.getMessage());
+        } finally {
+            try {
+                if (saida instanceof ArquivoLogRotativo) {
+                    saida.close();
+                } else {
+                    saida.flush(); // o console continua aberto
+                }
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar o log: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Formata o evento como instante nível nome campo=valor ...
+     */
+    private static void gravar(OutputStream saida, StringBuilder linha, long instante, Nivel nivel,
+            String nome, Object[] campos) throws IOException {
+        linha.setLength(0);
+        linha.append(Instant.ofEpochMilli(instante)).append(' ').append(nivel).append(' ').append(nome);
+        for (int i = 0; i + 1 < campos.length; i += 2) {
+            linha.append(' ').append(campos[i]).append('=');
+            acrescentarValor(linha, String.valueOf(campos[i + 1]));
+        }
+        linha.append('\n');
+        saida.write(linha.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Valores com espaço, aspas, '=' ou quebra de linha vão entre aspas
+     */
+    private static void acrescentarValor(StringBuilder linha, String valor) {
+        boolean aspas = valor.isEmpty();
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c <= ' ' || c == '"' || c == '=' || c == '\\';
+        }
+        if (!aspas) {
+            linha.append(valor);
+            return;
+        }
+        
+        linha.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    linha.append('\\').append(c);
+                    break;
+                case '\n':
+                    linha.append("\\n");
+                    break;
+                case '\r':
+                    linha.append("\\r");
+                    break;
+                default:
+                    linha.append(c);
+            }
+        }
+        linha.append('"');
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Loop de eventos do modo NIO
+ * Uma única thread atende, via Selector, todas as conexões registradas nela
+ */
+public class LoopEventos implements Runnable {
+    private final Servidor servidor;
+    private final Selector seletor;
+    private final Queue<Runnable> tarefas;
+    private volatile boolean rodando;
+    private volatile Thread thread;
+    
+    public LoopEventos(Servidor servidor) throws IOException {
+        this.servidor = servidor;
+        this.seletor = Selector.open();
+        this.tarefas = new ConcurrentLinkedQueue<>();
+        this.rodando = true;
+    }
+    
+    /**
+     * Registra uma nova conexão aceita neste loop
+     */
+    public void registrar(SocketChannel canal) {
+        executar(() -> {
+            try {
+                canal.configureBlocking(false);
+                GerenciadorClienteNio gerenciador = new GerenciadorClienteNio(canal, this, servidor);
+                gerenciador.registrar(seletor);
+                servidor.registrarConexao(gerenciador);
+            } catch (IOException e) {
+                Log.erro("erro_registrar_conexao", "erro", e.getMessage());
+                try {
+                    canal.close();
+                } catch (IOException ignorada) {
+                    // conexão já estava fechada
+                }
+            }
+        });
+    }
+    
+    /**
+     * Agenda a escrita pendente de uma conexão
+     */
+    void solicitarEscrita(GerenciadorClienteNio gerenciador) {
+        executar(() -> {
+            try {
+                gerenciador.aoEscrever();
+            } catch (CancelledKeyException e) {
+                // conexão encerrada antes da escrita
+            } catch (RuntimeException e) {
+                falhaConexao(gerenciador, e);
+            }
+        });
+    }
+    
+    /**
+     * Agenda uma tarefa na thread do loop, acordando o seletor se necessário
+     */
+    void executar(Runnable tarefa) {
+        tarefas.add(tarefa);
+        if (Thread.currentThread() != thread) {
+            seletor.wakeup();
+        }
+    }
+    
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        
+        while (rodando) {
+            try {
+                seletor.select();
+                processarChavesSelecionadas();
+                // Executa também as tarefas agendadas pela própria thread
+                // durante o processamento das chaves
+                executarTarefas();
+            } catch (IOException e) {
+                Log.erro("erro_loop_eventos", "erro", e.getMessage());
+            } catch (RuntimeException e) {
+                // Inclusive de um desconectar() que falhou: a thread do loop
+                // não pode morrer
+                Log.erro("erro_loop_eventos", "erro", e);
+            }
+        }
+        
+        try {
+            seletor.close();
+        } catch (IOException e) {
+            Log.aviso("erro_fechar_seletor", "erro", e.getMessage());
+        }
+    }
+    
+    private void executarTarefas() {
+        Runnable tarefa;
+        while ((tarefa = tarefas.poll()) != null) {
+            try {
+                tarefa.run();
+            } catch (RuntimeException e) {
+                // Uma tarefa com defeito não pode parar as demais conexões do loop
+                Log.erro("erro_tarefa_loop", "erro", e);
+            }
+        }
+    }
+    
+    private void processarChavesSelecionadas() {
+        Iterator<SelectionKey> iterador = seletor.selectedKeys().iterator();
+        while (iterador.hasNext()) {
+            SelectionKey chave = iterador.next();
+            iterador.remove();
+            
+            GerenciadorClienteNio gerenciador = (GerenciadorClienteNio) chave.attachment();
+            try {
+                if (chave.isValid() && chave.isReadable()) {
+                    gerenciador.aoLer();
+                }
+                if (chave.isValid() && chave.isWritable()) {
+                    gerenciador.aoEscrever();
+                }
+            } catch (CancelledKeyException e) {
+                // conexão encerrada durante o processamento
+            } catch (RuntimeException e) {
+                falhaConexao(gerenciador, e);
+            }
+        }
+    }
+    
+    /**
+     * Erro inesperado ao atender uma conexão: só ela é encerrada, e o loop
+     * segue atendendo as outras
+     */
+    private void falhaConexao(GerenciadorClienteNio gerenciador, RuntimeException e) {
+        Log.erro("erro_conexao", "erro", e);
+        gerenciador.desconectar();
+    }
+    
+    /**
+     * Encerra o loop
+     */
+    public void encerrar() {
+        rodando = false;
+        seletor.wakeup();
+    }
+}
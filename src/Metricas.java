@@ -0,0 +1,185 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas internas do servidor, exportadas no formato de texto do
+ * Prometheus pelo endpoint HTTP do Servidor (--metricas=PORTA)
+ * Os registros não usam lock: contadores são LongAdder e tempos vão para
+ * um HistogramaLatencia (AtomicLongArray), em nanossegundos. Com as
+ * métricas desativadas (padrão), cada registro só lê um campo
+ *
+ * Medidas instantâneas (salas, jogadores, filas de saída) não são
+ * registradas aqui: o servidor as calcula a cada leitura do endpoint
+ */
+public final class Metricas {
+    /** Rótulo dos comandos que o servidor não reconhece */
+    public static final String COMANDO_DESCONHECIDO = "DESCONHECIDO";
+    
+    private static final String[] COMANDOS = {
+        Protocolo.CONECTAR, Protocolo.RESPOSTA, Protocolo.PARAR, Protocolo.CHAT, Protocolo.SINCRONIZAR,
+        Protocolo.RETOMAR, Protocolo.PING, Protocolo.PONG, Protocolo.CONECTADO, Protocolo.ERRO,
+        Protocolo.PERGUNTA, Protocolo.RESULTADO, Protocolo.ESTATISTICAS, Protocolo.PLACAR,
+        Protocolo.JOGO_INICIADO, Protocolo.JOGO_FINALIZADO, Protocolo.MENSAGEM, Protocolo.TEMPO_ESGOTADO,
+        COMANDO_DESCONHECIDO
+    };
+    private static final int DESCONHECIDO = COMANDOS.length - 1;
+    private static final Map<String, Integer> INDICES = new HashMap<>();
+    
+    private static final double[] QUANTIS = {0.5, 0.9, 0.99, 0.999};
+    
+    /**
+     * Tempos de uma operação: distribuição e soma
+     */
+    private static final class Tempo {
+        private final HistogramaLatencia histograma = new HistogramaLatencia();
+        private final LongAdder soma = new LongAdder();
+        
+        void registrar(long nanos) {
+            histograma.registrar(nanos);
+            soma.add(nanos);
+        }
+    }
+    
+    private static volatile boolean ativas;
+    private static final LongAdder conexoesAceitas = new LongAdder();
+    private static final LongAdder[] recebidas = new LongAdder[COMANDOS.length];
+    private static final LongAdder[] enviadas = new LongAdder[COMANDOS.length];
+    private static final LongAdder bytesEnviados = new LongAdder();
+    private static final Tempo broadcast = new Tempo();
+    private static final Tempo lockResposta = new Tempo();
+    
+    static {
+        for (int i = 0; i < COMANDOS.length; i++) {
+            INDICES.put(COMANDOS[i], i);
+            recebidas[i] = new LongAdder();
+            enviadas[i] = new LongAdder();
+        }
+    }
+    
+    private Metricas() {
+    }
+    
+    /**
+     * Passa a registrar (chamado uma vez, ao abrir o endpoint)
+     */
+    public static void ativar() {
+        ativas = true;
+    }
+    
+    /**
+     * Índice do comando da mensagem, usado pelo Quadro para contar os envios
+     */
+    static int indiceComando(String mensagem) {
+        int fim = mensagem.indexOf('|');
+        Integer indice = INDICES.get(fim < 0 ? mensagem : mensagem.substring(0, fim));
+        return indice != null ? indice : DESCONHECIDO;
+    }
+    
+    public static void registrarConexao() {
+        if (ativas) {
+            conexoesAceitas.increment();
+        }
+    }
+    
+    /**
+     * Comando recebido de um cliente (um dos nomes de Protocolo)
+     */
+    public static void registrarRecebida(String comando) {
+        if (ativas) {
+            Integer indice = INDICES.get(comando);
+            recebidas[indice != null ? indice : DESCONHECIDO].increment();
+        }
+    }
+    
+    /**
+     * Quadro entregue ao socket de uma conexão
+     */
+    public static void registrarEnvio(Quadro quadro, int bytes) {
+        if (ativas) {
+            enviadas[quadro.getIndiceComando()].increment();
+            bytesEnviados.add(bytes);
+        }
+    }
+    
+    /**
+     * Início de uma medição de tempo, ou 0 com as métricas desativadas
+     */
+    public static long iniciar() {
+        return ativas ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Fim de um broadcast para todas as conexões de uma sala
+     */
+    public static void registrarBroadcast(long inicio) {
+        if (inicio != 0) {
+            broadcast.registrar(System.nanoTime() - inicio);
+        }
+    }
+    
+    /**
+     * Fim do trecho de processarResposta com o lock da partida adquirido
+     */
+    public static void registrarLockResposta(long inicio) {
+        if (inicio != 0) {
+            lockResposta.registrar(System.nanoTime() - inicio);
+        }
+    }
+    
+    /**
+     * Escreve contadores e tempos no formato de texto do Prometheus
+     */
+    public static void exportar(StringBuilder saida) {
+        cabecalho(saida, "jogo_conexoes_aceitas_total", "Conexões aceitas", "counter");
+        saida.append("jogo_conexoes_aceitas_total ").append(conexoesAceitas.sum()).append('\n');
+        
+        exportarPorComando(saida, "jogo_mensagens_recebidas_total", "Comandos recebidos dos clientes", recebidas);
+        exportarPorComando(saida, "jogo_mensagens_enviadas_total", "Mensagens escritas nos sockets", enviadas);
+        
+        cabecalho(saida, "jogo_bytes_enviados_total", "Bytes escritos nos sockets", "counter");
+        saida.append("jogo_bytes_enviados_total ").append(bytesEnviados.sum()).append('\n');
+        
+        exportarTempo(saida, "jogo_broadcast_segundos", "Duração de um broadcast para toda a sala", broadcast);
+        exportarTempo(saida, "jogo_lock_resposta_segundos",
+            "Tempo com o lock da partida em processarResposta", lockResposta);
+    }
+    
+    /**
+     * Escreve uma medida instantânea
+     */
+    public static void exportarMedida(StringBuilder saida, String nome, String ajuda, long valor) {
+        cabecalho(saida, nome, ajuda, "gauge");
+        saida.append(nome).append(' ').append(valor).append('\n');
+    }
+    
+    private static void exportarPorComando(StringBuilder saida, String nome, String ajuda, LongAdder[] contadores) {
+        cabecalho(saida, nome, ajuda, "counter");
+        for (int i = 0; i < COMANDOS.length; i++) {
+            long valor = contadores[i].sum();
+            if (valor > 0) {
+                saida.append(nome).append("{comando=\"").append(COMANDOS[i]).append("\"} ")
+                    .append(valor).append('\n');
+            }
+        }
+    }
+    
+    private static void exportarTempo(StringBuilder saida, String nome, String ajuda, Tempo tempo) {
+        cabecalho(saida, nome, ajuda, "summary");
+        for (double quantil : QUANTIS) {
+            saida.append(nome).append("{quantile=\"").append(quantil).append("\"} ")
+                .append(segundos(tempo.histograma.percentil(quantil))).append('\n');
+        }
+        saida.append(nome).append("_sum ").append(segundos(tempo.soma.sum())).append('\n');
+        saida.append(nome).append("_count ").append(tempo.histograma.getTotal()).append('\n');
+    }
+    
+    private static void cabecalho(StringBuilder saida, String nome, String ajuda, String tipo) {
+        saida.append("# HELP ").append(nome).append(' ').append(ajuda).append('\n');
+        saida.append("# TYPE ").append(nome).append(' ').append(tipo).append('\n');
+    }
+    
+    private static double segundos(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -1,13 +1,19 @@
 /**
  * Classe que representa uma pergunta do jogo do milhão
  * Todas as perguntas são sobre Tecnologia da Informação (TI)
+ * É imutável, então a mensagem PERGUNTA é codificada uma única vez e o
+ * mesmo quadro é reutilizado em todos os envios
  */
 public class Pergunta {
-    private String enunciado;
-    private String[] alternativas;
-    private int respostaCorreta; // 0, 1, 2 ou 3
-    private int nivel; // 1 a 15 (15 níveis do jogo do milhão)
-    private double premio; // Prêmio em reais para este nível
+    /** Alternativas de toda pergunta: a mensagem PERGUNTA tem sempre 4 */
+    public static final int ALTERNATIVAS = 4;
+    
+    private final String enunciado;
+    private final String[] alternativas;
+    private final int respostaCorreta; // 0, 1, 2 ou 3
+    private final int nivel; // 1 a 15 (15 níveis do jogo do milhão)
+    private final double premio; // Prêmio em reais para este nível
+    private volatile Quadro quadro;
     
     public Pergunta(String enunciado, String[] alternativas, int respostaCorreta, int nivel, double premio) {
         this.enunciado = enunciado;
@@ -59,5 +65,19 @@ public class Pergunta {
         sb.append("|").append(nivel).append("|").append(premio);
         return sb.toString();
     }
+    
+    /**
+     * Mensagem PERGUNTA já codificada, criada no primeiro envio (o quadro
+     * também guarda a codificação binária depois de gerada)
+     * Se duas threads a criarem ao mesmo tempo, qualquer uma das cópias serve
+     */
+    public Quadro getQuadro() {
+        Quadro codificado = quadro;
+        if (codificado == null) {
+            codificado = Quadro.de(Protocolo.criarMensagemPergunta(this), () -> ProtocoloBinario.codificarPergunta(this));
+            quadro = codificado;
+        }
+        return codificado;
+    }
 }
 
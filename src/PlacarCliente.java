@@ -0,0 +1,102 @@
+import java.util.*;
+
+/**
+ * Cópia local do placar mantida pelo cliente
+ * Recebe o placar completo (ESTATISTICAS) uma vez e depois aplica apenas as
+ * alterações (PLACAR) em ordem de versão
+ */
+public class PlacarCliente {
+    
+    /**
+     * Linha do placar de um jogador
+     */
+    public static class Entrada {
+        private final String nome;
+        private final int nivel;
+        private final double premio;
+        private final String status;
+        
+        public Entrada(String nome, int nivel, double premio, String status) {
+            this.nome = nome;
+            this.nivel = nivel;
+            this.premio = premio;
+            this.status = status;
+        }
+        
+        public String getNome() {
+            return nome;
+        }
+        
+        public int getNivel() {
+            return nivel;
+        }
+        
+        public double getPremio() {
+            return premio;
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+    }
+    
+    /**
+     * Resultado da aplicação de uma alteração
+     */
+    public enum Resultado {
+        APLICADA,
+        IGNORADA,       // versão antiga ou repetida
+        DESSINCRONIZADO // faltam versões: é preciso pedir SINCRONIZAR
+    }
+    
+    private final Map<Integer, Entrada> entradas;
+    private long versao;
+    private boolean sincronizado;
+    
+    public PlacarCliente() {
+        this.entradas = new LinkedHashMap<>();
+        this.versao = 0;
+        this.sincronizado = false;
+    }
+    
+    /**
+     * Substitui todo o placar pelos jogadores informados, por id
+     */
+    public void aplicarCompleto(long versao, Map<Integer, Entrada> jogadores) {
+        entradas.clear();
+        entradas.putAll(jogadores);
+        this.versao = versao;
+        this.sincronizado = true;
+    }
+    
+    /**
+     * Aplica a alteração de um jogador se ela for a próxima versão
+     */
+    public Resultado aplicarAlteracao(long versao, int id, Entrada entrada) {
+        if (!sincronizado || versao <= this.versao) {
+            return Resultado.IGNORADA;
+        }
+        
+        if (versao != this.versao + 1) {
+            // Até o placar completo chegar, as alterações são ignoradas
+            sincronizado = false;
+            return Resultado.DESSINCRONIZADO;
+        }
+        
+        if (Protocolo.STATUS_SAIU.equals(entrada.getStatus())) {
+            entradas.remove(id);
+        } else {
+            entradas.put(id, entrada);
+        }
+        this.versao = versao;
+        return Resultado.APLICADA;
+    }
+    
+    public Collection<Entrada> getEntradas() {
+        return Collections.unmodifiableCollection(entradas.values());
+    }
+    
+    public long getVersao() {
+        return versao;
+    }
+}
@@ -1,3 +1,7 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Classe que define o protocolo de comunicação entre cliente e servidor
  * 
@@ -5,20 +9,33 @@
  * - COMANDO|parametros
  * 
  * Comandos do Cliente:
- * - CONECTAR|nome
+ * - CONECTAR|nome ou CONECTAR|nome|BINARIO (passa a usar ProtocoloBinario)
  * - RESPOSTA|numero (0-3)
  * - PARAR
  * - CHAT|mensagem
+ * - SINCRONIZAR (pede o placar completo novamente)
+ * - RETOMAR|token ou RETOMAR|token|BINARIO (volta à sessão depois de uma
+ *   queda de conexão, no lugar do CONECTAR)
+ * 
+ * Nos dois sentidos:
+ * - PING (quem recebe responde PONG; o servidor envia às conexões
+ *   ociosas e encerra as que não respondem)
+ * - PONG
  * 
  * Comandos do Servidor:
- * - CONECTADO|mensagem
+ * - CONECTADO|mensagem|token (token da sessão, usado no RETOMAR)
  * - ERRO|mensagem
  * - PERGUNTA|enunciado|alt1|alt2|alt3|alt4|nivel|premio
  * - RESULTADO|acertou|premio|nivel
- * - ESTATISTICAS|jogador1|nivel1|premio1|status1;jogador2|nivel2|premio2|status2;...
+ * - ESTATISTICAS|versao|id1|jogador1|nivel1|premio1|status1;id2|jogador2|nivel2|premio2|status2;...
+ *   (placar completo, enviado na entrada na sala e quando o cliente pede SINCRONIZAR)
+ * - PLACAR|versao|id|jogador|nivel|premio|status
+ *   (alteração de um único jogador; status SAIU remove o jogador do placar)
  * - JOGO_INICIADO
  * - JOGO_FINALIZADO|vencedor|premio
  * - MENSAGEM|remetente|texto
+ * - TEMPO_ESGOTADO|status|premio|nivel
+ *   (o prazo de resposta venceu; status PAROU ou ELIMINADO)
  */
 public class Protocolo {
     
@@ -27,6 +44,12 @@ public class Protocolo {
     public static final String RESPOSTA = "RESPOSTA";
     public static final String PARAR = "PARAR";
     public static final String CHAT = "CHAT";
+    public static final String SINCRONIZAR = "SINCRONIZAR";
+    public static final String RETOMAR = "RETOMAR";
+    
+    // Nos dois sentidos
+    public static final String PING = "PING";
+    public static final String PONG = "PONG";
     
     // Comandos do Servidor
     public static final String CONECTADO = "CONECTADO";
@@ -34,9 +57,20 @@ public class Protocolo {
     public static final String PERGUNTA = "PERGUNTA";
     public static final String RESULTADO = "RESULTADO";
     public static final String ESTATISTICAS = "ESTATISTICAS";
+    public static final String PLACAR = "PLACAR";
     public static final String JOGO_INICIADO = "JOGO_INICIADO";
     public static final String JOGO_FINALIZADO = "JOGO_FINALIZADO";
     public static final String MENSAGEM = "MENSAGEM";
+    public static final String TEMPO_ESGOTADO = "TEMPO_ESGOTADO";
+    
+    // Opção do CONECTAR que ativa o protocolo binário
+    public static final String BINARIO = "BINARIO";
+    
+    // Status de placar para jogador que deixou a sala
+    public static final String STATUS_SAIU = "SAIU";
+    
+    // Tamanho máximo do nome de um jogador, em caracteres
+    public static final int TAMANHO_MAXIMO_NOME = 40;
     
     /**
      * Cria mensagem de conexão do cliente
@@ -45,6 +79,13 @@ public class Protocolo {
         return CONECTAR + "|" + nome;
     }
     
+    /**
+     * Cria mensagem de conexão do cliente pedindo o protocolo binário
+     */
+    public static String criarMensagemConectarBinario(String nome) {
+        return CONECTAR + "|" + nome + "|" + BINARIO;
+    }
+    
     /**
      * Cria mensagem de resposta do cliente
      */
@@ -66,11 +107,47 @@ public class Protocolo {
         return CHAT + "|" + mensagem;
     }
     
+    /**
+     * Cria mensagem de pedido de sincronização do placar do cliente
+     */
+    public static String criarMensagemSincronizar() {
+        return SINCRONIZAR;
+    }
+    
+    /**
+     * Cria mensagem de retomada de sessão do cliente
+     */
+    public static String criarMensagemRetomar(String token) {
+        return RETOMAR + "|" + token;
+    }
+    
+    /**
+     * Cria mensagem de retomada de sessão do cliente pedindo o protocolo
+     * binário
+     */
+    public static String criarMensagemRetomarBinario(String token) {
+        return RETOMAR + "|" + token + "|" + BINARIO;
+    }
+    
+    /**
+     * Cria mensagem de verificação de conexão (cliente ou servidor)
+     */
+    public static String criarMensagemPing() {
+        return PING;
+    }
+    
+    /**
+     * Cria a resposta a um PING (cliente ou servidor)
+     */
+    public static String criarMensagemPong() {
+        return PONG;
+    }
+    
     /**
      * Cria mensagem de conexão bem-sucedida do servidor
      */
-    public static String criarMensagemConectado(String mensagem) {
-        return CONECTADO + "|" + mensagem;
+    public static String criarMensagemConectado(String mensagem, String token) {
+        return CONECTADO + "|" + mensagem + "|" + token;
     }
     
     /**
@@ -94,11 +171,34 @@ public class Protocolo {
         return RESULTADO + "|" + (acertou ? "ACERTOU" : "ERROU") + "|" + premio + "|" + nivel;
     }
     
+    /**
+     * Quadro de RESULTADO; a codificação binária sai direto dos valores
+     */
+    public static Quadro criarQuadroResultado(boolean acertou, double premio, int nivel) {
+        return Quadro.de(criarMensagemResultado(acertou, premio, nivel),
+            () -> ProtocoloBinario.codificarResultado(acertou, premio, nivel));
+    }
+    
     /**
      * Cria mensagem de estatísticas do servidor
      */
-    public static String criarMensagemEstatisticas(String estatisticas) {
-        return ESTATISTICAS + "|" + estatisticas;
+    public static String criarMensagemEstatisticas(long versao, String estatisticas) {
+        return ESTATISTICAS + "|" + versao + "|" + estatisticas;
+    }
+    
+    /**
+     * Cria mensagem de alteração de um jogador no placar
+     */
+    public static String criarMensagemPlacar(long versao, int id, String nome, int nivel, double premio, String status) {
+        return PLACAR + "|" + versao + "|" + id + "|" + nome + "|" + nivel + "|" + premio + "|" + status;
+    }
+    
+    /**
+     * Quadro de PLACAR; a codificação binária sai direto dos valores
+     */
+    public static Quadro criarQuadroPlacar(long versao, int id, String nome, int nivel, double premio, String status) {
+        return Quadro.de(criarMensagemPlacar(versao, id, nome, nivel, premio, status),
+            () -> ProtocoloBinario.codificarPlacar(versao, id, nome, nivel, premio, status));
     }
     
     /**
@@ -115,6 +215,14 @@ public class Protocolo {
         return JOGO_FINALIZADO + "|" + vencedor + "|" + premio;
     }
     
+    /**
+     * Quadro de JOGO_FINALIZADO; a codificação binária sai direto dos valores
+     */
+    public static Quadro criarQuadroJogoFinalizado(String vencedor, double premio) {
+        return Quadro.de(criarMensagemJogoFinalizado(vencedor, premio),
+            () -> ProtocoloBinario.codificarJogoFinalizado(vencedor, premio));
+    }
+    
     /**
      * Cria mensagem de chat do servidor
      */
@@ -122,11 +230,170 @@ public class Protocolo {
         return MENSAGEM + "|" + remetente + "|" + texto;
     }
     
+    /**
+     * Cria mensagem de prazo de resposta vencido do servidor
+     */
+    public static String criarMensagemTempoEsgotado(String status, double premio, int nivel) {
+        return TEMPO_ESGOTADO + "|" + status + "|" + premio + "|" + nivel;
+    }
+    
+    /**
+     * Quadro de TEMPO_ESGOTADO; a codificação binária sai direto dos valores
+     */
+    public static Quadro criarQuadroTempoEsgotado(String status, double premio, int nivel) {
+        return Quadro.de(criarMensagemTempoEsgotado(status, premio, nivel),
+            () -> ProtocoloBinario.codificarTempoEsgotado(status, premio, nivel));
+    }
+    
+    /**
+     * Troca as quebras de linha ('\r' ou '\n') de um texto livre vindo do
+     * cliente por espaços; repassadas, elas encerrariam a linha nos
+     * clientes em texto, e o restante seria lido como outra mensagem do
+     * servidor
+     */
+    public static String removerQuebrasLinha(String texto) {
+        if (texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return texto.replace('\r', ' ').replace('\n', ' ');
+    }
+    
+    /**
+     * Indica se a mensagem pode ser descartada para um cliente lento
+     * (atualizações de placar, em que o cliente percebe a lacuna de versão
+     * e pede SINCRONIZAR, e chat)
+     */
+    public static boolean isDescartavel(String mensagem) {
+        return mensagem.startsWith(ESTATISTICAS) || mensagem.startsWith(PLACAR) || mensagem.startsWith(MENSAGEM);
+    }
+    
+    /**
+     * Indica se a mensagem só deve ser escrita depois das demais pendentes
+     * para o mesmo cliente (chat, que não pode atrasar as do jogo)
+     */
+    public static boolean isBaixaPrioridade(String mensagem) {
+        return mensagem.startsWith(MENSAGEM);
+    }
+    
+    /**
+     * Entrega uma mensagem do servidor em texto ao tratador, com os campos
+     * já convertidos; mensagens com campos faltando são ignoradas
+     */
+    public static void despacharMensagem(String mensagem, TratadorMensagens tratador) {
+        String[] partes = parsearMensagem(mensagem);
+        
+        switch (partes[0]) {
+            case CONECTADO:
+                if (partes.length >= 2) {
+                    tratador.aoConectado(partes[1], partes.length >= 3 ? partes[2] : null);
+                }
+                break;
+            
+            case PING:
+                tratador.aoPing();
+                break;
+            
+            case ERRO:
+                if (partes.length >= 2) {
+                    tratador.aoErro(parsearMensagem(mensagem, 2)[1]);
+                }
+                break;
+            
+            case JOGO_INICIADO:
+                tratador.aoJogoIniciado();
+                break;
+            
+            case PERGUNTA:
+                if (partes.length >= 8) {
+                    String[] alternativas = Arrays.copyOfRange(partes, 2, 2 + Pergunta.ALTERNATIVAS);
+                    tratador.aoPergunta(partes[1], alternativas,
+                        Integer.parseInt(partes[6]), Double.parseDouble(partes[7]));
+                }
+                break;
+            
+            case RESULTADO:
+                if (partes.length >= 4) {
+                    tratador.aoResultado("ACERTOU".equals(partes[1]),
+                        Double.parseDouble(partes[2]), Integer.parseInt(partes[3]));
+                }
+                break;
+            
+            case ESTATISTICAS:
+                // Os jogadores do placar completo contêm '|': o restante
+                // fica inteiro
+                String[] estatisticas = parsearMensagem(mensagem, 3);
+                if (estatisticas.length >= 3) {
+                    tratador.aoEstatisticas(Long.parseLong(estatisticas[1]), parsearJogadores(estatisticas[2]));
+                }
+                break;
+            
+            case PLACAR:
+                if (partes.length >= 7) {
+                    tratador.aoPlacar(Long.parseLong(partes[1]), Integer.parseInt(partes[2]),
+                        new PlacarCliente.Entrada(partes[3], Integer.parseInt(partes[4]),
+                            Double.parseDouble(partes[5]), partes[6]));
+                }
+                break;
+            
+            case TEMPO_ESGOTADO:
+                if (partes.length >= 4) {
+                    tratador.aoTempoEsgotado(partes[1], Double.parseDouble(partes[2]), Integer.parseInt(partes[3]));
+                }
+                break;
+            
+            case JOGO_FINALIZADO:
+                if (partes.length >= 3) {
+                    tratador.aoJogoFinalizado(partes[1], Double.parseDouble(partes[2]));
+                }
+                break;
+            
+            case MENSAGEM:
+                // O texto do chat pode conter '|'
+                String[] chat = parsearMensagem(mensagem, 3);
+                if (chat.length >= 3) {
+                    tratador.aoMensagem(chat[1], chat[2]);
+                }
+                break;
+            
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Jogadores do placar completo (formato id|nome|nivel|premio|status;...)
+     */
+    private static Map<Integer, PlacarCliente.Entrada> parsearJogadores(String estatisticas) {
+        Map<Integer, PlacarCliente.Entrada> jogadores = new LinkedHashMap<>();
+        for (String jogadorInfo : estatisticas.split(";")) {
+            if (jogadorInfo.isEmpty()) continue;
+            
+            String[] partes = jogadorInfo.split("\\|");
+            if (partes.length >= 5) {
+                jogadores.put(Integer.parseInt(partes[0]), new PlacarCliente.Entrada(
+                    partes[1],
+                    Integer.parseInt(partes[2]),
+                    Double.parseDouble(partes[3]),
+                    partes[4]
+                ));
+            }
+        }
+        return jogadores;
+    }
+    
     /**
      * Parseia uma mensagem recebida
      */
     public static String[] parsearMensagem(String mensagem) {
         return mensagem.split("\\|", -1);
     }
+    
+    /**
+     * Parseia uma mensagem em no máximo 'limite' partes; a última parte
+     * mantém o restante da mensagem sem dividir
+     */
+    public static String[] parsearMensagem(String mensagem, int limite) {
+        return mensagem.split("\\|", limite);
+    }
 }
 
@@ -0,0 +1,563 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Codificação binária do protocolo, alternativa ao texto separado por '|'
+ * É negociada no CONECTAR (CONECTAR|nome|BINARIO): depois dessa linha os
+ * dois lados trocam apenas quadros binários
+ *
+ * Formato do quadro:
+ * - tamanho do conteúdo em bytes (varint)
+ * - código do comando (1 byte)
+ * - campos na mesma ordem da mensagem em texto, conforme o comando:
+ *   S: texto UTF-8 precedido do tamanho em bytes (varint)
+ *   I: inteiro em varint zigzag
+ *   D: double em 8 bytes (big-endian)
+ *   B: 1 byte, 1 para ACERTOU e 0 para ERROU
+ *   P: placar completo, com o número de jogadores (varint) e, para cada
+ *      um, id (I), nome (S), nível (I), prêmio (D) e status (S)
+ *
+ * Como cada texto carrega o próprio tamanho, um '|' no chat não quebra o
+ * enquadramento
+ *
+ * As mensagens do jogo que levam números (PERGUNTA, RESULTADO, PLACAR,
+ * ESTATISTICAS, TEMPO_ESGOTADO e JOGO_FINALIZADO) têm codificadores
+ * próprios, que escrevem os valores direto, e o cliente as recebe já
+ * tipadas por despacharMensagem; codificar e decodificar trabalham com a
+ * mensagem em texto e servem às demais
+ */
+public final class ProtocoloBinario {
+    
+    // Maior quadro aceito de um cliente
+    public static final int TAMANHO_MAXIMO_CLIENTE = 4096;
+    
+    private static final String[] COMANDOS = new String[256];
+    private static final String[] CAMPOS = new String[256];
+    private static final Map<String, Integer> CODIGOS = new HashMap<>();
+    
+    static {
+        // Comandos do Cliente
+        registrar(0x01, Protocolo.CONECTAR, "S");
+        registrar(0x02, Protocolo.RESPOSTA, "I");
+        registrar(0x03, Protocolo.PARAR, "");
+        registrar(0x04, Protocolo.CHAT, "S");
+        registrar(0x05, Protocolo.SINCRONIZAR, "");
+        registrar(0x06, Protocolo.RETOMAR, "S");
+        
+        // Nos dois sentidos
+        registrar(0x07, Protocolo.PING, "");
+        registrar(0x08, Protocolo.PONG, "");
+        
+        // Comandos do Servidor
+        registrar(0x10, Protocolo.CONECTADO, "SS");
+        registrar(0x11, Protocolo.ERRO, "S");
+        registrar(0x12, Protocolo.PERGUNTA, "SSSSSID");
+        registrar(0x13, Protocolo.RESULTADO, "BDI");
+        registrar(0x14, Protocolo.ESTATISTICAS, "IP");
+        registrar(0x15, Protocolo.PLACAR, "IISIDS");
+        registrar(0x16, Protocolo.JOGO_INICIADO, "");
+        registrar(0x17, Protocolo.JOGO_FINALIZADO, "SD");
+        registrar(0x18, Protocolo.MENSAGEM, "SS");
+        registrar(0x19, Protocolo.TEMPO_ESGOTADO, "SDI");
+    }
+    
+    private ProtocoloBinario() {
+    }
+    
+    private static void registrar(int codigo, String comando, String campos) {
+        COMANDOS[codigo] = comando;
+        CAMPOS[codigo] = campos;
+        CODIGOS.put(comando, codigo);
+    }
+    
+    /**
+     * Codifica uma mensagem em texto como quadro binário
+     * O último campo recebe todo o restante da mensagem, inclusive '|'
+     */
+    public static byte[] codificar(String mensagem) {
+        int fimComando = mensagem.indexOf('|');
+        String comando = fimComando < 0 ? mensagem : mensagem.substring(0, fimComando);
+        
+        Integer codigo = CODIGOS.get(comando);
+        if (codigo == null) {
+            throw new IllegalArgumentException("Comando sem codificação binária: " + comando);
+        }
+        
+        String campos = CAMPOS[codigo];
+        ByteArrayOutputStream conteudo = new ByteArrayOutputStream(mensagem.length() + 8);
+        conteudo.write(codigo);
+        
+        int inicio = fimComando + 1;
+        for (int i = 0; i < campos.length(); i++) {
+            if (fimComando < 0 || inicio > mensagem.length()) {
+                throw new IllegalArgumentException("Campos faltando em " + comando);
+            }
+            
+            int fim = (i == campos.length() - 1) ? -1 : mensagem.indexOf('|', inicio);
+            if (fim < 0) {
+                fim = mensagem.length();
+            }
+            escreverCampo(campos.charAt(i), mensagem.substring(inicio, fim), conteudo);
+            inicio = fim + 1;
+        }
+        
+        return fecharQuadro(conteudo);
+    }
+    
+    private static void escreverCampo(char tipo, String campo, ByteArrayOutputStream saida) {
+        switch (tipo) {
+            case 'S':
+                escreverTexto(campo, saida);
+                break;
+            
+            case 'I':
+                escreverInteiro(Long.parseLong(campo), saida);
+                break;
+            
+            case 'D':
+                escreverReal(Double.parseDouble(campo), saida);
+                break;
+            
+            case 'P':
+                // id|nome|nivel|premio|status;... de EstadoJogo.obterEstatisticas
+                String[] jogadores = campo.isEmpty() ? new String[0] : campo.split(";");
+                escreverVarint(jogadores.length, saida);
+                for (String jogador : jogadores) {
+                    String[] partes = jogador.split("\\|", -1);
+                    if (partes.length < 5) {
+                        throw new IllegalArgumentException("Jogador inválido no placar: " + jogador);
+                    }
+                    escreverInteiro(Long.parseLong(partes[0]), saida);
+                    escreverTexto(partes[1], saida);
+                    escreverInteiro(Long.parseLong(partes[2]), saida);
+                    escreverReal(Double.parseDouble(partes[3]), saida);
+                    escreverTexto(partes[4], saida);
+                }
+                break;
+            
+            default:
+                saida.write("ACERTOU".equals(campo) ? 1 : 0);
+        }
+    }
+    
+    /**
+     * PERGUNTA|enunciado|alternativas|nivel|premio
+     */
+    public static byte[] codificarPergunta(Pergunta pergunta) {
+        ByteArrayOutputStream conteudo = iniciarQuadro(Protocolo.PERGUNTA, 256);
+        escreverTexto(pergunta.getEnunciado(), conteudo);
+        for (String alternativa : pergunta.getAlternativas()) {
+            escreverTexto(alternativa, conteudo);
+        }
+        escreverInteiro(pergunta.getNivel(), conteudo);
+        escreverReal(pergunta.getPremio(), conteudo);
+        return fecharQuadro(conteudo);
+    }
+    
+    /**
+     * RESULTADO|ACERTOU ou ERROU|premio|nivel
+     */
+    public static byte[] codificarResultado(boolean acertou, double premio, int nivel) {
+        ByteArrayOutputStream conteudo = iniciarQuadro(Protocolo.RESULTADO, 16);
+        conteudo.write(acertou ? 1 : 0);
+        escreverReal(premio, conteudo);
+        escreverInteiro(nivel, conteudo);
+        return fecharQuadro(conteudo);
+    }
+    
+    /**
+     * ESTATISTICAS|versao|jogadores (chamado com o lock da sala)
+     */
+    public static byte[] codificarEstatisticas(long versao, RegistroJogadores<Jogador> jogadores) {
+        ByteArrayOutputStream conteudo = iniciarQuadro(Protocolo.ESTATISTICAS, 16 + 32 * jogadores.getTamanho());
+        escreverInteiro(versao, conteudo);
+        escreverVarint(jogadores.getTamanho(), conteudo);
+        jogadores.paraCada(jogador -> {
+            escreverInteiro(jogador.getId(), conteudo);
+            escreverTexto(jogador.getNome(), conteudo);
+            escreverInteiro(jogador.getNivelAtual(), conteudo);
+            escreverReal(jogador.getPremioAtual(), conteudo);
+            escreverTexto(jogador.getStatus(), conteudo);
+        });
+        return fecharQuadro(conteudo);
+    }
+    
+    /**
+     * PLACAR|versao|id|nome|nivel|premio|status
+     */
+    public static byte[] codificarPlacar(long versao, int id, String nome, int nivel, double premio, String status) {
+        ByteArrayOutputStream conteudo = iniciarQuadro(Protocolo.PLACAR, 32 + nome.length());
+        escreverInteiro(versao, conteudo);
+        escreverInteiro(id, conteudo);
+        escreverTexto(nome, conteudo);
+        escreverInteiro(nivel, conteudo);
+        escreverReal(premio, conteudo);
+        escreverTexto(status, conteudo);
+        return fecharQuadro(conteudo);
+    }
+    
+    /**
+     * JOGO_FINALIZADO|vencedor|premio
+     */
+    public static byte[] codificarJogoFinalizado(String vencedor, double premio) {
+        ByteArrayOutputStream conteudo = iniciarQuadro(Protocolo.JOGO_FINALIZADO, 16 + vencedor.length());
+        escreverTexto(vencedor, conteudo);
+        escreverReal(premio, conteudo);
+        return fecharQuadro(conteudo);
+    }
+    
+    /**
+     * TEMPO_ESGOTADO|status|premio|nivel
+     */
+    public static byte[] codificarTempoEsgotado(String status, double premio, int nivel) {
+        ByteArrayOutputStream conteudo = iniciarQuadro(Protocolo.TEMPO_ESGOTADO, 24);
+        escreverTexto(status, conteudo);
+        escreverReal(premio, conteudo);
+        escreverInteiro(nivel, conteudo);
+        return fecharQuadro(conteudo);
+    }
+    
+    private static ByteArrayOutputStream iniciarQuadro(String comando, int tamanho) {
+        ByteArrayOutputStream conteudo = new ByteArrayOutputStream(tamanho);
+        conteudo.write(CODIGOS.get(comando));
+        return conteudo;
+    }
+    
+    /**
+     * Prefixa o conteúdo com o seu tamanho
+     */
+    private static byte[] fecharQuadro(ByteArrayOutputStream conteudo) {
+        byte[] bytesConteudo = conteudo.toByteArray();
+        ByteArrayOutputStream quadro = new ByteArrayOutputStream(bytesConteudo.length + 5);
+        escreverVarint(bytesConteudo.length, quadro);
+        quadro.write(bytesConteudo, 0, bytesConteudo.length);
+        return quadro.toByteArray();
+    }
+    
+    private static void escreverTexto(String texto, ByteArrayOutputStream saida) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escreverVarint(bytes.length, saida);
+        saida.write(bytes, 0, bytes.length);
+    }
+    
+    private static void escreverInteiro(long numero, ByteArrayOutputStream saida) {
+        escreverVarint((numero << 1) ^ (numero >> 63), saida);
+    }
+    
+    private static void escreverReal(double valor, ByteArrayOutputStream saida) {
+        long bits = Double.doubleToLongBits(valor);
+        for (int deslocamento = 56; deslocamento >= 0; deslocamento -= 8) {
+            saida.write((int) (bits >>> deslocamento));
+        }
+    }
+    
+    private static void escreverVarint(long valor, ByteArrayOutputStream saida) {
+        while ((valor & ~0x7FL) != 0) {
+            saida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        saida.write((int) valor);
+    }
+    
+    /**
+     * Decodifica o conteúdo de um quadro (sem o tamanho) nas mesmas partes
+     * que Protocolo.parsearMensagem produziria para a mensagem em texto
+     */
+    public static String[] decodificar(ByteBuffer conteudo) {
+        try {
+            int codigo = conteudo.get() & 0xFF;
+            String campos = CAMPOS[codigo];
+            if (campos == null) {
+                throw new IllegalArgumentException("Código de comando desconhecido: " + codigo);
+            }
+            
+            String[] partes = new String[campos.length() + 1];
+            partes[0] = COMANDOS[codigo];
+            for (int i = 0; i < campos.length(); i++) {
+                partes[i + 1] = lerCampo(campos.charAt(i), conteudo);
+            }
+            return partes;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Quadro binário truncado");
+        }
+    }
+    
+    private static String lerCampo(char tipo, ByteBuffer conteudo) {
+        switch (tipo) {
+            case 'S':
+                long tamanho = lerVarint(conteudo);
+                if (tamanho > conteudo.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                int inicio = conteudo.position();
+                conteudo.position(inicio + (int) tamanho);
+                return new String(conteudo.array(), conteudo.arrayOffset() + inicio, (int) tamanho,
+                    StandardCharsets.UTF_8);
+            
+            case 'I':
+                return Long.toString(lerInteiro(conteudo));
+            
+            case 'D':
+                return Double.toString(conteudo.getDouble());
+            
+            case 'P':
+                StringBuilder placar = new StringBuilder();
+                long jogadores = lerVarint(conteudo);
+                for (long i = 0; i < jogadores; i++) {
+                    placar.append(lerInteiro(conteudo)).append('|')
+                        .append(lerCampo('S', conteudo)).append('|')
+                        .append(lerInteiro(conteudo)).append('|')
+                        .append(conteudo.getDouble()).append('|')
+                        .append(lerCampo('S', conteudo)).append(';');
+                }
+                return placar.toString();
+            
+            default:
+                return conteudo.get() != 0 ? "ACERTOU" : "ERROU";
+        }
+    }
+    
+    /**
+     * Campo S com texto livre do cliente (nome, chat): o tamanho delimita o
+     * campo aqui, mas o texto segue para clientes que usam o protocolo em
+     * texto, então as quebras de linha são removidas
+     */
+    private static String lerTexto(ByteBuffer conteudo) {
+        return Protocolo.removerQuebrasLinha(lerCampo('S', conteudo));
+    }
+    
+    private static long lerInteiro(ByteBuffer conteudo) {
+        long numero = lerVarint(conteudo);
+        return (numero >>> 1) ^ -(numero & 1);
+    }
+    
+    private static long lerVarint(ByteBuffer conteudo) {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+            byte b = conteudo.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint longo demais");
+    }
+    
+    /**
+     * Entrega um comando do cliente ao tratador, lendo os campos direto do
+     * conteúdo do quadro (sem o tamanho)
+     */
+    public static void despachar(ByteBuffer conteudo, TratadorComandos tratador) {
+        try {
+            int codigo = conteudo.get() & 0xFF;
+            switch (codigo) {
+                case 0x01:
+                    tratador.aoConectar(lerTexto(conteudo), true);
+                    break;
+                
+                case 0x02:
+                    long resposta = lerInteiro(conteudo);
+                    if (resposta == (int) resposta) {
+                        tratador.aoResponder((int) resposta);
+                    } else {
+                        tratador.aoResponderInvalido();
+                    }
+                    break;
+                
+                case 0x03:
+                    tratador.aoParar();
+                    break;
+                
+                case 0x04:
+                    tratador.aoConversar(lerTexto(conteudo));
+                    break;
+                
+                case 0x05:
+                    tratador.aoSincronizar();
+                    break;
+                
+                case 0x06:
+                    tratador.aoRetomar(lerCampo('S', conteudo), true);
+                    break;
+                
+                case 0x07:
+                    tratador.aoPing();
+                    break;
+                
+                case 0x08:
+                    tratador.aoPong();
+                    break;
+                
+                default:
+                    if (COMANDOS[codigo] == null) {
+                        throw new IllegalArgumentException("Código de comando desconhecido: " + codigo);
+                    }
+                    tratador.aoComandoDesconhecido(COMANDOS[codigo]);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Quadro binário truncado");
+        }
+    }
+    
+    /**
+     * Entrega uma mensagem do servidor ao tratador, lendo os campos direto
+     * do conteúdo do quadro (sem o tamanho), sem passar por texto
+     */
+    public static void despacharMensagem(ByteBuffer conteudo, TratadorMensagens tratador) {
+        try {
+            int codigo = conteudo.get() & 0xFF;
+            switch (codigo) {
+                case 0x07:
+                    tratador.aoPing();
+                    break;
+                
+                case 0x10:
+                    tratador.aoConectado(lerCampo('S', conteudo), lerCampo('S', conteudo));
+                    break;
+                
+                case 0x11:
+                    tratador.aoErro(lerCampo('S', conteudo));
+                    break;
+                
+                case 0x12:
+                    String enunciado = lerCampo('S', conteudo);
+                    String[] alternativas = new String[Pergunta.ALTERNATIVAS];
+                    for (int i = 0; i < alternativas.length; i++) {
+                        alternativas[i] = lerCampo('S', conteudo);
+                    }
+                    tratador.aoPergunta(enunciado, alternativas, (int) lerInteiro(conteudo), conteudo.getDouble());
+                    break;
+                
+                case 0x13:
+                    boolean acertou = conteudo.get() != 0;
+                    double premio = conteudo.getDouble();
+                    tratador.aoResultado(acertou, premio, (int) lerInteiro(conteudo));
+                    break;
+                
+                case 0x14:
+                    long versao = lerInteiro(conteudo);
+                    Map<Integer, PlacarCliente.Entrada> jogadores = new LinkedHashMap<>();
+                    for (long i = lerVarint(conteudo); i > 0; i--) {
+                        int id = (int) lerInteiro(conteudo);
+                        String nome = lerCampo('S', conteudo);
+                        int nivel = (int) lerInteiro(conteudo);
+                        jogadores.put(id, new PlacarCliente.Entrada(nome, nivel, conteudo.getDouble(), lerCampo('S', conteudo)));
+                    }
+                    tratador.aoEstatisticas(versao, jogadores);
+                    break;
+                
+                case 0x15:
+                    long versaoPlacar = lerInteiro(conteudo);
+                    int id = (int) lerInteiro(conteudo);
+                    String nome = lerCampo('S', conteudo);
+                    int nivel = (int) lerInteiro(conteudo);
+                    double premioJogador = conteudo.getDouble();
+                    tratador.aoPlacar(versaoPlacar, id, new PlacarCliente.Entrada(nome, nivel, premioJogador, lerCampo('S', conteudo)));
+                    break;
+                
+                case 0x16:
+                    tratador.aoJogoIniciado();
+                    break;
+                
+                case 0x17:
+                    tratador.aoJogoFinalizado(lerCampo('S', conteudo), conteudo.getDouble());
+                    break;
+                
+                case 0x18:
+                    tratador.aoMensagem(lerCampo('S', conteudo), lerCampo('S', conteudo));
+                    break;
+                
+                case 0x19:
+                    String status = lerCampo('S', conteudo);
+                    double premioFinal = conteudo.getDouble();
+                    tratador.aoTempoEsgotado(status, premioFinal, (int) lerInteiro(conteudo));
+                    break;
+                
+                default:
+                    if (COMANDOS[codigo] == null) {
+                        throw new IllegalArgumentException("Código de comando desconhecido: " + codigo);
+                    }
+                    // Comandos do cliente e PONG: o servidor não os envia
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Quadro binário truncado");
+        }
+    }
+    
+    /**
+     * Extrai um quadro completo do buffer e o entrega ao tratador (modo NIO)
+     * Retorna false, sem consumir nada, se o quadro ainda não chegou inteiro
+     */
+    public static boolean extrairQuadro(ByteBuffer buffer, TratadorComandos tratador) {
+        int posicao = buffer.position();
+        int tamanho = 0;
+        for (int deslocamento = 0; ; deslocamento += 7) {
+            if (posicao >= buffer.limit()) {
+                return false;
+            }
+            byte b = buffer.get(posicao++);
+            tamanho |= (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            if (deslocamento >= 21) {
+                throw new IllegalArgumentException("Tamanho de quadro inválido");
+            }
+        }
+        
+        if (tamanho > TAMANHO_MAXIMO_CLIENTE) {
+            throw new IllegalArgumentException("Mensagem muito longa");
+        }
+        if (buffer.limit() - posicao < tamanho) {
+            return false;
+        }
+        
+        // O buffer avança antes do tratamento, que pode desconectar o cliente
+        ByteBuffer conteudo = buffer.duplicate();
+        conteudo.position(posicao);
+        conteudo.limit(posicao + tamanho);
+        buffer.position(posicao + tamanho);
+        despachar(conteudo, tratador);
+        return true;
+    }
+    
+    /**
+     * Lê o conteúdo de um quadro de um stream bloqueante
+     * Retorna null se a conexão foi encerrada entre dois quadros
+     */
+    public static ByteBuffer lerQuadro(DataInputStream entrada, int tamanhoMaximo) throws IOException {
+        int tamanho = 0;
+        for (int deslocamento = 0; ; deslocamento += 7) {
+            int b = entrada.read();
+            if (b < 0) {
+                if (deslocamento == 0) {
+                    return null;
+                }
+                throw new EOFException("Conexão encerrada no meio de um quadro");
+            }
+            tamanho |= (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            if (deslocamento >= 21) {
+                throw new IllegalArgumentException("Tamanho de quadro inválido");
+            }
+        }
+        
+        if (tamanho > tamanhoMaximo) {
+            throw new IllegalArgumentException("Mensagem muito longa");
+        }
+        
+        byte[] conteudo = new byte[tamanho];
+        entrada.readFully(conteudo);
+        return ByteBuffer.wrap(conteudo);
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Mensagem do protocolo já codificada em UTF-8, pronta para o socket
+ * É imutável: um broadcast codifica a mensagem uma única vez e o mesmo
+ * quadro é compartilhado por todas as conexões da sala. A codificação
+ * binária (ProtocoloBinario) é gerada apenas se alguma conexão binária
+ * precisar dela, e também uma única vez; as mensagens com números levam
+ * um codificador que escreve os valores direto (ProtocoloBinario), sem
+ * reler o texto
+ *
+ * Um lote junta várias mensagens do mesmo comando em um único quadro
+ * (uma linha ou um quadro binário por mensagem, em sequência), que ocupa
+ * uma única posição na fila de saída e sai em uma única escrita
+ */
+public final class Quadro {
+    private final String texto;
+    private final List<String> lote; // null para uma única mensagem
+    private final Supplier<byte[]> codificador; // null: codifica o texto
+    private final byte[] bytes;
+    private final ByteBuffer dados;
+    private final boolean descartavel;
+    private final boolean baixaPrioridade;
+    private volatile byte[] bytesBinarios;
+    private int indiceComando = -1; // calculado no primeiro uso
+    
+    private Quadro(String texto, List<String> lote, Supplier<byte[]> codificador) {
+        this.texto = texto;
+        this.lote = lote;
+        this.codificador = codificador;
+        this.bytes = (texto + "\n").getBytes(StandardCharsets.UTF_8);
+        this.dados = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        this.descartavel = Protocolo.isDescartavel(texto);
+        this.baixaPrioridade = Protocolo.isBaixaPrioridade(texto);
+    }
+    
+    /**
+     * Codifica uma mensagem do protocolo
+     */
+    public static Quadro de(String mensagem) {
+        return new Quadro(mensagem, null, null);
+    }
+    
+    /**
+     * Codifica uma mensagem cuja versão binária é gerada pelo codificador
+     * informado, chamado só se alguma conexão binária precisar dela
+     */
+    public static Quadro de(String mensagem, Supplier<byte[]> codificador) {
+        return new Quadro(mensagem, null, codificador);
+    }
+    
+    /**
+     * Codifica várias mensagens do mesmo comando em um único quadro
+     */
+    public static Quadro lote(List<String> mensagens) {
+        return new Quadro(String.join("\n", mensagens), List.copyOf(mensagens), null);
+    }
+    
+    /**
+     * Retorna uma visão própria dos bytes (posição independente), para uso
+     * em escritas não bloqueantes
+     */
+    public ByteBuffer buffer(boolean binario) {
+        if (binario) {
+            return ByteBuffer.wrap(binario()).asReadOnlyBuffer();
+        }
+        return dados.duplicate();
+    }
+    
+    /**
+     * Escreve o quadro em um stream bloqueante
+     */
+    public void escreverEm(OutputStream saida, boolean binario) throws IOException {
+        saida.write(binario ? binario() : bytes);
+    }
+    
+    /**
+     * Codificação binária; se duas conexões a gerarem ao mesmo tempo, o
+     * resultado é o mesmo e qualquer uma das cópias serve
+     */
+    private byte[] binario() {
+        byte[] codificado = bytesBinarios;
+        if (codificado == null) {
+            if (codificador != null) {
+                codificado = codificador.get();
+            } else {
+                codificado = lote == null ? ProtocoloBinario.codificar(texto) : codificarLote();
+            }
+            bytesBinarios = codificado;
+        }
+        return codificado;
+    }
+    
+    private byte[] codificarLote() {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(bytes.length + 4 * lote.size());
+        for (String mensagem : lote) {
+            byte[] quadro = ProtocoloBinario.codificar(mensagem);
+            saida.write(quadro, 0, quadro.length);
+        }
+        return saida.toByteArray();
+    }
+    
+    /**
+     * Indica se o quadro pode ser descartado para um cliente lento
+     */
+    public boolean isDescartavel() {
+        return descartavel;
+    }
+    
+    /**
+     * Indica se o quadro é escrito só depois dos demais pendentes (chat)
+     */
+    public boolean isBaixaPrioridade() {
+        return baixaPrioridade;
+    }
+    
+    public int getTamanho() {
+        return bytes.length;
+    }
+    
+    /**
+     * Tamanho do quadro na codificação usada pela conexão
+     */
+    public int getTamanho(boolean binario) {
+        return binario ? binario().length : bytes.length;
+    }
+    
+    /**
+     * Índice do comando em Metricas; como o de binario(), o cálculo pode
+     * ser repetido por outra thread sem problema
+     */
+    int getIndiceComando() {
+        int indice = indiceComando;
+        if (indice < 0) {
+            indice = Metricas.indiceComando(texto);
+            indiceComando = indice;
+        }
+        return indice;
+    }
+    
+    public String getTexto() {
+        return texto;
+    }
+}
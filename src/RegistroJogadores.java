@@ -0,0 +1,149 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Registro concorrente indexado pelo identificador do jogador na sala
+ * Cada jogador recebe o menor identificador livre e o mantém enquanto
+ * estiver registrado; como os identificadores são reaproveitados, ficam
+ * densos e servem de índice em arrays
+ *
+ * Leituras e iteração não usam lock nem copiam a coleção (a iteração é
+ * fracamente consistente, como a das coleções de java.util.concurrent).
+ * Só entradas e saídas, que são raras, passam por um lock curto
+ */
+public class RegistroJogadores<T> {
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private volatile AtomicReferenceArray<T> entradas;
+    private volatile int limite;
+    private final AtomicInteger tamanho;
+    private final ReentrantLock lockEscrita;
+    private int menorLivre;
+    
+    public RegistroJogadores() {
+        this.entradas = new AtomicReferenceArray<>(CAPACIDADE_INICIAL);
+        this.limite = 0;
+        this.tamanho = new AtomicInteger();
+        this.lockEscrita = new ReentrantLock();
+        this.menorLivre = 0;
+    }
+    
+    /**
+     * Registra o valor no menor identificador livre e o retorna
+     */
+    public int adicionar(T valor) {
+        lockEscrita.lock();
+        try {
+            AtomicReferenceArray<T> atual = entradas;
+            int id = menorLivre;
+            while (id < atual.length() && atual.get(id) != null) {
+                id++;
+            }
+            gravar(id, valor);
+            menorLivre = id + 1;
+            return id;
+        } finally {
+            lockEscrita.unlock();
+        }
+    }
+    
+    /**
+     * Registra o valor em um identificador já conhecido (atribuído por
+     * outro registro da mesma sala)
+     */
+    public void colocar(int id, T valor) {
+        lockEscrita.lock();
+        try {
+            gravar(id, valor);
+        } finally {
+            lockEscrita.unlock();
+        }
+    }
+    
+    /**
+     * Grava o valor, crescendo o array se preciso (chamado com o lock)
+     */
+    private void gravar(int id, T valor) {
+        AtomicReferenceArray<T> atual = entradas;
+        if (id >= atual.length()) {
+            int capacidade = atual.length();
+            while (capacidade <= id) {
+                capacidade *= 2;
+            }
+            AtomicReferenceArray<T> maior = new AtomicReferenceArray<>(capacidade);
+            for (int i = 0; i < limite; i++) {
+                maior.set(i, atual.get(i));
+            }
+            atual = maior;
+            entradas = maior;
+        }
+        
+        if (atual.getAndSet(id, valor) == null) {
+            tamanho.incrementAndGet();
+        }
+        if (id >= limite) {
+            limite = id + 1;
+        }
+    }
+    
+    /**
+     * Remove o valor do identificador, que fica livre para reuso
+     */
+    public T remover(int id) {
+        lockEscrita.lock();
+        try {
+            AtomicReferenceArray<T> atual = entradas;
+            if (id < 0 || id >= atual.length()) {
+                return null;
+            }
+            
+            T anterior = atual.getAndSet(id, null);
+            if (anterior != null) {
+                tamanho.decrementAndGet();
+                menorLivre = Math.min(menorLivre, id);
+            }
+            return anterior;
+        } finally {
+            lockEscrita.unlock();
+        }
+    }
+    
+    /**
+     * Retorna o valor registrado no identificador, ou null
+     */
+    public T obter(int id) {
+        AtomicReferenceArray<T> atual = entradas;
+        return id >= 0 && id < atual.length() ? atual.get(id) : null;
+    }
+    
+    /**
+     * Executa a ação para cada valor registrado, sem lock e sem cópia
+     */
+    public void paraCada(Consumer<? super T> acao) {
+        AtomicReferenceArray<T> atual = entradas;
+        int fim = Math.min(limite, atual.length());
+        for (int i = 0; i < fim; i++) {
+            T valor = atual.get(i);
+            if (valor != null) {
+                acao.accept(valor);
+            }
+        }
+    }
+    
+    /**
+     * Quantidade de valores registrados
+     */
+    public int getTamanho() {
+        return tamanho.get();
+    }
+    
+    /**
+     * Maior identificador já usado + 1 (tamanho necessário para arrays
+     * indexados pelo identificador)
+     */
+    public int getLimite() {
+        return limite;
+    }
+}
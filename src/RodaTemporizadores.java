@@ -0,0 +1,268 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Roda de temporizadores hierárquica: uma única thread atende todos os
+ * prazos do servidor (os de resposta de cada jogador), em vez de uma
+ * tarefa do agendador ou uma thread por prazo
+ *
+ * O tempo é contado em ticks. Cada nível tem 64 posições, e cada posição
+ * uma lista duplamente encadeada dos temporizadores que vencem nela: o
+ * nível 0 cobre os próximos 64 ticks, o nível 1 os próximos 64², e assim
+ * por diante. Quando o nível 0 dá a volta, a posição seguinte do nível 1
+ * é redistribuída nos níveis de baixo (e o mesmo vale para os demais)
+ *
+ * Agendar e cancelar custam O(1) independentemente de quantos prazos
+ * estão pendentes: quem agenda só coloca o temporizador em uma fila sem
+ * lock, e quem cancela só troca o estado dele; a thread da roda é a única
+ * que mexe nas listas, ligando os novos e desligando os cancelados a cada
+ * tick. As tarefas rodam na thread da roda e devem ser curtas
+ */
+public class RodaTemporizadores {
+    private static final int BITS = 6;
+    private static final int POSICOES = 1 << BITS;
+    private static final int MASCARA = POSICOES - 1;
+    private static final int NIVEIS = 4;
+    private static final long ALCANCE = 1L << (BITS * NIVEIS); // em ticks
+    
+    private static final int PENDENTE = 0;
+    private static final int CANCELADO = 1;
+    private static final int EXPIRADO = 2;
+    
+    /**
+     * Prazo agendado na roda
+     */
+    public static final class Temporizador {
+        private static final AtomicIntegerFieldUpdater<Temporizador> ESTADO =
+            AtomicIntegerFieldUpdater.newUpdater(Temporizador.class, "estado");
+        
+        private final RodaTemporizadores roda;
+        private final long prazoNanos;
+        private final Runnable tarefa;
+        private volatile int estado;
+        
+        // Usados só pela thread da roda
+        private long tickPrazo;
+        private int nivel = -1; // -1 fora das listas
+        private int posicao;
+        private Temporizador anterior;
+        private Temporizador proximo;
+        
+        private Temporizador(RodaTemporizadores roda, long prazoNanos, Runnable tarefa) {
+            this.roda = roda;
+            this.prazoNanos = prazoNanos;
+            this.tarefa = tarefa;
+            this.estado = PENDENTE;
+        }
+        
+        /**
+         * Cancela o prazo; retorna false se ele já venceu ou já foi
+         * cancelado
+         */
+        public boolean cancelar() {
+            if (!ESTADO.compareAndSet(this, PENDENTE, CANCELADO)) {
+                return false;
+            }
+            roda.cancelados.add(this);
+            return true;
+        }
+    }
+    
+    private final long duracaoTickNanos;
+    private final long inicioNanos;
+    private final Temporizador[][] listas;
+    private final Queue<Temporizador> novos;
+    private final Queue<Temporizador> cancelados;
+    private long tickAtual; // próximo tick a processar
+    private volatile boolean rodando;
+    private Thread thread;
+    
+    public RodaTemporizadores(long duracaoTickMs) {
+        this.duracaoTickNanos = TimeUnit.MILLISECONDS.toNanos(duracaoTickMs);
+        this.inicioNanos = System.nanoTime();
+        this.listas = new Temporizador[NIVEIS][POSICOES];
+        this.novos = new ConcurrentLinkedQueue<>();
+        this.cancelados = new ConcurrentLinkedQueue<>();
+        this.tickAtual = 0;
+        this.rodando = false;
+    }
+    
+    /**
+     * Inicia a thread da roda
+     */
+    public void iniciar() {
+        rodando = true;
+        thread = new Thread(this::executar, "roda-temporizadores");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Para a roda; os prazos pendentes são descartados sem executar
+     */
+    public void parar() {
+        rodando = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    /**
+     * Agenda a tarefa para daqui a atrasoMs, com a precisão de um tick
+     * Pode ser chamado de qualquer thread
+     */
+    public Temporizador agendar(long atrasoMs, Runnable tarefa) {
+        long prazoNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(atrasoMs);
+        Temporizador temporizador = new Temporizador(this, prazoNanos, tarefa);
+        novos.add(temporizador);
+        return temporizador;
+    }
+    
+    private void executar() {
+        while (rodando) {
+            long espera = inicioNanos + tickAtual * duracaoTickNanos - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(this, espera);
+                continue;
+            }
+            
+            desligarCancelados();
+            ligarNovos();
+            
+            // Se a thread atrasou, os ticks perdidos são processados em sequência
+            long ultimo = (System.nanoTime() - inicioNanos) / duracaoTickNanos;
+            while (tickAtual <= ultimo && rodando) {
+                processarTick();
+                tickAtual++;
+            }
+        }
+    }
+    
+    private void desligarCancelados() {
+        Temporizador temporizador;
+        while ((temporizador = cancelados.poll()) != null) {
+            desligar(temporizador);
+        }
+    }
+    
+    private void ligarNovos() {
+        Temporizador temporizador;
+        while ((temporizador = novos.poll()) != null) {
+            if (temporizador.estado == PENDENTE) {
+                // Arredonda para cima: o prazo nunca vence antes da hora
+                long decorrido = temporizador.prazoNanos - inicioNanos;
+                temporizador.tickPrazo = (decorrido + duracaoTickNanos - 1) / duracaoTickNanos;
+                ligar(temporizador);
+            }
+        }
+    }
+    
+    /**
+     * Executa os prazos da posição do tick atual no nível 0, depois de
+     * redistribuir os níveis de cima se o nível 0 deu a volta
+     */
+    private void processarTick() {
+        if ((tickAtual & MASCARA) == 0) {
+            for (int nivel = 1; nivel < NIVEIS; nivel++) {
+                int posicao = (int) ((tickAtual >>> (BITS * nivel)) & MASCARA);
+                redistribuir(nivel, posicao);
+                if (posicao != 0) {
+                    break;
+                }
+            }
+        }
+        
+        int posicao = (int) (tickAtual & MASCARA);
+        Temporizador temporizador = listas[0][posicao];
+        listas[0][posicao] = null;
+        while (temporizador != null) {
+            Temporizador proximo = temporizador.proximo;
+            soltar(temporizador);
+            if (temporizador.tickPrazo > tickAtual) {
+                if (temporizador.estado == PENDENTE) {
+                    ligar(temporizador); // estava além do alcance da roda
+                }
+            } else if (Temporizador.ESTADO.compareAndSet(temporizador, PENDENTE, EXPIRADO)) {
+                try {
+                    temporizador.tarefa.run();
+                } catch (RuntimeException e) {
+                    Log.erro("erro_tarefa_roda", "erro", e);
+                }
+            }
+            temporizador = proximo;
+        }
+    }
+    
+    private void redistribuir(int nivel, int posicao) {
+        Temporizador temporizador = listas[nivel][posicao];
+        listas[nivel][posicao] = null;
+        while (temporizador != null) {
+            Temporizador proximo = temporizador.proximo;
+            soltar(temporizador);
+            if (temporizador.estado == PENDENTE) {
+                ligar(temporizador);
+            }
+            temporizador = proximo;
+        }
+    }
+    
+    /**
+     * Coloca o temporizador no nível em que a distância até o prazo cabe,
+     * na posição dada pelos bits do prazo naquele nível
+     */
+    private void ligar(Temporizador temporizador) {
+        long tick = Math.max(temporizador.tickPrazo, tickAtual);
+        long distancia = tick - tickAtual;
+        if (distancia >= ALCANCE) {
+            tick = tickAtual + ALCANCE - 1;
+            distancia = ALCANCE - 1;
+        }
+        
+        int nivel = 0;
+        while (distancia >= 1L << (BITS * (nivel + 1))) {
+            nivel++;
+        }
+        int posicao = (int) ((tick >>> (BITS * nivel)) & MASCARA);
+        
+        Temporizador primeiro = listas[nivel][posicao];
+        temporizador.nivel = nivel;
+        temporizador.posicao = posicao;
+        temporizador.anterior = null;
+        temporizador.proximo = primeiro;
+        if (primeiro != null) {
+            primeiro.anterior = temporizador;
+        }
+        listas[nivel][posicao] = temporizador;
+    }
+    
+    /**
+     * Tira o temporizador da sua lista, se ele estiver em uma
+     */
+    private void desligar(Temporizador temporizador) {
+        if (temporizador.nivel < 0) {
+            return;
+        }
+        if (temporizador.anterior != null) {
+            temporizador.anterior.proximo = temporizador.proximo;
+        } else {
+            listas[temporizador.nivel][temporizador.posicao] = temporizador.proximo;
+        }
+        if (temporizador.proximo != null) {
+            temporizador.proximo.anterior = temporizador.anterior;
+        }
+        soltar(temporizador);
+    }
+    
+    /**
+     * Marca o temporizador como fora das listas (a lista inteira da posição
+     * já foi retirada por quem chama, ou ele acabou de ser desligado)
+     */
+    private void soltar(Temporizador temporizador) {
+        temporizador.nivel = -1;
+        temporizador.anterior = null;
+        temporizador.proximo = null;
+    }
+}
@@ -0,0 +1,468 @@
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sala de jogo: uma partida independente com seu próprio estado e lock
+ * Jogadores de salas diferentes nunca disputam o mesmo lock, e dentro da
+ * sala o broadcast percorre os clientes sem lock e sem copiá-los
+ */
+public class Sala {
+    private final int id;
+    private final int jogadoresParaIniciar;
+    private final EstadoJogo estadoJogo;
+    private final RegistroJogadores<GerenciadorCliente> clientes;
+    private long versaoPlacar;
+    private boolean fimAnunciado;
+    
+    // Alterações de placar agregadas até o próximo tick da sala
+    private final ScheduledExecutorService agendador;
+    private final long intervaloPlacarMs;
+    private final Set<Jogador> placarPendente;
+    private boolean publicacaoAgendada;
+    
+    // Prazo de resposta de cada pergunta, na roda de temporizadores do
+    // servidor (roda null: sem limite)
+    private final RodaTemporizadores roda;
+    private final long tempoRespostaMs;
+    private final ConfiguracaoServidor.TempoEsgotado tempoEsgotado;
+    
+    // Chat da sala, enviado em lotes sem o lock da sala
+    private final CanalChat chat;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    public Sala(int id, int jogadoresParaIniciar, ScheduledExecutorService agendador, long intervaloPlacarMs,
+                ConfiguracaoServidor.EstadoJogadores estadoJogadores, Long semente) {
+        this(id, jogadoresParaIniciar, agendador, intervaloPlacarMs, new EstadoJogo(estadoJogadores, semente));
+    }
+    
+    /**
+     * Sala com uma partida já criada, sem prazo de resposta e com o chat
+     * enviado na hora
+     */
+    public Sala(int id, int jogadoresParaIniciar, ScheduledExecutorService agendador, long intervaloPlacarMs,
+                EstadoJogo estadoJogo) {
+        this(id, jogadoresParaIniciar, agendador, intervaloPlacarMs, 0, null, 0,
+            ConfiguracaoServidor.TempoEsgotado.PARAR, estadoJogo);
+    }
+    
+    /**
+     * Sala com uma partida já criada (registrada em um diário ou recuperada
+     * dele), chat em lotes a cada intervaloChatMs e prazo de resposta nos
+     * temporizadores da roda
+     */
+    public Sala(int id, int jogadoresParaIniciar, ScheduledExecutorService agendador, long intervaloPlacarMs,
+                long intervaloChatMs, RodaTemporizadores roda, long tempoRespostaMs,
+                ConfiguracaoServidor.TempoEsgotado tempoEsgotado, EstadoJogo estadoJogo) {
+        this.id = id;
+        this.jogadoresParaIniciar = jogadoresParaIniciar;
+        this.estadoJogo = estadoJogo;
+        this.clientes = new RegistroJogadores<>();
+        this.versaoPlacar = 0;
+        this.fimAnunciado = false;
+        this.agendador = agendador;
+        this.intervaloPlacarMs = intervaloPlacarMs;
+        this.placarPendente = new LinkedHashSet<>();
+        this.publicacaoAgendada = false;
+        this.roda = roda;
+        this.tempoRespostaMs = tempoRespostaMs;
+        this.tempoEsgotado = tempoEsgotado;
+        this.chat = new CanalChat(this, agendador, intervaloChatMs);
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Adiciona um jogador à sala
+     * Os demais recebem só a alteração; o novo jogador recebe o placar completo
+     */
+    public void adicionarJogador(Jogador jogador, GerenciadorCliente gerenciador) {
+        lock.lock();
+        try {
+            estadoJogo.adicionarJogador(jogador);
+            publicarAlteracao(jogador, jogador.getStatus());
+            clientes.colocar(jogador.getId(), gerenciador);
+            enviarEstatisticas(gerenciador);
+            Log.info("jogador_conectado", "jogador", jogador.getNome(), "sala", id, "total", clientes.getTamanho());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Remove um jogador da sala
+     */
+    public void removerJogador(Jogador jogador) {
+        lock.lock();
+        try {
+            clientes.remover(jogador.getId());
+            jogador.cancelarPrazoResposta();
+            estadoJogo.removerJogador(jogador);
+            placarPendente.remove(jogador);
+            publicarAlteracao(jogador, Protocolo.STATUS_SAIU);
+            Log.info("jogador_desconectado", "jogador", jogador.getNome(), "sala", id, "total", clientes.getTamanho());
+            
+            // A saída pode ter deixado um único jogador ativo
+            verificarFimJogo();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Tira da sala a conexão de um jogador cuja sessão ficou suspensa
+     * O jogador continua na partida e no placar, sem receber mensagens
+     */
+    public void suspenderJogador(Jogador jogador, GerenciadorCliente gerenciador) {
+        lock.lock();
+        try {
+            if (clientes.obter(jogador.getId()) == gerenciador) {
+                clientes.remover(jogador.getId());
+            }
+            Log.info("sessao_suspensa", "jogador", jogador.getNome(), "sala", id);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Liga a nova conexão de um jogador que retomou a sessão
+     * Só ela recebe o placar completo, o início do jogo, a pergunta
+     * pendente e o resultado, se a partida já terminou; os demais
+     * jogadores não recebem nada
+     */
+    public void retomarJogador(Jogador jogador, GerenciadorCliente gerenciador) {
+        lock.lock();
+        try {
+            // A nova conexão pode ter caído antes de chegar aqui
+            if (!gerenciador.isConectado()) {
+                return;
+            }
+            clientes.colocar(jogador.getId(), gerenciador);
+            enviarEstatisticas(gerenciador);
+            
+            if (estadoJogo.isJogoIniciado()) {
+                gerenciador.enviarMensagem(Protocolo.criarMensagemJogoIniciado());
+                Pergunta pergunta = jogador.getPerguntaAtual();
+                // A pergunta pendente não vai para o diário: quem volta de
+                // uma partida recuperada recebe outra do mesmo nível
+                if (pergunta == null && !estadoJogo.isJogoFinalizado() && jogador.estaNoJogo()) {
+                    pergunta = obterPerguntaParaJogador(jogador);
+                }
+                if (pergunta != null) {
+                    gerenciador.enviarQuadro(pergunta.getQuadro());
+                }
+            }
+            
+            Jogador vencedor = estadoJogo.getVencedor();
+            if (fimAnunciado && vencedor != null) {
+                gerenciador.enviarQuadro(Protocolo.criarQuadroJogoFinalizado(
+                    vencedor.getNome(), vencedor.getPremioAtual()));
+            }
+            Log.info("sessao_retomada", "jogador", jogador.getNome(), "sala", id);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Indica se a sala ainda recebe novos jogadores
+     */
+    public boolean isAceitandoJogadores() {
+        lock.lock();
+        try {
+            return !estadoJogo.isJogoIniciado() && clientes.getTamanho() < jogadoresParaIniciar;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Indica se não há mais jogadores na sala (conectados ou com a sessão
+     * suspensa)
+     */
+    public boolean isVazia() {
+        return estadoJogo.getJogadores().getTamanho() == 0;
+    }
+    
+    /**
+     * Retorna os gerenciadores dos clientes da sala
+     */
+    public List<GerenciadorCliente> getClientes() {
+        List<GerenciadorCliente> copia = new ArrayList<>();
+        clientes.paraCada(copia::add);
+        return copia;
+    }
+    
+    /**
+     * Verifica se pode iniciar o jogo (sala completa)
+     */
+    public void verificarInicioJogo() {
+        lock.lock();
+        try {
+            if (!estadoJogo.isJogoIniciado() && clientes.getTamanho() >= jogadoresParaIniciar) {
+                iniciarJogo();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Inicia o jogo
+     */
+    private void iniciarJogo() {
+        estadoJogo.iniciarJogo();
+        Log.info("jogo_iniciado", "sala", id, "jogadores", clientes.getTamanho());
+        
+        // Notifica todos os clientes
+        broadcast(Protocolo.criarMensagemJogoIniciado());
+        
+        // Envia primeira pergunta para cada jogador
+        estadoJogo.getJogadores().paraCada(jogador -> {
+            Pergunta pergunta = obterPerguntaParaJogador(jogador);
+            if (pergunta != null) {
+                GerenciadorCliente gerenciador = clientes.obter(jogador.getId());
+                if (gerenciador != null) {
+                    gerenciador.enviarQuadro(pergunta.getQuadro());
+                }
+            }
+        });
+    }
+    
+    /**
+     * Processa resposta de um jogador
+     * A transição do jogo usa só o lock do EstadoJogo; o da sala fica para
+     * o placar e o anúncio do fim, publicados depois que o diário grava a
+     * transição
+     */
+    public boolean processarResposta(Jogador jogador, int resposta) {
+        jogador.cancelarPrazoResposta();
+        boolean acertou = estadoJogo.processarResposta(jogador, resposta);
+        estadoJogo.aposGravar(() -> publicarTransicao(jogador));
+        return acertou;
+    }
+    
+    /**
+     * Processa decisão de parar de um jogador
+     */
+    public void processarParada(Jogador jogador) {
+        jogador.cancelarPrazoResposta();
+        estadoJogo.processarParada(jogador);
+        Log.info("jogador_parou", "jogador", jogador.getNome(), "sala", id, "premio", jogador.getPremioAtual());
+        estadoJogo.aposGravar(() -> publicarTransicao(jogador));
+    }
+    
+    /**
+     * Executa a ação depois que as transições já aplicadas à partida
+     * estiverem no diário, sem bloquear quem chama (EstadoJogo.aposGravar)
+     */
+    public void aposGravar(Runnable acao) {
+        estadoJogo.aposGravar(acao);
+    }
+    
+    /**
+     * Leva ao placar a transição de um jogador e anuncia o fim, se for o caso
+     */
+    private void publicarTransicao(Jogador jogador) {
+        lock.lock();
+        try {
+            marcarPlacar(jogador);
+            verificarFimJogo();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Anuncia o vencedor, uma única vez, se a partida terminou (chamado com
+     * o lock)
+     * O placar pendente é publicado antes, para que todos recebam o estado
+     * final junto com o resultado
+     */
+    private void verificarFimJogo() {
+        if (estadoJogo.isJogoFinalizado() && !fimAnunciado) {
+            fimAnunciado = true;
+            publicarPendentes();
+            Jogador vencedor = estadoJogo.getVencedor();
+            if (vencedor != null) {
+                Log.info("jogo_finalizado", "sala", id, "vencedor", vencedor.getNome(),
+                    "premio", vencedor.getPremioAtual());
+                
+                broadcast(Protocolo.criarQuadroJogoFinalizado(
+                    vencedor.getNome(),
+                    vencedor.getPremioAtual()
+                ));
+            }
+        }
+    }
+    
+    /**
+     * Obtém pergunta para um jogador (sem o lock da sala) e arma o prazo
+     * para respondê-la
+     */
+    public Pergunta obterPerguntaParaJogador(Jogador jogador) {
+        Pergunta pergunta = estadoJogo.obterPerguntaParaJogador(jogador);
+        if (pergunta != null && roda != null) {
+            jogador.setPrazoResposta(roda.agendar(tempoRespostaMs, () -> esgotarTempo(jogador, pergunta)));
+        }
+        return pergunta;
+    }
+    
+    /**
+     * Fim do prazo de resposta (thread da roda de temporizadores)
+     * Se a pergunta ainda está pendente, o jogador para ou é eliminado e
+     * recebe TEMPO_ESGOTADO; uma resposta que chegou antes tem prioridade
+     */
+    private void esgotarTempo(Jogador jogador, Pergunta pergunta) {
+        if (!jogador.tomarPerguntaAtual(pergunta)) {
+            return;
+        }
+        
+        estadoJogo.processarTempoEsgotado(jogador, tempoEsgotado == ConfiguracaoServidor.TempoEsgotado.ELIMINAR);
+        Log.info("tempo_esgotado", "jogador", jogador.getNome(), "sala", id, "status", jogador.getStatus());
+        lock.lock();
+        try {
+            // Com a sessão suspensa não há conexão; o placar basta
+            GerenciadorCliente gerenciador = clientes.obter(jogador.getId());
+            if (gerenciador != null && gerenciador.getJogador() == jogador) {
+                gerenciador.enviarQuadro(Protocolo.criarQuadroTempoEsgotado(
+                    jogador.getStatus(), jogador.getPremioAtual(), jogador.getNivelAtual()));
+            }
+            marcarPlacar(jogador);
+            verificarFimJogo();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Envia mensagem para todos os clientes da sala
+     * A mensagem é codificada uma única vez e o quadro é compartilhado
+     * Não usa o lock: quem precisa de ordem entre mensagens (as versões do
+     * placar) já chama com o lock adquirido
+     */
+    public void broadcast(String mensagem) {
+        broadcast(Quadro.de(mensagem));
+    }
+    
+    /**
+     * Envia um quadro já codificado (um lote de chat, por exemplo) para
+     * todos os clientes da sala
+     */
+    public void broadcast(Quadro quadro) {
+        long inicio = Metricas.iniciar();
+        for (int i = 0; i < clientes.getLimite(); i++) {
+            GerenciadorCliente gerenciador = clientes.obter(i);
+            if (gerenciador != null && gerenciador.isConectado()) {
+                gerenciador.enviarQuadro(quadro);
+            }
+        }
+        Metricas.registrarBroadcast(inicio);
+    }
+    
+    /**
+     * Marca o jogador como alterado no placar (chamado com o lock)
+     * Várias alterações dentro do mesmo intervalo viram uma única
+     * publicação por jogador no próximo tick da sala
+     */
+    private void marcarPlacar(Jogador jogador) {
+        if (intervaloPlacarMs <= 0) {
+            publicarAlteracao(jogador, jogador.getStatus());
+            return;
+        }
+        
+        placarPendente.add(jogador);
+        if (!publicacaoAgendada) {
+            publicacaoAgendada = true;
+            agendador.schedule(this::publicarPlacarAgendado, intervaloPlacarMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Tick da sala: publica as alterações acumuladas
+     */
+    private void publicarPlacarAgendado() {
+        lock.lock();
+        try {
+            publicacaoAgendada = false;
+            publicarPendentes();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Publica agora as alterações acumuladas (chamado com o lock)
+     */
+    private void publicarPendentes() {
+        for (Jogador jogador : placarPendente) {
+            publicarAlteracao(jogador, jogador.getStatus());
+        }
+        placarPendente.clear();
+    }
+    
+    /**
+     * Gera uma nova versão do placar com a alteração (chamado com o lock)
+     */
+    private void publicarAlteracao(Jogador jogador, String status) {
+        versaoPlacar++;
+        broadcast(Protocolo.criarQuadroPlacar(versaoPlacar, jogador.getId(), jogador.getNome(),
+            jogador.getNivelAtual(), jogador.getPremioAtual(), status));
+    }
+    
+    /**
+     * Envia o placar completo para um único cliente (entrada ou SINCRONIZAR)
+     */
+    public void enviarEstatisticas(GerenciadorCliente gerenciador) {
+        lock.lock();
+        try {
+            String estatisticas = estadoJogo.obterEstatisticas();
+            // O placar muda depois do lock: a versão binária é gerada já,
+            // e só para uma conexão binária
+            byte[] binario = gerenciador.isBinario()
+                ? ProtocoloBinario.codificarEstatisticas(versaoPlacar, estadoJogo.getJogadores()) : null;
+            gerenciador.enviarQuadro(Quadro.de(Protocolo.criarMensagemEstatisticas(versaoPlacar, estatisticas),
+                binario != null ? () -> binario : null));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Coloca a mensagem de chat no canal da sala, que a envia a todos no
+     * próximo lote; retorna false se o canal está cheio
+     */
+    public boolean broadcastChat(String remetente, String texto) {
+        if (!chat.publicar(remetente, texto)) {
+            return false;
+        }
+        Log.info("chat", "sala", id, "remetente", remetente, "texto", texto);
+        return true;
+    }
+    
+    /**
+     * Estado da partida da sala (instantâneos do diário)
+     */
+    public EstadoJogo getEstadoJogo() {
+        return estadoJogo;
+    }
+    
+    /**
+     * Verifica se o jogo da sala está iniciado
+     */
+    public boolean isJogoIniciado() {
+        return estadoJogo.isJogoIniciado();
+    }
+    
+    /**
+     * Verifica se a partida da sala já terminou
+     */
+    public boolean isJogoFinalizado() {
+        return estadoJogo.isJogoFinalizado();
+    }
+}
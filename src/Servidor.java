@@ -1,10 +1,27 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Servidor principal do Jogo do Milhão - TI
- * Gerencia múltiplos clientes simultaneamente usando sockets TCP
+ * Gerencia múltiplos clientes simultaneamente usando sockets TCP,
+ * distribuindo-os entre salas com partidas independentes
  * 
  * Justificativa da escolha TCP:
  * - Garante entrega ordenada das mensagens
@@ -15,14 +32,58 @@ import java.util.*;
 public class Servidor {
     private static final int PORTA = 12345;
     private ServerSocket serverSocket;
-    private EstadoJogo estadoJogo;
-    private Map<Jogador, GerenciadorCliente> clientes;
-    private boolean servidorRodando;
+    private GerenciadorSalas gerenciadorSalas;
+    private SessoesJogadores sessoes;
+    private volatile boolean servidorRodando;
+    private final AtomicBoolean encerrado; // encerrar roda uma única vez
+    private ConfiguracaoServidor configuracao;
+    private LoopEventos[] loopsEventos;
+    private ExecutorService executorClientes;
+    private ExecutorService executorEscrita;
+    private ScheduledExecutorService agendador;
+    
+    // Banco de perguntas em arquivo (--perguntas) e a versão carregada
+    private static final long INTERVALO_VERIFICACAO_PERGUNTAS_S = 5;
+    private Path arquivoPerguntas;
+    private FileTime versaoPerguntas;
+    
+    // Diário de eventos das partidas (--diario), ou null
+    private DiarioEventos diario;
+    
+    // Prazos de resposta (--tempoResposta), ou null sem limite
+    private static final long TICK_TEMPORIZADORES_MS = 100;
+    private RodaTemporizadores roda;
+    
+    // Conexões abertas, verificadas periodicamente (--intervaloPing)
+    private static final Quadro PING = Quadro.de(Protocolo.criarMensagemPing());
+    private final Set<GerenciadorCliente> conexoes;
+    
+    // Endpoint de métricas (--metricas), ou null
+    private HttpServer servidorMetricas;
     
     public Servidor() {
-        this.estadoJogo = new EstadoJogo();
-        this.clientes = new HashMap<>();
+        this(new ConfiguracaoServidor());
+    }
+    
+    public Servidor(ConfiguracaoServidor configuracao) {
+        // Uma única thread atende os ticks de placar de todas as salas
+        this.agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "agendador-placar");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Uma única roda de temporizadores atende os prazos de resposta
+        this.roda = configuracao.getTempoRespostaS() > 0 ? new RodaTemporizadores(TICK_TEMPORIZADORES_MS) : null;
+        this.gerenciadorSalas = new GerenciadorSalas(configuracao.getJogadoresPorSala(),
+            agendador, configuracao.getIntervaloPlacarMs(), configuracao.getIntervaloChatMs(), roda,
+            TimeUnit.SECONDS.toMillis(configuracao.getTempoRespostaS()), configuracao.getTempoEsgotado(),
+            configuracao.getEstadoJogadores(), configuracao.getSemente());
+        this.sessoes = new SessoesJogadores(gerenciadorSalas, agendador,
+            TimeUnit.SECONDS.toMillis(configuracao.getTempoSessaoS()));
+        this.conexoes = ConcurrentHashMap.newKeySet();
         this.servidorRodando = false;
+        this.encerrado = new AtomicBoolean(false);
+        this.configuracao = configuracao;
     }
     
     /**
@@ -30,211 +91,407 @@ public class Servidor {
      */
     public void iniciar() {
         try {
-            serverSocket = new ServerSocket(PORTA);
-            servidorRodando = true;
-            
-            System.out.println("========================================");
-            System.out.println("  SERVIDOR DO JOGO DO MILHÃO - TI");
-            System.out.println("========================================");
-            System.out.println("Servidor iniciado na porta " + PORTA);
-            System.out.println("Aguardando conexões de clientes...");
-            System.out.println("Pressione Ctrl+C para encerrar o servidor");
-            System.out.println("========================================\n");
-            
-            // Loop principal: aceita conexões de clientes
-            while (servidorRodando) {
-                try {
-                    Socket clienteSocket = serverSocket.accept();
-                    System.out.println("Nova conexão recebida de: " + clienteSocket.getInetAddress());
-                    
-                    // Cria um gerenciador para o novo cliente
-                    GerenciadorCliente gerenciador = new GerenciadorCliente(clienteSocket, this);
-                    gerenciador.start();
-                    
-                } catch (SocketException e) {
-                    if (servidorRodando) {
-                        System.err.println("Erro ao aceitar conexão: " + e.getMessage());
-                    }
-                }
+            String diretorioLog = configuracao.getDiretorioLog();
+            Log.iniciar(diretorioLog != null ? Paths.get(diretorioLog) : null,
+                configuracao.getTamanhoLogBytes(), configuracao.getTransbordoLog());
+            if (roda != null) {
+                roda.iniciar();
+            }
+            if (configuracao.getArquivoPerguntas() != null) {
+                carregarPerguntas(Paths.get(configuracao.getArquivoPerguntas()));
+            }
+            if (configuracao.getDiretorioDiario() != null) {
+                abrirDiario(Paths.get(configuracao.getDiretorioDiario()));
+            }
+            if (configuracao.getIntervaloPingS() > 0) {
+                long intervalo = configuracao.getIntervaloPingS();
+                agendador.scheduleWithFixedDelay(this::verificarConexoesOciosas, intervalo, intervalo, TimeUnit.SECONDS);
+            }
+            if (configuracao.getPortaMetricas() > 0) {
+                abrirMetricas(configuracao.getPortaMetricas());
             }
             
+            switch (configuracao.getModo()) {
+                case NIO:
+                    iniciarNio();
+                    break;
+                
+                case VIRTUAL:
+                    iniciarThreads(criarExecutorVirtual(), criarExecutorVirtual());
+                    break;
+                
+                default:
+                    iniciarThreads(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
+            }
         } catch (IOException e) {
             System.err.println("Erro ao iniciar servidor: " + e.getMessage());
             e.printStackTrace();
+        } catch (IllegalStateException e) {
+            System.err.println("Erro ao iniciar servidor: " + e.getMessage());
         } finally {
             encerrar();
         }
     }
     
     /**
-     * Adiciona um jogador ao jogo
+     * Mapeia o banco de perguntas em arquivo e passa a verificar
+     * periodicamente se ele foi substituído
      */
-    public synchronized void adicionarJogador(Jogador jogador, GerenciadorCliente gerenciador) {
-        estadoJogo.adicionarJogador(jogador);
-        clientes.put(jogador, gerenciador);
-        System.out.println("Jogador conectado: " + jogador.getNome() + 
-                         " (Total: " + estadoJogo.getJogadores().size() + ")");
+    private void carregarPerguntas(Path arquivo) throws IOException {
+        arquivoPerguntas = arquivo;
+        versaoPerguntas = Files.getLastModifiedTime(arquivo);
+        BancoPerguntas.usarFonte(ArquivoPerguntas.abrir(arquivo));
+        Log.info("banco_perguntas", "arquivo", arquivo);
+        
+        agendador.scheduleWithFixedDelay(this::recarregarPerguntas, INTERVALO_VERIFICACAO_PERGUNTAS_S,
+            INTERVALO_VERIFICACAO_PERGUNTAS_S, TimeUnit.SECONDS);
     }
     
     /**
-     * Remove um jogador do jogo
+     * Troca o banco de perguntas, sem reiniciar, se o arquivo mudou
+     * Se o novo arquivo for inválido, o banco atual continua em uso
      */
-    public synchronized void removerJogador(Jogador jogador, GerenciadorCliente gerenciador) {
-        estadoJogo.removerJogador(jogador);
-        clientes.remove(jogador);
-        System.out.println("Jogador desconectado: " + jogador.getNome() + 
-                         " (Total: " + estadoJogo.getJogadores().size() + ")");
+    private void recarregarPerguntas() {
+        try {
+            FileTime versao = Files.getLastModifiedTime(arquivoPerguntas);
+            if (versao.equals(versaoPerguntas)) {
+                return;
+            }
+            versaoPerguntas = versao;
+            BancoPerguntas.usarFonte(ArquivoPerguntas.abrir(arquivoPerguntas));
+            Log.info("banco_perguntas_recarregado", "arquivo", arquivoPerguntas);
+        } catch (IOException e) {
+            Log.erro("erro_recarregar_perguntas", "erro", e.getMessage());
+        }
     }
     
     /**
-     * Verifica se pode iniciar o jogo (mínimo 2 jogadores)
+     * Reconstrói as partidas gravadas no diário e passa a registrar as
+     * transições de todas as salas nele
      */
-    public synchronized void verificarInicioJogo() {
-        if (!estadoJogo.isJogoIniciado() && estadoJogo.getJogadores().size() >= 2) {
-            iniciarJogo();
+    private void abrirDiario(Path diretorio) throws IOException {
+        diario = DiarioEventos.abrir(diretorio, configuracao.getEstadoJogadores(),
+            TimeUnit.SECONDS.toMillis(configuracao.getIntervaloInstantaneoS()));
+        // As sessões são recriadas antes do primeiro instantâneo, que já
+        // não contém os jogadores que saíram das salas recuperadas
+        for (Sala sala : gerenciadorSalas.usarDiario(diario)) {
+            sessoes.recuperar(sala);
         }
+        diario.iniciar(gerenciadorSalas::getPartidas);
+        Log.info("diario_eventos", "diretorio", diretorio);
     }
     
     /**
-     * Inicia o jogo
+     * Passa a registrar as métricas e as publica em /metrics na porta
+     * informada; as requisições são atendidas pela thread do HttpServer
      */
-    private void iniciarJogo() {
-        estadoJogo.iniciarJogo();
-        System.out.println("\n=== JOGO INICIADO ===");
-        System.out.println("Jogadores: " + estadoJogo.getJogadores().size());
+    private void abrirMetricas(int porta) throws IOException {
+        Metricas.ativar();
+        servidorMetricas = HttpServer.create(new InetSocketAddress(porta), 0);
+        servidorMetricas.createContext("/metrics", this::responderMetricas);
+        servidorMetricas.start();
+        Log.info("metricas", "endereco", "http://localhost:" + porta + "/metrics");
+    }
+    
+    private void responderMetricas(HttpExchange troca) throws IOException {
+        byte[] corpo = exportarMetricas().getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        troca.sendResponseHeaders(200, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+    
+    /**
+     * Contadores e tempos de Metricas mais as medidas instantâneas, lidas
+     * agora das conexões e das salas
+     */
+    private String exportarMetricas() {
+        long filas = 0;
+        long maiorFila = 0;
+        for (GerenciadorCliente gerenciador : conexoes) {
+            int tamanho = gerenciador.getTamanhoFilaSaida();
+            filas += tamanho;
+            maiorFila = Math.max(maiorFila, tamanho);
+        }
         
-        // Notifica todos os clientes
-        broadcast(Protocolo.criarMensagemJogoIniciado());
+        List<Sala> salas = gerenciadorSalas.getSalas();
+        long jogadores = 0;
+        for (Sala sala : salas) {
+            jogadores += sala.getEstadoJogo().getJogadores().getTamanho();
+        }
         
-        // Envia primeira pergunta para cada jogador
-        for (Jogador jogador : estadoJogo.getJogadores()) {
-            Pergunta pergunta = estadoJogo.obterPerguntaParaJogador(jogador);
-            if (pergunta != null) {
-                GerenciadorCliente gerenciador = clientes.get(jogador);
-                if (gerenciador != null) {
-                    gerenciador.enviarMensagem(Protocolo.criarMensagemPergunta(pergunta));
-                }
+        StringBuilder saida = new StringBuilder(4096);
+        Metricas.exportar(saida);
+        Metricas.exportarMedida(saida, "jogo_conexoes_abertas", "Conexões abertas", conexoes.size());
+        Metricas.exportarMedida(saida, "jogo_fila_saida_mensagens",
+            "Mensagens nas filas de saída de todas as conexões", filas);
+        Metricas.exportarMedida(saida, "jogo_fila_saida_maior_mensagens",
+            "Maior fila de saída entre as conexões", maiorFila);
+        Metricas.exportarMedida(saida, "jogo_salas", "Salas ativas", salas.size());
+        Metricas.exportarMedida(saida, "jogo_jogadores", "Jogadores nas salas", jogadores);
+        return saida.toString();
+    }
+    
+    /**
+     * Passada periódica do agendador por todas as conexões: quem ficou um
+     * intervalo sem enviar nada recebe PING, e quem ficou dois (não
+     * respondeu ao PING anterior) é encerrado
+     * As conexões mortas são recolhidas primeiro e encerradas juntas no
+     * fim da passada
+     */
+    private void verificarConexoesOciosas() {
+        long intervalo = TimeUnit.SECONDS.toNanos(configuracao.getIntervaloPingS());
+        long agora = System.nanoTime();
+        List<GerenciadorCliente> mortas = new ArrayList<>();
+        
+        for (GerenciadorCliente gerenciador : conexoes) {
+            long ociosa = agora - gerenciador.getUltimaAtividade();
+            if (ociosa >= 2 * intervalo) {
+                mortas.add(gerenciador);
+            } else if (ociosa >= intervalo) {
+                gerenciador.enviarQuadro(PING);
             }
         }
         
-        broadcastEstatisticas();
+        for (GerenciadorCliente gerenciador : mortas) {
+            gerenciador.encerrarPorOciosidade();
+        }
+        if (!mortas.isEmpty()) {
+            Log.aviso("conexoes_ociosas_encerradas", "conexoes", mortas.size());
+        }
     }
     
     /**
-     * Processa resposta de um jogador
+     * Modos com E/S bloqueante: cada cliente é uma tarefa do executor, que
+     * ocupa uma thread de plataforma (modo threads) ou virtual (modo virtual)
+     * As escritas rodam em um segundo executor, acionado somente quando a
+     * fila de saída de um cliente tem mensagens
      */
-    public synchronized boolean processarResposta(Jogador jogador, int resposta) {
-        boolean acertou = estadoJogo.processarResposta(jogador, resposta);
+    private void iniciarThreads(ExecutorService leitura, ExecutorService escrita) throws IOException {
+        executorClientes = leitura;
+        executorEscrita = escrita;
+        serverSocket = new ServerSocket(PORTA);
+        servidorRodando = true;
+        exibirCabecalho();
         
-        if (estadoJogo.isJogoFinalizado()) {
-            Jogador vencedor = estadoJogo.getVencedor();
-            if (vencedor != null) {
-                System.out.println("\n=== JOGO FINALIZADO ===");
-                System.out.println("VENCEDOR: " + vencedor.getNome());
-                System.out.println("PRÊMIO: R$ " + String.format("%.2f", vencedor.getPremioAtual()));
+        // Loop principal: aceita conexões de clientes
+        while (servidorRodando) {
+            try {
+                Socket clienteSocket = serverSocket.accept();
+                Log.info("conexao_aceita", "endereco", clienteSocket.getInetAddress());
+                
+                // Cria um gerenciador para o novo cliente
+                GerenciadorClienteBloqueante gerenciador = new GerenciadorClienteBloqueante(clienteSocket, this);
+                registrarConexao(gerenciador);
+                executorClientes.execute(gerenciador);
                 
-                broadcast(Protocolo.criarMensagemJogoFinalizado(
-                    vencedor.getNome(), 
-                    vencedor.getPremioAtual()
-                ));
+            } catch (SocketException e) {
+                if (servidorRodando) {
+                    Log.erro("erro_aceitar_conexao", "erro", e.getMessage());
+                }
             }
         }
-        
-        return acertou;
     }
     
     /**
-     * Processa decisão de parar de um jogador
+     * Modo NIO: um conjunto fixo de loops de eventos atende todas as conexões
      */
-    public synchronized void processarParada(Jogador jogador) {
-        estadoJogo.processarParada(jogador);
-        System.out.println("Jogador " + jogador.getNome() + " parou com R$ " + 
-                         String.format("%.2f", jogador.getPremioAtual()));
+    private void iniciarNio() throws IOException {
+        ServerSocketChannel canalServidor = ServerSocketChannel.open();
+        canalServidor.bind(new InetSocketAddress(PORTA));
+        serverSocket = canalServidor.socket();
+        servidorRodando = true;
         
-        if (estadoJogo.isJogoFinalizado()) {
-            Jogador vencedor = estadoJogo.getVencedor();
-            if (vencedor != null) {
-                System.out.println("\n=== JOGO FINALIZADO ===");
-                System.out.println("VENCEDOR: " + vencedor.getNome());
-                System.out.println("PRÊMIO: R$ " + String.format("%.2f", vencedor.getPremioAtual()));
+        loopsEventos = new LoopEventos[configuracao.getLoopsEventos()];
+        for (int i = 0; i < loopsEventos.length; i++) {
+            loopsEventos[i] = new LoopEventos(this);
+            new Thread(loopsEventos[i], "loop-eventos-" + i).start();
+        }
+        
+        exibirCabecalho();
+        Log.info("modo_nio", "loops", loopsEventos.length);
+        
+        // As conexões são distribuídas entre os loops em rodízio
+        int proximoLoop = 0;
+        while (servidorRodando) {
+            try {
+                SocketChannel canal = canalServidor.accept();
+                Log.info("conexao_aceita", "endereco", canal.socket().getInetAddress());
                 
-                broadcast(Protocolo.criarMensagemJogoFinalizado(
-                    vencedor.getNome(), 
-                    vencedor.getPremioAtual()
-                ));
+                loopsEventos[proximoLoop].registrar(canal);
+                proximoLoop = (proximoLoop + 1) % loopsEventos.length;
+                
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (servidorRodando) {
+                    Log.erro("erro_aceitar_conexao", "erro", e.getMessage());
+                }
             }
         }
     }
     
     /**
-     * Obtém pergunta para um jogador
+     * Cria o executor de uma thread virtual por tarefa (Java 21+)
+     * Obtido por reflexão para que o projeto continue compilando em JDKs
+     * anteriores, onde apenas este modo fica indisponível
+     *
+     * Uma thread virtual que bloqueia dentro de um bloco synchronized fica
+     * presa à thread portadora; por isso os locks do servidor (salas,
+     * partidas, registros e diário) são ReentrantLock
      */
-    public Pergunta obterPerguntaParaJogador(Jogador jogador) {
-        return estadoJogo.obterPerguntaParaJogador(jogador);
+    static ExecutorService criarExecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("O modo virtual requer Java 21 ou superior", e);
+        }
+    }
+    
+    private void exibirCabecalho() {
+        System.out.println("========================================");
+        System.out.println("  SERVIDOR DO JOGO DO MILHÃO - TI");
+        System.out.println("========================================");
+        System.out.println("Servidor iniciado na porta " + PORTA);
+        System.out.println("Aguardando conexões de clientes...");
+        System.out.println("Pressione Ctrl+C para encerrar o servidor");
+        System.out.println("========================================\n");
     }
     
     /**
-     * Envia mensagem para todos os clientes
+     * Passa a acompanhar uma conexão aceita
      */
-    public synchronized void broadcast(String mensagem) {
-        for (GerenciadorCliente gerenciador : clientes.values()) {
-            if (gerenciador.isConectado()) {
-                gerenciador.enviarMensagem(mensagem);
-            }
-        }
+    public void registrarConexao(GerenciadorCliente gerenciador) {
+        conexoes.add(gerenciador);
+        Metricas.registrarConexao();
     }
     
     /**
-     * Envia estatísticas para todos os clientes
+     * Deixa de acompanhar uma conexão encerrada
      */
-    public synchronized void broadcastEstatisticas() {
-        String estatisticas = estadoJogo.obterEstatisticas();
-        broadcast(Protocolo.criarMensagemEstatisticas(estatisticas));
+    public void removerConexao(GerenciadorCliente gerenciador) {
+        conexoes.remove(gerenciador);
     }
     
     /**
-     * Envia mensagem de chat para todos os clientes
+     * Adiciona um jogador ao jogo, designando uma sala para ele
      */
-    public synchronized void broadcastChat(String remetente, String texto) {
-        String mensagem = Protocolo.criarMensagemChat(remetente, texto);
-        broadcast(mensagem);
-        System.out.println("[CHAT] " + remetente + ": " + texto);
+    public Sala adicionarJogador(Jogador jogador, GerenciadorCliente gerenciador) {
+        return gerenciadorSalas.adicionarJogador(jogador, gerenciador);
     }
     
     /**
-     * Verifica se o jogo está iniciado
+     * Sorteia o token da sessão de um jogador que vai entrar
      */
-    public boolean isJogoIniciado() {
-        return estadoJogo.isJogoIniciado();
+    public String criarToken() {
+        return sessoes.criarToken();
+    }
+    
+    /**
+     * Cria a sessão do jogador que entrou e retorna o seu token
+     */
+    public String abrirSessao(Jogador jogador, Sala sala, GerenciadorCliente gerenciador) {
+        return sessoes.abrir(jogador, sala, gerenciador);
+    }
+    
+    /**
+     * Liga uma nova conexão à sessão do token, ou retorna null se ela não
+     * existe mais
+     */
+    public SessoesJogadores.Sessao retomarSessao(String token, GerenciadorCliente gerenciador) {
+        return sessoes.retomar(token, gerenciador);
+    }
+    
+    /**
+     * Trata a queda da conexão: suspende a sessão ou remove o jogador
+     */
+    public void desconectarSessao(String token, GerenciadorCliente gerenciador) {
+        sessoes.desconectar(token, gerenciador);
+    }
+    
+    public ConfiguracaoServidor getConfiguracao() {
+        return configuracao;
+    }
+    
+    /**
+     * Executor dos escritores das conexões bloqueantes
+     */
+    public ExecutorService getExecutorEscrita() {
+        return executorEscrita;
     }
     
     /**
      * Encerra o servidor
+     * Chamado pelo fim de iniciar e pelo gancho de desligamento; só a
+     * primeira chamada faz efeito
      */
     public void encerrar() {
         servidorRodando = false;
+        if (!encerrado.compareAndSet(false, true)) {
+            return;
+        }
         
-        // Fecha todas as conexões
-        for (GerenciadorCliente gerenciador : new ArrayList<>(clientes.values())) {
+        // O diário é fechado antes das conexões: a saída forçada dos
+        // jogadores não deve apagar as partidas gravadas
+        if (diario != null) {
+            diario.fechar();
+        }
+        
+        // Fecha todas as conexões, inclusive as que ainda não entraram em
+        // uma sala
+        for (GerenciadorCliente gerenciador : conexoes) {
             gerenciador.desconectar();
         }
         
+        if (loopsEventos != null) {
+            for (LoopEventos loop : loopsEventos) {
+                loop.encerrar();
+            }
+        }
+        
+        if (executorClientes != null) {
+            executorClientes.shutdown();
+        }
+        if (executorEscrita != null) {
+            executorEscrita.shutdown();
+        }
+        agendador.shutdown();
+        if (roda != null) {
+            roda.parar();
+        }
+        if (servidorMetricas != null) {
+            servidorMetricas.stop(0);
+        }
+        
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
             }
         } catch (IOException e) {
-            System.err.println("Erro ao fechar servidor: " + e.getMessage());
+            Log.aviso("erro_fechar_servidor", "erro", e.getMessage());
         }
         
-        System.out.println("\nServidor encerrado.");
+        Log.info("servidor_encerrado");
+        Log.parar();
     }
     
     /**
      * Método principal
      */
     public static void main(String[] args) {
-        Servidor servidor = new Servidor();
+        ConfiguracaoServidor configuracao;
+        try {
+            configuracao = ConfiguracaoServidor.deArgumentos(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: java Servidor [--opcao=valor ...] (opções em ConfiguracaoServidor)");
+            return;
+        }
+        
+        Servidor servidor = new Servidor(configuracao);
         
         // Adiciona handler para encerramento gracioso
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
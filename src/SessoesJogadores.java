@@ -0,0 +1,211 @@
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sessões dos jogadores, identificadas pelo token enviado no CONECTADO
+ * Quando cai a conexão de um jogador que ainda disputa uma partida, ele
+ * continua na sala (nível, prêmio e pergunta atual) e a sessão fica
+ * suspensa por um tempo limitado; um RETOMAR com o token dentro do prazo
+ * liga a nova conexão ao mesmo Jogador, sem passar pelo saguão nem gerar
+ * alterações de placar. Vencido o prazo, a sessão é descartada e o
+ * jogador sai da sala como em uma desconexão comum
+ *
+ * O prazo de cada sessão suspensa é uma tarefa do agendador do servidor,
+ * cancelada se o jogador voltar
+ *
+ * O token vai para o diário com a entrada do jogador: depois de uma queda
+ * do servidor, os jogadores das partidas recuperadas voltam com sessões
+ * suspensas e os mesmos tokens (recuperar)
+ */
+public class SessoesJogadores {
+    private static final int TAMANHO_TOKEN = 16; // bytes
+    
+    /**
+     * Sessão de um jogador; a conexão é null enquanto suspensa
+     */
+    public static final class Sessao {
+        private final String token;
+        private final Jogador jogador;
+        private final Sala sala;
+        private final ReentrantLock lock;
+        private GerenciadorCliente gerenciador;
+        private ScheduledFuture<?> expiracao;
+        private boolean encerrada;
+        
+        private Sessao(String token, Jogador jogador, Sala sala, GerenciadorCliente gerenciador) {
+            this.token = token;
+            this.jogador = jogador;
+            this.sala = sala;
+            this.lock = new ReentrantLock();
+            this.gerenciador = gerenciador;
+            this.encerrada = false;
+        }
+        
+        public Jogador getJogador() {
+            return jogador;
+        }
+        
+        public Sala getSala() {
+            return sala;
+        }
+    }
+    
+    private final ConcurrentHashMap<String, Sessao> sessoes;
+    private final GerenciadorSalas gerenciadorSalas;
+    private final ScheduledExecutorService agendador;
+    private final long tempoSessaoMs;
+    private final SecureRandom aleatorio;
+    
+    public SessoesJogadores(GerenciadorSalas gerenciadorSalas, ScheduledExecutorService agendador, long tempoSessaoMs) {
+        this.sessoes = new ConcurrentHashMap<>();
+        this.gerenciadorSalas = gerenciadorSalas;
+        this.agendador = agendador;
+        this.tempoSessaoMs = tempoSessaoMs;
+        this.aleatorio = new SecureRandom();
+    }
+    
+    /**
+     * Sorteia o token de uma nova sessão
+     */
+    public String criarToken() {
+        byte[] bytes = new byte[TAMANHO_TOKEN];
+        aleatorio.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    /**
+     * Cria a sessão do jogador que acabou de entrar na sala, com o token
+     * atribuído a ele antes da entrada, e retorna esse token
+     */
+    public String abrir(Jogador jogador, Sala sala, GerenciadorCliente gerenciador) {
+        String token = jogador.getToken();
+        sessoes.put(token, new Sessao(token, jogador, sala, gerenciador));
+        return token;
+    }
+    
+    /**
+     * Recria as sessões de uma sala recuperada do diário, como se todos os
+     * jogadores tivessem perdido a conexão na queda: quem ainda disputa a
+     * partida fica suspenso à espera de um RETOMAR com o token de antes, e
+     * os demais saem da sala
+     * Quem não voltar no prazo sai da sala, que é descartada ao esvaziar
+     */
+    public void recuperar(Sala sala) {
+        List<Jogador> jogadores = new ArrayList<>();
+        sala.getEstadoJogo().getJogadores().paraCada(jogadores::add);
+        
+        for (Jogador jogador : jogadores) {
+            String token = jogador.getToken();
+            if (token == null || tempoSessaoMs <= 0 || sala.isJogoFinalizado() || !jogador.estaNoJogo()) {
+                gerenciadorSalas.removerJogador(jogador, sala);
+                continue;
+            }
+            
+            Sessao sessao = new Sessao(token, jogador, sala, null);
+            sessao.lock.lock();
+            try {
+                sessoes.put(token, sessao);
+                sessao.expiracao = agendador.schedule(() -> expirar(sessao), tempoSessaoMs, TimeUnit.MILLISECONDS);
+            } finally {
+                sessao.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Trata a queda da conexão do jogador
+     * Com a partida em andamento e o jogador ainda no jogo, a sessão é
+     * suspensa; senão o jogador sai da sala. Se a sessão já foi retomada
+     * por outra conexão, não faz nada
+     */
+    public void desconectar(String token, GerenciadorCliente gerenciador) {
+        Sessao sessao = sessoes.get(token);
+        if (sessao == null) {
+            return;
+        }
+        
+        sessao.lock.lock();
+        try {
+            if (sessao.encerrada || sessao.gerenciador != gerenciador) {
+                return;
+            }
+            sessao.gerenciador = null;
+            
+            Sala sala = sessao.sala;
+            if (tempoSessaoMs > 0 && sala.isJogoIniciado() && !sala.isJogoFinalizado()
+                    && sessao.jogador.estaNoJogo()) {
+                sala.suspenderJogador(sessao.jogador, gerenciador);
+                sessao.expiracao = agendador.schedule(() -> expirar(sessao), tempoSessaoMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+            
+            sessao.encerrada = true;
+            sessoes.remove(token, sessao);
+        } finally {
+            sessao.lock.unlock();
+        }
+        
+        gerenciadorSalas.removerJogador(sessao.jogador, sessao.sala);
+    }
+    
+    /**
+     * Liga a nova conexão à sessão do token, cancelando o prazo de uma
+     * sessão suspensa; retorna null se o token não existe ou a sessão
+     * expirou
+     * Se a conexão anterior ainda estava aberta (a queda ainda não tinha
+     * sido percebida), ela é fechada sem tirar o jogador da sala
+     */
+    public Sessao retomar(String token, GerenciadorCliente gerenciador) {
+        Sessao sessao = sessoes.get(token);
+        if (sessao == null) {
+            return null;
+        }
+        
+        GerenciadorCliente anterior;
+        sessao.lock.lock();
+        try {
+            if (sessao.encerrada) {
+                return null;
+            }
+            anterior = sessao.gerenciador;
+            sessao.gerenciador = gerenciador;
+            if (sessao.expiracao != null) {
+                sessao.expiracao.cancel(false);
+                sessao.expiracao = null;
+            }
+        } finally {
+            sessao.lock.unlock();
+        }
+        
+        if (anterior != null) {
+            anterior.desconectar();
+        }
+        return sessao;
+    }
+    
+    /**
+     * Fim do prazo de uma sessão suspensa (tarefa do agendador)
+     */
+    private void expirar(Sessao sessao) {
+        sessao.lock.lock();
+        try {
+            if (sessao.encerrada || sessao.gerenciador != null) {
+                return;
+            }
+            sessao.encerrada = true;
+            sessoes.remove(sessao.token, sessao);
+        } finally {
+            sessao.lock.unlock();
+        }
+        
+        Log.info("sessao_expirada", "jogador", sessao.jogador.getNome());
+        gerenciadorSalas.removerJogador(sessao.jogador, sessao.sala);
+    }
+}
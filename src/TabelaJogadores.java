@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+/**
+ * Estado dos jogadores de uma partida guardado em arrays primitivos
+ * (estrutura de arrays), indexados pelo identificador do jogador na sala
+ * Cada jogador ocupa poucas dezenas de bytes: nível (int), prêmio em
+ * centavos (long), e status (byte) com sua posição no conjunto de ativos,
+ * guardados na ContagemJogadores da tabela
+ *
+ * Alterações são feitas com o lock do EstadoJogo; leituras fora dele podem
+ * ver um valor anterior, como já acontecia com os campos do Jogador
+ */
+public class TabelaJogadores {
+    public static final byte ATIVO = ContagemJogadores.ATIVO;
+    public static final byte ELIMINADO = ContagemJogadores.ELIMINADO;
+    public static final byte PAROU = ContagemJogadores.PAROU;
+    
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private volatile int[] niveis;
+    private volatile long[] premiosCentavos;
+    private final ContagemJogadores contagem;
+    
+    public TabelaJogadores() {
+        this.niveis = new int[CAPACIDADE_INICIAL];
+        this.premiosCentavos = new long[CAPACIDADE_INICIAL];
+        this.contagem = new ContagemJogadores();
+    }
+    
+    /**
+     * Ocupa a linha do jogador com o estado informado
+     */
+    public void adicionar(int id, int nivel, double premio, byte estado) {
+        if (id >= niveis.length) {
+            int capacidade = niveis.length;
+            while (capacidade <= id) {
+                capacidade *= 2;
+            }
+            // Os arrays maiores são publicados depois de preenchidos
+            niveis = Arrays.copyOf(niveis, capacidade);
+            premiosCentavos = Arrays.copyOf(premiosCentavos, capacidade);
+        }
+        niveis[id] = nivel;
+        premiosCentavos[id] = paraCentavos(premio);
+        contagem.adicionar(id, estado);
+    }
+    
+    /**
+     * Libera a linha do jogador
+     */
+    public void remover(int id) {
+        if (id < niveis.length) {
+            contagem.remover(id);
+            niveis[id] = 0;
+            premiosCentavos[id] = 0;
+        }
+    }
+    
+    /**
+     * Totais e conjunto de ativos, mantidos a cada mudança de status
+     */
+    public ContagemJogadores getContagem() {
+        return contagem;
+    }
+    
+    /**
+     * Muda o status do jogador, atualizando os totais
+     */
+    public void setStatus(int id, byte estado) {
+        contagem.setStatus(id, estado);
+    }
+    
+    public byte getStatus(int id) {
+        return contagem.getStatus(id);
+    }
+    
+    public int getNivel(int id) {
+        return niveis[id];
+    }
+    
+    public void setNivel(int id, int nivel) {
+        niveis[id] = nivel;
+    }
+    
+    public double getPremio(int id) {
+        return premiosCentavos[id] / 100.0;
+    }
+    
+    public void setPremio(int id, double premio) {
+        premiosCentavos[id] = paraCentavos(premio);
+    }
+    
+    private static long paraCentavos(double valor) {
+        return Math.round(valor * 100);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Recebe os comandos do cliente já decodificados, seja do protocolo em
+ * texto (AnalisadorComandos) ou do binário (ProtocoloBinario)
+ */
+public interface TratadorComandos {
+    
+    /**
+     * CONECTAR|nome[|BINARIO]
+     */
+    void aoConectar(String nome, boolean binario);
+    
+    /**
+     * RESPOSTA|numero
+     */
+    void aoResponder(int resposta);
+    
+    /**
+     * RESPOSTA com número inválido
+     */
+    void aoResponderInvalido();
+    
+    /**
+     * PARAR
+     */
+    void aoParar();
+    
+    /**
+     * CHAT|mensagem
+     */
+    void aoConversar(String texto);
+    
+    /**
+     * SINCRONIZAR
+     */
+    void aoSincronizar();
+    
+    /**
+     * RETOMAR|token[|BINARIO]
+     */
+    void aoRetomar(String token, boolean binario);
+    
+    /**
+     * PING (o cliente verifica se o servidor está vivo)
+     */
+    void aoPing();
+    
+    /**
+     * PONG (resposta a um PING do servidor)
+     */
+    void aoPong();
+    
+    /**
+     * Comando que o servidor não reconhece
+     */
+    void aoComandoDesconhecido(String comando);
+}
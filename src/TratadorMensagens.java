@@ -0,0 +1,64 @@
+import java.util.Map;
+
+/**
+ * Recebe as mensagens do servidor já decodificadas, seja do protocolo em
+ * texto (Protocolo.despacharMensagem) ou do binário (ProtocoloBinario),
+ * com os números já convertidos
+ */
+public interface TratadorMensagens {
+    
+    /**
+     * CONECTADO|mensagem|token
+     */
+    void aoConectado(String mensagem, String token);
+    
+    /**
+     * ERRO|mensagem
+     */
+    void aoErro(String mensagem);
+    
+    /**
+     * PERGUNTA|enunciado|alternativas|nivel|premio
+     */
+    void aoPergunta(String enunciado, String[] alternativas, int nivel, double premio);
+    
+    /**
+     * RESULTADO|ACERTOU ou ERROU|premio|nivel
+     */
+    void aoResultado(boolean acertou, double premio, int nivel);
+    
+    /**
+     * ESTATISTICAS|versao|jogadores (placar completo, por id)
+     */
+    void aoEstatisticas(long versao, Map<Integer, PlacarCliente.Entrada> jogadores);
+    
+    /**
+     * PLACAR|versao|id|nome|nivel|premio|status
+     */
+    void aoPlacar(long versao, int id, PlacarCliente.Entrada entrada);
+    
+    /**
+     * JOGO_INICIADO
+     */
+    void aoJogoIniciado();
+    
+    /**
+     * JOGO_FINALIZADO|vencedor|premio
+     */
+    void aoJogoFinalizado(String vencedor, double premio);
+    
+    /**
+     * MENSAGEM|remetente|texto
+     */
+    void aoMensagem(String remetente, String texto);
+    
+    /**
+     * TEMPO_ESGOTADO|status|premio|nivel
+     */
+    void aoTempoEsgotado(String status, double premio, int nivel);
+    
+    /**
+     * PING (o servidor verifica se o cliente está vivo)
+     */
+    void aoPing();
+}
@@ -0,0 +1,188 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recuperação das partidas a partir do diário: uma queda (o diário não é
+ * fechado) não pode perder nenhum registro já gravado, e uma gravação
+ * interrompida só perde o registro incompleto
+ */
+class DiarioEventosTest {
+    
+    private static final ConfiguracaoServidor.EstadoJogadores OBJETOS = ConfiguracaoServidor.EstadoJogadores.OBJETOS;
+    
+    // Sem instantâneos periódicos: depois de iniciar, tudo fica nos segmentos
+    private static final long INTERVALO_INSTANTANEO_MS = 3_600_000;
+    
+    @TempDir
+    Path diretorio;
+    
+    private DiarioEventos diario;
+    private EstadoJogo partida;
+    private final List<Jogador> jogadores = new ArrayList<>();
+    
+    /**
+     * Sala 7 iniciada com ana, bia, caio e davi; ana acerta a primeira
+     * pergunta, bia para e caio sai
+     */
+    @BeforeEach
+    void jogar() throws Exception {
+        diario = DiarioEventos.abrir(diretorio, OBJETOS, INTERVALO_INSTANTANEO_MS);
+        partida = new EstadoJogo(OBJETOS, 42L, diario, 7);
+        diario.iniciar(() -> List.of(partida));
+        
+        for (String nome : new String[] {"ana", "bia", "caio", "davi"}) {
+            Jogador jogador = new Jogador(nome);
+            jogador.setToken("token-" + nome);
+            partida.adicionarJogador(jogador);
+            jogadores.add(jogador);
+        }
+        partida.iniciarJogo();
+        responderCerto(jogadores.get(0));
+        partida.processarParada(jogadores.get(1));
+        partida.removerJogador(jogadores.get(2));
+        esperarGravacao();
+    }
+    
+    @AfterEach
+    void fechar() {
+        diario.fechar();
+    }
+    
+    private void responderCerto(Jogador jogador) {
+        Pergunta pergunta = partida.obterPerguntaParaJogador(jogador);
+        assertTrue(partida.processarResposta(jogador, pergunta.getRespostaCorreta()));
+    }
+    
+    private void esperarGravacao() throws InterruptedException {
+        CountDownLatch gravado = new CountDownLatch(1);
+        partida.aposGravar(gravado::countDown);
+        assertTrue(gravado.await(10, TimeUnit.SECONDS), "o diário não gravou os registros");
+    }
+    
+    /**
+     * Abre o mesmo diretório como um servidor que acabou de reiniciar
+     */
+    private EstadoJogo recuperar() throws IOException {
+        DiarioEventos recuperado = DiarioEventos.abrir(diretorio, OBJETOS, INTERVALO_INSTANTANEO_MS);
+        assertEquals(1, recuperado.getPartidasRecuperadas().size());
+        assertEquals(7, recuperado.getMaiorIdSala());
+        EstadoJogo estadoJogo = recuperado.getPartidasRecuperadas().iterator().next();
+        assertEquals(7, estadoJogo.getIdSala());
+        assertTrue(estadoJogo.isJogoIniciado());
+        assertFalse(estadoJogo.isJogoFinalizado());
+        return estadoJogo;
+    }
+    
+    private static Map<String, Jogador> porNome(EstadoJogo estadoJogo) {
+        Map<String, Jogador> jogadores = new HashMap<>();
+        estadoJogo.getJogadores().paraCada(jogador -> jogadores.put(jogador.getNome(), jogador));
+        return jogadores;
+    }
+    
+    /**
+     * Confere ana, bia e davi como o jogo os deixou, com davi no nível informado
+     */
+    private void conferir(EstadoJogo estadoJogo, int nivelDavi) {
+        Map<String, Jogador> recuperados = porNome(estadoJogo);
+        assertEquals(List.of("ana", "bia", "davi"), recuperados.keySet().stream().sorted().toList());
+        
+        for (Jogador original : jogadores) {
+            Jogador jogador = recuperados.get(original.getNome());
+            if (jogador == null) {
+                continue;
+            }
+            assertEquals(original.getId(), jogador.getId());
+            assertEquals(original.getToken(), jogador.getToken());
+            assertEquals(original.isParou(), jogador.isParou());
+            assertEquals(original.getNome().equals("davi") ? nivelDavi : original.getNivelAtual(), jogador.getNivelAtual());
+        }
+        assertEquals(1, recuperados.get("ana").getNivelAtual());
+        assertEquals(jogadores.get(0).getPremioAtual(), recuperados.get("ana").getPremioAtual());
+        assertTrue(recuperados.get("ana").getPremioAtual() > 0);
+        assertTrue(recuperados.get("bia").isParou());
+    }
+    
+    /**
+     * Segmento em que o diário está gravando
+     */
+    private Path segmentoAtual() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.filter(arquivo -> arquivo.getFileName().toString().startsWith("eventos-"))
+                .max(Path::compareTo)
+                .orElseThrow();
+        }
+    }
+    
+    @Test
+    void quedaPreservaRegistrosGravados() throws IOException {
+        conferir(recuperar(), 0);
+    }
+    
+    @Test
+    void registroIncompletoNoFimEDescartado() throws Exception {
+        responderCerto(jogadores.get(3));
+        esperarGravacao();
+        conferir(recuperar(), 1);
+        
+        // A queda interrompeu a gravação do último registro (o de davi)
+        try (FileChannel segmento = FileChannel.open(segmentoAtual(), StandardOpenOption.WRITE)) {
+            segmento.truncate(segmento.size() - 3);
+        }
+        conferir(recuperar(), 0);
+    }
+    
+    @Test
+    void registroComCrcErradoNoFimEDescartado() throws Exception {
+        responderCerto(jogadores.get(3));
+        esperarGravacao();
+        
+        try (FileChannel segmento = FileChannel.open(segmentoAtual(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Um byte do prêmio de davi, logo antes do status e do CRC
+            ByteBuffer alterado = ByteBuffer.allocate(1);
+            long posicao = segmento.size() - 4 - 1 - 1;
+            segmento.read(alterado, posicao);
+            alterado.flip().put(0, (byte) (alterado.get(0) ^ 0x5A));
+            segmento.write(alterado, posicao);
+        }
+        conferir(recuperar(), 0);
+    }
+    
+    @Test
+    void fecharGravaInstantaneoComTodaAPartida() throws Exception {
+        responderCerto(jogadores.get(3));
+        diario.fechar();
+        
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            assertTrue(arquivos.anyMatch(arquivo -> arquivo.getFileName().toString().equals("instantaneo.bin")));
+        }
+        conferir(recuperar(), 1);
+    }
+    
+    @Test
+    void nomeQueNaoCabeNoDiarioNaoEntraNaPartida() {
+        Jogador jogador = new Jogador("x".repeat(0xFFFF));
+        assertThrows(IllegalArgumentException.class, () -> partida.adicionarJogador(jogador));
+        assertEquals(3, partida.getJogadores().getTamanho());
+    }
+}
@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Transbordo da fila de saída de um cliente lento e prioridade do chat
+ */
+class FilaSaidaTest {
+    
+    private static final Quadro RESULTADO = Quadro.de(Protocolo.criarMensagemResultado(true, 1000.0, 1));
+    private static final Quadro PLACAR = Quadro.de(Protocolo.criarMensagemPlacar(1, 1, "ana", 1, 1000.0, "ATIVO"));
+    private static final Quadro CHAT = Quadro.de(Protocolo.criarMensagemChat("bob", "oi"));
+    
+    @Test
+    void descartarEstatisticasSoDesconectaPorMensagensDoJogo() {
+        FilaSaida fila = new FilaSaida(2, FilaSaida.PoliticaTransbordo.DESCARTAR_ESTATISTICAS);
+        assertEquals(FilaSaida.Resultado.ENFILEIRADA, fila.oferecer(RESULTADO));
+        assertEquals(FilaSaida.Resultado.ENFILEIRADA, fila.oferecer(PLACAR));
+        
+        assertEquals(FilaSaida.Resultado.DESCARTADA, fila.oferecer(PLACAR));
+        assertEquals(FilaSaida.Resultado.DESCARTADA, fila.oferecer(CHAT));
+        assertEquals(FilaSaida.Resultado.TRANSBORDOU, fila.oferecer(RESULTADO));
+        assertEquals(2, fila.getTamanho());
+    }
+    
+    @Test
+    void desconectarTransbordaComQualquerMensagem() {
+        FilaSaida fila = new FilaSaida(1, FilaSaida.PoliticaTransbordo.DESCONECTAR);
+        assertEquals(FilaSaida.Resultado.ENFILEIRADA, fila.oferecer(RESULTADO));
+        assertEquals(FilaSaida.Resultado.TRANSBORDOU, fila.oferecer(PLACAR));
+        assertEquals(FilaSaida.Resultado.TRANSBORDOU, fila.oferecer(CHAT));
+        assertEquals(1, fila.getTamanho());
+    }
+    
+    @Test
+    void chatOcupaNoMaximoMetadeESaiPorUltimo() {
+        FilaSaida fila = new FilaSaida(4, FilaSaida.PoliticaTransbordo.DESCARTAR_ESTATISTICAS);
+        assertEquals(FilaSaida.Resultado.ENFILEIRADA, fila.oferecer(CHAT));
+        assertEquals(FilaSaida.Resultado.ENFILEIRADA, fila.oferecer(CHAT));
+        assertEquals(FilaSaida.Resultado.DESCARTADA, fila.oferecer(CHAT));
+        
+        // A outra metade continua livre para o jogo
+        assertEquals(FilaSaida.Resultado.ENFILEIRADA, fila.oferecer(RESULTADO));
+        assertEquals(FilaSaida.Resultado.ENFILEIRADA, fila.oferecer(PLACAR));
+        assertEquals(FilaSaida.Resultado.TRANSBORDOU, fila.oferecer(RESULTADO));
+        
+        assertEquals(RESULTADO, fila.retirar());
+        assertEquals(PLACAR, fila.retirar());
+        assertEquals(CHAT, fila.retirar());
+        assertEquals(CHAT, fila.retirar());
+        assertNull(fila.retirar());
+        assertEquals(0, fila.getTamanho());
+    }
+    
+    @Test
+    void drenagemTemUmUnicoEscritor() {
+        FilaSaida fila = new FilaSaida(4, FilaSaida.PoliticaTransbordo.DESCONECTAR);
+        fila.oferecer(RESULTADO);
+        assertTrue(fila.agendarDrenagem());
+        assertFalse(fila.agendarDrenagem());
+        
+        assertEquals(RESULTADO, fila.retirar());
+        // Chegou outra mensagem antes de o escritor concluir: ele continua
+        fila.oferecer(PLACAR);
+        assertTrue(fila.concluirDrenagem());
+        assertFalse(fila.agendarDrenagem());
+        
+        fila.limpar();
+        assertFalse(fila.concluirDrenagem());
+        assertTrue(fila.agendarDrenagem());
+    }
+}
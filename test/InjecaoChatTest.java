@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Textos livres vindos de um cliente binário (chat e nome) não podem
+ * forjar mensagens do servidor para os clientes em texto
+ */
+class InjecaoChatTest {
+    
+    /**
+     * Conexão sem socket: o que seria escrito no socket fica em memória
+     */
+    private static final class ConexaoMemoria extends GerenciadorCliente {
+        private final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        
+        ConexaoMemoria(Servidor servidor) {
+            super(null, servidor);
+        }
+        
+        @Override
+        protected void iniciarDrenagem() {
+            do {
+                Quadro quadro;
+                while ((quadro = filaSaida.retirar()) != null) {
+                    try {
+                        quadro.escreverEm(saida, binario);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            } while (filaSaida.concluirDrenagem());
+        }
+        
+        @Override
+        protected void agendarDesconexao() {
+        }
+        
+        @Override
+        protected void fecharConexao() {
+        }
+        
+        /**
+         * Comando do cliente no protocolo binário
+         */
+        void receberBinario(String mensagem) {
+            ProtocoloBinario.extrairQuadro(ByteBuffer.wrap(ProtocoloBinario.codificar(mensagem)), this);
+        }
+        
+        /**
+         * Linhas recebidas desde a última chamada
+         */
+        String[] retirarLinhas() {
+            String texto = new String(saida.toByteArray(), StandardCharsets.UTF_8);
+            saida.reset();
+            return texto.split("\n", -1);
+        }
+    }
+    
+    private Servidor servidor;
+    private ConexaoMemoria texto;
+    private ConexaoMemoria binario;
+    
+    @BeforeEach
+    void conectar() {
+        // Chat e placar enviados na hora, sem depender do agendador
+        servidor = new Servidor(ConfiguracaoServidor.deArgumentos(new String[] {
+            "--jogadoresPorSala=3", "--intervaloPlacar=0", "--intervaloChat=0", "--chatPorSegundo=0"
+        }));
+        texto = new ConexaoMemoria(servidor);
+        binario = new ConexaoMemoria(servidor);
+        texto.aoConectar("ana", false);
+    }
+    
+    @AfterEach
+    void encerrar() {
+        servidor.encerrar();
+    }
+    
+    @Test
+    void chatBinarioComQuebraDeLinhaChegaComoUmaLinha() {
+        binario.receberBinario(Protocolo.criarMensagemConectar("bob"));
+        texto.retirarLinhas();
+        
+        binario.receberBinario(Protocolo.criarMensagemChat("oi\nJOGO_FINALIZADO|bob|1000000.0\r\nERRO|x"));
+        
+        String[] linhas = texto.retirarLinhas();
+        assertEquals(2, linhas.length); // a mensagem e o vazio depois do último '\n'
+        assertEquals("", linhas[1]);
+        assertEquals("MENSAGEM|bob|oi JOGO_FINALIZADO|bob|1000000.0  ERRO|x", linhas[0]);
+    }
+    
+    @Test
+    void nomeBinarioNaoQuebraCamposNemLinhas() {
+        texto.retirarLinhas();
+        binario.receberBinario(Protocolo.criarMensagemConectar("bob\nJOGO_FINALIZADO|bob|1000000.0;x"));
+        
+        String[] linhas = texto.retirarLinhas();
+        assertEquals(2, linhas.length);
+        String[] campos = Protocolo.parsearMensagem(linhas[0]);
+        assertEquals(Protocolo.PLACAR, campos[0]);
+        assertEquals(7, campos.length);
+        assertTrue(campos[3].startsWith("bob JOGO_FINALIZADO"), campos[3]);
+    }
+}
@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Placar do cliente: alterações só valem na sequência exata de versões;
+ * uma lacuna exige o placar completo antes de aceitar qualquer outra
+ */
+class PlacarClienteTest {
+    
+    private static PlacarCliente.Entrada entrada(String nome, int nivel) {
+        return new PlacarCliente.Entrada(nome, nivel, nivel * 1000.0, "ATIVO");
+    }
+    
+    private static List<String> nomes(PlacarCliente placar) {
+        return placar.getEntradas().stream().map(e -> e.getNome() + "/" + e.getNivel()).toList();
+    }
+    
+    @Test
+    void alteracoesAntesDoPlacarCompletoSaoIgnoradas() {
+        PlacarCliente placar = new PlacarCliente();
+        assertEquals(PlacarCliente.Resultado.IGNORADA, placar.aplicarAlteracao(1, 1, entrada("ana", 1)));
+        assertEquals(List.of(), nomes(placar));
+    }
+    
+    @Test
+    void aplicaAlteracoesEmSequencia() {
+        PlacarCliente placar = new PlacarCliente();
+        placar.aplicarCompleto(10, Map.of(1, entrada("ana", 0), 2, entrada("bia", 0)));
+        
+        assertEquals(PlacarCliente.Resultado.APLICADA, placar.aplicarAlteracao(11, 1, entrada("ana", 1)));
+        assertEquals(PlacarCliente.Resultado.APLICADA, placar.aplicarAlteracao(12, 3, entrada("caio", 0)));
+        assertEquals(PlacarCliente.Resultado.APLICADA,
+            placar.aplicarAlteracao(13, 2, new PlacarCliente.Entrada("bia", 0, 0.0, Protocolo.STATUS_SAIU)));
+        
+        assertEquals(13, placar.getVersao());
+        assertEquals(List.of("ana/1", "caio/0"), nomes(placar).stream().sorted().toList());
+    }
+    
+    @Test
+    void versaoRepetidaOuAntigaEIgnorada() {
+        PlacarCliente placar = new PlacarCliente();
+        placar.aplicarCompleto(10, Map.of(1, entrada("ana", 2)));
+        
+        assertEquals(PlacarCliente.Resultado.IGNORADA, placar.aplicarAlteracao(10, 1, entrada("ana", 0)));
+        assertEquals(PlacarCliente.Resultado.IGNORADA, placar.aplicarAlteracao(3, 1, entrada("ana", 0)));
+        assertEquals(List.of("ana/2"), nomes(placar));
+        assertEquals(10, placar.getVersao());
+    }
+    
+    @Test
+    void lacunaDessincronizaAteOPlacarCompleto() {
+        PlacarCliente placar = new PlacarCliente();
+        placar.aplicarCompleto(10, Map.of(1, entrada("ana", 0)));
+        
+        assertEquals(PlacarCliente.Resultado.DESSINCRONIZADO, placar.aplicarAlteracao(12, 1, entrada("ana", 2)));
+        // Nem a versão que faltava nem as seguintes valem até a sincronização
+        assertEquals(PlacarCliente.Resultado.IGNORADA, placar.aplicarAlteracao(11, 1, entrada("ana", 1)));
+        assertEquals(PlacarCliente.Resultado.IGNORADA, placar.aplicarAlteracao(13, 1, entrada("ana", 3)));
+        assertEquals(List.of("ana/0"), nomes(placar));
+        assertEquals(10, placar.getVersao());
+        
+        placar.aplicarCompleto(13, Map.of(1, entrada("ana", 3), 2, entrada("bia", 1)));
+        assertEquals(PlacarCliente.Resultado.APLICADA, placar.aplicarAlteracao(14, 2, entrada("bia", 2)));
+        assertEquals(List.of("ana/3", "bia/2"), nomes(placar).stream().sorted().toList());
+    }
+}
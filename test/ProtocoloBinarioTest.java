@@ -0,0 +1,321 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Quadros binários: tamanho em varint, código do comando e campos tipados
+ * Cada quadro deve voltar exatamente à mensagem em texto que o originou
+ */
+class ProtocoloBinarioTest {
+    
+    private static final Pergunta PERGUNTA = new Pergunta("Quanto é 2 + 2?",
+        new String[] {"3", "4", "5", "22"}, 1, 3, 5000.0);
+    
+    /**
+     * Anota cada chamada recebida, na forma "metodo|argumentos"
+     */
+    private static final class Registro implements TratadorComandos, TratadorMensagens {
+        final List<String> chamadas = new ArrayList<>();
+        
+        private void anotar(Object... partes) {
+            StringBuilder sb = new StringBuilder();
+            for (Object parte : partes) {
+                sb.append(sb.length() == 0 ? "" : "|").append(parte);
+            }
+            chamadas.add(sb.toString());
+        }
+        
+        private static String entrada(PlacarCliente.Entrada entrada) {
+            return entrada.getNome() + "/" + entrada.getNivel() + "/" + entrada.getPremio() + "/" + entrada.getStatus();
+        }
+        
+        @Override
+        public void aoConectar(String nome, boolean binario) {
+            anotar("conectar", nome, binario);
+        }
+        
+        @Override
+        public void aoResponder(int resposta) {
+            anotar("responder", resposta);
+        }
+        
+        @Override
+        public void aoResponderInvalido() {
+            anotar("responderInvalido");
+        }
+        
+        @Override
+        public void aoParar() {
+            anotar("parar");
+        }
+        
+        @Override
+        public void aoConversar(String texto) {
+            anotar("conversar", texto);
+        }
+        
+        @Override
+        public void aoSincronizar() {
+            anotar("sincronizar");
+        }
+        
+        @Override
+        public void aoRetomar(String token, boolean binario) {
+            anotar("retomar", token, binario);
+        }
+        
+        @Override
+        public void aoPing() {
+            anotar("ping");
+        }
+        
+        @Override
+        public void aoPong() {
+            anotar("pong");
+        }
+        
+        @Override
+        public void aoComandoDesconhecido(String comando) {
+            anotar("desconhecido", comando);
+        }
+        
+        @Override
+        public void aoConectado(String mensagem, String token) {
+            anotar("conectado", mensagem, token);
+        }
+        
+        @Override
+        public void aoErro(String mensagem) {
+            anotar("erro", mensagem);
+        }
+        
+        @Override
+        public void aoPergunta(String enunciado, String[] alternativas, int nivel, double premio) {
+            anotar("pergunta", enunciado, Arrays.toString(alternativas), nivel, premio);
+        }
+        
+        @Override
+        public void aoResultado(boolean acertou, double premio, int nivel) {
+            anotar("resultado", acertou, premio, nivel);
+        }
+        
+        @Override
+        public void aoEstatisticas(long versao, Map<Integer, PlacarCliente.Entrada> jogadores) {
+            StringBuilder sb = new StringBuilder();
+            jogadores.forEach((id, entrada) -> sb.append(id).append('=').append(entrada(entrada)).append(';'));
+            anotar("estatisticas", versao, sb);
+        }
+        
+        @Override
+        public void aoPlacar(long versao, int id, PlacarCliente.Entrada entrada) {
+            anotar("placar", versao, id, entrada(entrada));
+        }
+        
+        @Override
+        public void aoJogoIniciado() {
+            anotar("jogoIniciado");
+        }
+        
+        @Override
+        public void aoJogoFinalizado(String vencedor, double premio) {
+            anotar("jogoFinalizado", vencedor, premio);
+        }
+        
+        @Override
+        public void aoMensagem(String remetente, String texto) {
+            anotar("mensagem", remetente, texto);
+        }
+        
+        @Override
+        public void aoTempoEsgotado(String status, double premio, int nivel) {
+            anotar("tempoEsgotado", status, premio, nivel);
+        }
+    }
+    
+    /**
+     * Mensagens do servidor, uma por comando com codificação binária
+     */
+    private static List<String> mensagensDoServidor() {
+        return List.of(
+            Protocolo.criarMensagemConectado("Bem-vindo, ana", "a1b2c3"),
+            Protocolo.criarMensagemErro("Comando inválido: x|y"),
+            Protocolo.criarMensagemPergunta(PERGUNTA),
+            Protocolo.criarMensagemResultado(true, 1000.0, 1),
+            Protocolo.criarMensagemResultado(false, 0.0, 0),
+            Protocolo.criarMensagemEstatisticas(5, "1|ana|1|1000.0|ATIVO;2|bia|0|0.0|PAROU;"),
+            Protocolo.criarMensagemEstatisticas(0, ""),
+            Protocolo.criarMensagemPlacar(7, 3, "ção", 2, 2000.0, "ATIVO"),
+            Protocolo.criarMensagemJogoIniciado(),
+            Protocolo.criarMensagemJogoFinalizado("ana", 1000000.0),
+            Protocolo.criarMensagemChat("bob", "oi|tudo bem?"),
+            Protocolo.criarMensagemTempoEsgotado("ELIMINADO", 0.0, 3),
+            Protocolo.criarMensagemPing());
+    }
+    
+    /**
+     * Conteúdo do quadro, sem o tamanho
+     */
+    private static ByteBuffer conteudo(byte[] quadro) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(quadro));
+        ByteBuffer conteudo = ProtocoloBinario.lerQuadro(entrada, Integer.MAX_VALUE);
+        assertEquals(-1, entrada.read(), "sobraram bytes depois do quadro");
+        return conteudo;
+    }
+    
+    private static String idaEVolta(String mensagem) throws IOException {
+        return String.join("|", ProtocoloBinario.decodificar(conteudo(ProtocoloBinario.codificar(mensagem))));
+    }
+    
+    @Test
+    void mensagensDoServidorVoltamIguais() throws IOException {
+        for (String mensagem : mensagensDoServidor()) {
+            assertEquals(mensagem, idaEVolta(mensagem));
+        }
+    }
+    
+    @Test
+    void comandosDoClienteVoltamIguais() throws IOException {
+        for (String mensagem : List.of(
+                Protocolo.criarMensagemConectar("ana"),
+                Protocolo.criarMensagemResposta(3),
+                Protocolo.criarMensagemParar(),
+                Protocolo.criarMensagemChat("a|b"),
+                Protocolo.criarMensagemSincronizar(),
+                Protocolo.criarMensagemRetomar("a1b2c3"),
+                Protocolo.criarMensagemPong())) {
+            assertEquals(mensagem, idaEVolta(mensagem));
+        }
+    }
+    
+    @Test
+    void codificacaoTipadaIgualAPartirDoTexto() {
+        assertArrayEquals(ProtocoloBinario.codificar(Protocolo.criarMensagemPergunta(PERGUNTA)),
+            ProtocoloBinario.codificarPergunta(PERGUNTA));
+        assertArrayEquals(ProtocoloBinario.codificar(Protocolo.criarMensagemResultado(true, 1000.0, 1)),
+            ProtocoloBinario.codificarResultado(true, 1000.0, 1));
+        assertArrayEquals(ProtocoloBinario.codificar(Protocolo.criarMensagemPlacar(7, 3, "ana", 2, 2000.0, "ATIVO")),
+            ProtocoloBinario.codificarPlacar(7, 3, "ana", 2, 2000.0, "ATIVO"));
+        assertArrayEquals(ProtocoloBinario.codificar(Protocolo.criarMensagemJogoFinalizado("ana", 1000000.0)),
+            ProtocoloBinario.codificarJogoFinalizado("ana", 1000000.0));
+        assertArrayEquals(ProtocoloBinario.codificar(Protocolo.criarMensagemTempoEsgotado("PAROU", 500.0, 4)),
+            ProtocoloBinario.codificarTempoEsgotado("PAROU", 500.0, 4));
+        
+        EstadoJogo estadoJogo = new EstadoJogo();
+        estadoJogo.adicionarJogador(new Jogador("ana"));
+        estadoJogo.adicionarJogador(new Jogador("bia"));
+        assertArrayEquals(
+            ProtocoloBinario.codificar(Protocolo.criarMensagemEstatisticas(9, estadoJogo.obterEstatisticas())),
+            ProtocoloBinario.codificarEstatisticas(9, estadoJogo.getJogadores()));
+    }
+    
+    @Test
+    void despachoBinarioIgualAoDoTexto() throws IOException {
+        for (String mensagem : mensagensDoServidor()) {
+            Registro texto = new Registro();
+            Protocolo.despacharMensagem(mensagem, texto);
+            Registro binario = new Registro();
+            ProtocoloBinario.despacharMensagem(conteudo(ProtocoloBinario.codificar(mensagem)), binario);
+            
+            assertEquals(1, texto.chamadas.size(), mensagem);
+            assertEquals(texto.chamadas, binario.chamadas);
+        }
+    }
+    
+    @Test
+    void inteirosNosLimitesDoVarint() throws IOException {
+        for (long versao : new long[] {0, 1, -1, 63, -64, 64, 8191, 8192, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            String mensagem = Protocolo.criarMensagemPlacar(versao, 1, "ana", 0, 0.0, "ATIVO");
+            assertEquals(mensagem, idaEVolta(mensagem));
+        }
+    }
+    
+    @Test
+    void tamanhoDoQuadroUsaUmByteAte127() {
+        // Código (1) + tamanho do texto (1) + texto
+        byte[] curto = ProtocoloBinario.codificar(Protocolo.criarMensagemErro("x".repeat(125)));
+        assertEquals(1 + 127, curto.length);
+        assertEquals(127, curto[0]);
+        
+        byte[] longo = ProtocoloBinario.codificar(Protocolo.criarMensagemErro("x".repeat(126)));
+        assertEquals(2 + 128, longo.length);
+        assertEquals((byte) 0x80, longo[0]);
+        assertEquals(0x01, longo[1]);
+    }
+    
+    @Test
+    void extrairQuadroEsperaOQuadroInteiro() {
+        byte[] primeiro = ProtocoloBinario.codificar(Protocolo.criarMensagemResposta(2));
+        byte[] segundo = ProtocoloBinario.codificar(Protocolo.criarMensagemChat("oi"));
+        ByteBuffer buffer = ByteBuffer.allocate(primeiro.length + segundo.length);
+        Registro registro = new Registro();
+        
+        buffer.put(primeiro).put(segundo, 0, segundo.length - 1).flip();
+        assertTrue(ProtocoloBinario.extrairQuadro(buffer, registro));
+        assertEquals(primeiro.length, buffer.position());
+        assertFalse(ProtocoloBinario.extrairQuadro(buffer, registro));
+        assertEquals(primeiro.length, buffer.position(), "o quadro incompleto não pode ser consumido");
+        
+        buffer.limit(buffer.capacity()).put(buffer.capacity() - 1, segundo[segundo.length - 1]);
+        assertTrue(ProtocoloBinario.extrairQuadro(buffer, registro));
+        assertFalse(buffer.hasRemaining());
+        assertEquals(List.of("responder|2", "conversar|oi"), registro.chamadas);
+    }
+    
+    @Test
+    void extrairQuadroRecusaTamanhoAcimaDoLimite() {
+        int tamanho = ProtocoloBinario.TAMANHO_MAXIMO_CLIENTE + 1;
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {(byte) (tamanho & 0x7F | 0x80), (byte) (tamanho >>> 7)});
+        assertThrows(IllegalArgumentException.class, () -> ProtocoloBinario.extrairQuadro(buffer, new Registro()));
+        
+        ByteBuffer invalido = ByteBuffer.wrap(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01});
+        assertThrows(IllegalArgumentException.class, () -> ProtocoloBinario.extrairQuadro(invalido, new Registro()));
+    }
+    
+    @Test
+    void lerQuadroDistingueFimEntreQuadrosDeFimNoMeio() throws IOException {
+        assertNull(ProtocoloBinario.lerQuadro(new DataInputStream(new ByteArrayInputStream(new byte[0])), 100));
+        
+        byte[] quadro = ProtocoloBinario.codificar(Protocolo.criarMensagemChat("oi"));
+        for (int corte = 1; corte < quadro.length; corte++) {
+            DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(quadro, 0, corte));
+            assertThrows(EOFException.class, () -> ProtocoloBinario.lerQuadro(entrada, 100));
+        }
+        
+        DataInputStream grande = new DataInputStream(new ByteArrayInputStream(quadro));
+        assertThrows(IllegalArgumentException.class, () -> ProtocoloBinario.lerQuadro(grande, quadro.length - 2));
+    }
+    
+    @Test
+    void conteudoTruncadoERecusado() throws IOException {
+        for (String mensagem : mensagensDoServidor()) {
+            ByteBuffer conteudo = conteudo(ProtocoloBinario.codificar(mensagem));
+            if (conteudo.remaining() == 1) {
+                continue; // só o código: não há o que truncar
+            }
+            ByteBuffer truncado = ByteBuffer.wrap(Arrays.copyOf(conteudo.array(), conteudo.remaining() - 1));
+            
+            IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                () -> ProtocoloBinario.decodificar(truncado.duplicate()), mensagem);
+            assertEquals("Quadro binário truncado", erro.getMessage());
+            assertThrows(IllegalArgumentException.class,
+                () -> ProtocoloBinario.despacharMensagem(truncado.duplicate(), new Registro()), mensagem);
+        }
+        
+        assertThrows(IllegalArgumentException.class, () -> ProtocoloBinario.decodificar(ByteBuffer.wrap(new byte[] {0x7F})));
+    }
+}
@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Prazos que passam pelos níveis de cima da roda são redistribuídos e
+ * vencem na ordem e não antes do atraso pedido
+ */
+class RodaTemporizadoresTest {
+    
+    private RodaTemporizadores roda;
+    
+    @BeforeEach
+    void iniciar() {
+        roda = new RodaTemporizadores(1);
+        roda.iniciar();
+    }
+    
+    @AfterEach
+    void parar() {
+        roda.parar();
+    }
+    
+    @Test
+    void prazosDeVariosNiveisVencemEmOrdem() throws InterruptedException {
+        // 64 ticks enchem o nível 0; 4096 o nível 1
+        long[] atrasos = {4200, 5, 700, 50, 70, 130, 300};
+        List<Long> vencidos = Collections.synchronizedList(new ArrayList<>());
+        List<String> adiantados = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch todos = new CountDownLatch(atrasos.length);
+        long inicio = System.nanoTime();
+        
+        for (long atraso : atrasos) {
+            roda.agendar(atraso, () -> {
+                long decorrido = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                if (decorrido < atraso) {
+                    adiantados.add(atraso + " ms venceu com " + decorrido + " ms");
+                }
+                vencidos.add(atraso);
+                todos.countDown();
+            });
+        }
+        
+        assertTrue(todos.await(20, TimeUnit.SECONDS), "vencidos: " + vencidos);
+        assertEquals(List.of(5L, 50L, 70L, 130L, 300L, 700L, 4200L), vencidos);
+        assertEquals(List.of(), adiantados);
+    }
+    
+    @Test
+    void canceladoNaoExecuta() throws InterruptedException {
+        AtomicBoolean executou = new AtomicBoolean(false);
+        RodaTemporizadores.Temporizador cancelado = roda.agendar(100, () -> executou.set(true));
+        CountDownLatch depois = new CountDownLatch(1);
+        roda.agendar(200, depois::countDown);
+        
+        assertTrue(cancelado.cancelar());
+        assertFalse(cancelado.cancelar());
+        assertTrue(depois.await(10, TimeUnit.SECONDS));
+        assertFalse(executou.get());
+    }
+    
+    @Test
+    void vencidoNaoPodeSerCancelado() throws InterruptedException {
+        CountDownLatch venceu = new CountDownLatch(1);
+        RodaTemporizadores.Temporizador temporizador = roda.agendar(10, venceu::countDown);
+        assertTrue(venceu.await(10, TimeUnit.SECONDS));
+        assertFalse(temporizador.cancelar());
+    }
+}